@@ -0,0 +1,190 @@
+/*
+ * Copyright (c) 2022. WeCoding (wecoding@yeah.net).
+ *
+ * Licensed under the GNU LESSER GENERAL PUBLIC LICENSE 3.0;
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.gnu.org/licenses/lgpl.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package top.wecoding.core.cache.base;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * 规范异步缓存操作，与 {@link CacheOperator} 一一对应，所有操作立即返回，不阻塞调用线程
+ *
+ * @author liuyuhui
+ * @date 2022/6/21
+ * @qq 1515418211
+ */
+public interface AsyncCacheOperator<T> {
+
+    /**
+     * 将对象加入到缓存
+     *
+     * @param key    键
+     * @param object 缓存的对象
+     * @return 完成信号
+     */
+    CompletableFuture<Void> set(String key, T object);
+
+    /**
+     * 将对象加入到缓存，使用指定失效时长
+     *
+     * @param key     键
+     * @param object  缓存的对象
+     * @param timeout 失效时长/秒
+     * @return 完成信号
+     */
+    CompletableFuture<Void> set(String key, T object, long timeout);
+
+    /**
+     * 从缓存中获得对象
+     *
+     * @param key 键
+     * @return 键对应的对象，不存在时为 null
+     */
+    CompletableFuture<T> get(String key);
+
+    /**
+     * 从缓存中获得对象，不存在时，异步加载并 put 后返回
+     *
+     * @param key    键
+     * @param loader 异步加载器
+     * @return 键对应的对象
+     */
+    CompletableFuture<T> get(String key, Supplier<CompletableFuture<T>> loader);
+
+    /**
+     * 根据指定缓存 keys 获得对象
+     *
+     * @param keys 键
+     * @return 按给定 keys 顺序排列的对象，不存在时对应 null
+     */
+    CompletableFuture<List<T>> find(Collection<String> keys);
+
+    /**
+     * 从缓存中移除对象
+     *
+     * @param keys 键
+     * @return 删除的数量
+     */
+    CompletableFuture<Long> del(String... keys);
+
+    /**
+     * 删除缓存
+     *
+     * @param keys 键，多个
+     * @return 删除的数量
+     */
+    CompletableFuture<Long> del(Collection<String> keys);
+
+    /**
+     * 是否包含key
+     *
+     * @param key key
+     * @return 是否存在
+     */
+    CompletableFuture<Boolean> exists(String key);
+
+    /**
+     * 获取 key 中存放的 Long 值
+     *
+     * @param key 键
+     * @return key中存储的的数字
+     */
+    CompletableFuture<Long> getCounter(String key);
+
+    /**
+     * 为键 key 储存的数字值加上一。
+     *
+     * @param key 键
+     * @return 递增结果
+     */
+    CompletableFuture<Long> incr(String key);
+
+    /**
+     * 为键 key 储存的数字值加上 delta
+     *
+     * @param key   键
+     * @param delta 增量值
+     * @return 递增结果
+     */
+    CompletableFuture<Long> incrBy(String key, long delta);
+
+    /**
+     * 为键 key 储存的数字值加上 delta
+     *
+     * @param key   键
+     * @param delta 增量值
+     * @return 递增结果
+     */
+    CompletableFuture<Double> incrByFloat(String key, double delta);
+
+    /**
+     * 为键 key 储存的数字值减去一
+     *
+     * @param key 键
+     * @return 递减结果
+     */
+    CompletableFuture<Long> decr(String key);
+
+    /**
+     * 将 key 所储存的值减去减量 delta
+     *
+     * @param key   键
+     * @param delta 增量值
+     * @return 递减结果
+     */
+    CompletableFuture<Long> decrBy(String key, long delta);
+
+    /**
+     * 缓存的前缀
+     *
+     * @return 缓存前缀
+     */
+    String getKeyPrefix();
+
+    /**
+     * 获取加前缀的 key
+     *
+     * @param key 给定的 key
+     * @return prefix + key
+     */
+    default String getKey(String key) {
+        return getKeyPrefix() + key;
+    }
+
+    /**
+     * 获取加前缀的 key
+     *
+     * @param keys 给定的 keys
+     * @return prefix + key
+     */
+    default List<String> getKeys(String... keys) {
+        return getKeys(Arrays.asList(keys));
+    }
+
+    /**
+     * 获取加前缀的 key
+     *
+     * @param keys 给定的 keys
+     * @return prefix + key
+     */
+    default List<String> getKeys(Collection<String> keys) {
+        return keys.stream().map(this::getKey).collect(Collectors.toList());
+    }
+
+}
@@ -15,9 +15,14 @@
  */
 package top.wecoding.core.cache.base;
 
+import top.wecoding.core.constant.StrPool;
+
+import java.time.Duration;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
@@ -46,6 +51,54 @@ public interface CacheOperator<T> {
      */
     void set(String key, T object, long timeout);
 
+    /**
+     * 批量将对象加入到缓存，使用指定失效时长
+     *
+     * @param map     键值对
+     * @param timeout 失效时长，为 null 或小于等于 0 时永不过期，不足 1 秒的部分向上取整
+     */
+    default void setAll(Map<String, T> map, Duration timeout) {
+        long seconds = toSeconds(timeout);
+        map.forEach((key, object) -> set(key, object, seconds));
+    }
+
+    /**
+     * 批量设置失效时长
+     * <p>
+     * 默认实现通过 {@link #getAndTouchAll} 读出后重新写入，读写之间其他线程写入的新值会被覆盖，
+     * 支持单独设置失效时长的实现应当覆盖此方法
+     *
+     * @param keys    键
+     * @param timeout 失效时长，小于等于 0 时不做处理
+     */
+    default void expireAll(Collection<String> keys, Duration timeout) {
+        getAndTouchAll(keys, timeout);
+    }
+
+    /**
+     * 批量获得对象并刷新失效时长
+     * <p>
+     * 默认实现通过重新写入刷新失效时长，与 {@link #expireAll} 一样存在覆盖并发写入的问题
+     *
+     * @param keys    键
+     * @param timeout 失效时长，小于等于 0 时只获取不刷新，不足 1 秒的部分向上取整
+     * @return 按给定 keys 顺序排列的对象，不存在时对应 null
+     */
+    default List<T> getAndTouchAll(Collection<String> keys, Duration timeout) {
+        List<T> values = find(keys);
+        long seconds = toSeconds(timeout);
+        if (seconds > 0) {
+            Iterator<String> keyIterator = keys.iterator();
+            for (T value : values) {
+                String key = keyIterator.next();
+                if (value != null) {
+                    set(key, value, seconds);
+                }
+            }
+        }
+        return values;
+    }
+
     /**
      * 从缓存中获得对象
      *
@@ -156,6 +209,31 @@ public interface CacheOperator<T> {
      */
     String getKeyPrefix();
 
+    /**
+     * 失效时长转换为秒，不足 1 秒的部分向上取整，避免短于 1 秒的时长变为 0 而永不过期
+     *
+     * @param timeout 失效时长
+     * @return 失效时长/秒，为 null 或小于等于 0 时返回 0
+     */
+    static long toSeconds(Duration timeout) {
+        if (timeout == null || timeout.isZero() || timeout.isNegative()) {
+            return 0;
+        }
+        return timeout.getNano() > 0 ? timeout.getSeconds() + 1 : timeout.getSeconds();
+    }
+
+    /**
+     * 生成带 hash tag 的缓存前缀，Redis Cluster 下同一前缀的 key 位于同一 slot，批量操作不会跨 slot。
+     * 在 {@link #getKeyPrefix()} 中使用，如 {@code hashTag("dict:")} 返回 {@code "{dict}:"}
+     *
+     * @param prefix 缓存前缀
+     * @return 带 hash tag 的缓存前缀
+     */
+    static String hashTag(String prefix) {
+        String tag = prefix.endsWith(StrPool.COLON) ? prefix.substring(0, prefix.length() - 1) : prefix;
+        return StrPool.LEFT_CURLY_BRACKETS + tag + StrPool.RIGHT_CURLY_BRACKETS + StrPool.COLON;
+    }
+
     /**
      * 获取加前缀的 key
      *
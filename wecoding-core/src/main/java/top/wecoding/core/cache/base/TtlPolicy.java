@@ -0,0 +1,59 @@
+/*
+ * Copyright (c) 2022. WeCoding (wecoding@yeah.net).
+ *
+ * Licensed under the GNU LESSER GENERAL PUBLIC LICENSE 3.0;
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.gnu.org/licenses/lgpl.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package top.wecoding.core.cache.base;
+
+import java.time.Duration;
+
+/**
+ * 缓存失效时长策略，写入缓存前根据 key 调整失效时长，如增加随机抖动、按前缀覆盖时长
+ *
+ * @author liuyuhui
+ * @date 2022/6/26
+ * @qq 1515418211
+ */
+@FunctionalInterface
+public interface TtlPolicy {
+
+    /**
+     * 不做调整
+     */
+    TtlPolicy NONE = (key, ttl) -> ttl;
+
+    /**
+     * 计算实际失效时长
+     *
+     * @param key 完整的缓存 key
+     * @param ttl 期望的失效时长，为 null、0 或负数时表示永不过期
+     * @return 实际失效时长，为 null、0 或负数时表示永不过期
+     */
+    Duration apply(String key, Duration ttl);
+
+    /**
+     * 计算实际失效时长
+     *
+     * @param key     完整的缓存 key
+     * @param timeout 期望的失效时长/秒，小于等于 0 时表示永不过期
+     * @return 实际失效时长/秒，小于等于 0 时表示永不过期
+     */
+    default long apply(String key, long timeout) {
+        Duration ttl = apply(key, timeout > 0 ? Duration.ofSeconds(timeout) : Duration.ZERO);
+        if (ttl == null || ttl.isZero() || ttl.isNegative()) {
+            return 0;
+        }
+        return Math.max(ttl.getSeconds(), 1);
+    }
+
+}
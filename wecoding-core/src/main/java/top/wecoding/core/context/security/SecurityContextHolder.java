@@ -22,6 +22,7 @@ import top.wecoding.core.constant.StrPool;
 
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
 
 /**
  * 获取当前线程变量中的 用户id、用户名称、Token等信息
@@ -38,14 +39,29 @@ public class SecurityContextHolder {
         map.put(key, value == null ? StrPool.EMPTY : value);
     }
 
-    public static String get(String key) {
+    /**
+     * 设置延迟加载的值，第一次读取时才调用 supplier，结果在当前线程变量中复用
+     *
+     * @param key      键
+     * @param supplier 值的提供者
+     */
+    public static void setSupplier(String key, Supplier<?> supplier) {
         Map<String, Object> map = getLocalMap();
-        return Convert.toStr(map.getOrDefault(key, StrPool.EMPTY));
+        map.put(key, new LazyValue(supplier));
+    }
+
+    public static String get(String key) {
+        Object value = resolve(key);
+        return Convert.toStr(value == null ? StrPool.EMPTY : value);
     }
 
     public static <T> T get(String key, Class<T> clazz) {
-        Map<String, Object> map = getLocalMap();
-        return Convert.convert(clazz, map.getOrDefault(key, null));
+        return Convert.convert(clazz, resolve(key));
+    }
+
+    private static Object resolve(String key) {
+        Object value = getLocalMap().get(key);
+        return value instanceof LazyValue ? ((LazyValue) value).get() : value;
     }
 
     public static Map<String, Object> getLocalMap() {
@@ -113,4 +129,31 @@ public class SecurityContextHolder {
         THREAD_LOCAL.remove();
     }
 
+    /**
+     * 延迟加载的值，只加载一次
+     */
+    private static final class LazyValue {
+
+        private volatile Supplier<?> supplier;
+
+        private volatile Object value;
+
+        private LazyValue(Supplier<?> supplier) {
+            this.supplier = supplier;
+        }
+
+        private Object get() {
+            if (supplier != null) {
+                synchronized (this) {
+                    if (supplier != null) {
+                        value = supplier.get();
+                        supplier = null;
+                    }
+                }
+            }
+            return value;
+        }
+
+    }
+
 }
@@ -37,6 +37,7 @@ import top.wecoding.core.exception.code.ClientErrorCodeEnum;
 import top.wecoding.core.exception.code.SystemErrorCodeEnum;
 import top.wecoding.core.exception.user.ForbiddenException;
 import top.wecoding.core.exception.user.InnerAuthException;
+import top.wecoding.core.exception.user.RateLimitException;
 import top.wecoding.core.exception.user.UnauthorizedException;
 import top.wecoding.core.model.response.Response;
 
@@ -91,6 +92,13 @@ public abstract class AbstractGlobalExceptionHandler {
         return Response.buildFailure(e.getErrorCode(), e.getMessage());
     }
 
+    @ExceptionHandler(RateLimitException.class)
+    @ResponseStatus(HttpStatus.TOO_MANY_REQUESTS)
+    public Response rateLimitException(RateLimitException e) {
+        log.warn(" >>> 请求被限流，具体信息为：{}", e.getMessage());
+        return Response.buildFailure(e.getErrorCode(), e.getMessage());
+    }
+
     /**
      * 请求参数缺失异常
      */
@@ -0,0 +1,74 @@
+/*
+ * Copyright (c) 2022. WeCoding (wecoding@yeah.net).
+ *
+ * Licensed under the GNU LESSER GENERAL PUBLIC LICENSE 3.0;
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.gnu.org/licenses/lgpl.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY StringIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package top.wecoding.core.cache.base;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.CALLS_REAL_METHODS;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * @author liuyuhui
+ * @date 2022/6/30
+ * @qq 1515418211
+ */
+@SuppressWarnings("unchecked")
+class CacheOperatorTest {
+
+    @Test
+    void toSecondsRoundsUp() {
+        assertThat(CacheOperator.toSeconds(null)).isZero();
+        assertThat(CacheOperator.toSeconds(Duration.ZERO)).isZero();
+        assertThat(CacheOperator.toSeconds(Duration.ofSeconds(-1))).isZero();
+        assertThat(CacheOperator.toSeconds(Duration.ofMillis(1))).isEqualTo(1);
+        assertThat(CacheOperator.toSeconds(Duration.ofMillis(500))).isEqualTo(1);
+        assertThat(CacheOperator.toSeconds(Duration.ofSeconds(2))).isEqualTo(2);
+        assertThat(CacheOperator.toSeconds(Duration.ofMillis(2001))).isEqualTo(3);
+    }
+
+    @Test
+    void setAllWithSubSecondTimeoutExpires() {
+        CacheOperator<String> operator = mock(CacheOperator.class, CALLS_REAL_METHODS);
+
+        operator.setAll(Collections.singletonMap("a", "1"), Duration.ofMillis(500));
+
+        verify(operator).set("a", "1", 1L);
+    }
+
+    @Test
+    void getAndTouchAllWithSubSecondTimeoutRefreshes() {
+        CacheOperator<String> operator = mock(CacheOperator.class, CALLS_REAL_METHODS);
+        when(operator.find(anyCollection())).thenReturn(Arrays.asList("1", null));
+
+        assertThat(operator.getAndTouchAll(Arrays.asList("a", "b"), Duration.ofMillis(500))).containsExactly("1", null);
+
+        verify(operator).set("a", "1", 1L);
+        verify(operator, never()).set(eq("b"), any(), anyLong());
+    }
+
+}
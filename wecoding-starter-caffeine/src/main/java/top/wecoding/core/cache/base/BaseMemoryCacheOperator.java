@@ -17,40 +17,88 @@ package top.wecoding.core.cache.base;
 
 import com.github.benmanes.caffeine.cache.Cache;
 import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.Weigher;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import top.wecoding.core.exception.ArgumentException;
 
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Supplier;
 
 /**
+ * 基于 Caffeine 的本地缓存
+ * <p>
+ * 所有 key 共用一个 Caffeine 缓存，通过 {@link Expiry} 为每个 key 单独设置失效时长。
+ * 计数器与普通值共用同一个 key 空间，以原子类保存，累加时无锁。
+ * 写入时与 Redis 缓存一样按 {@link TtlPolicy} 调整失效时长，策略以 {@code getKey(key)} 匹配前缀
+ *
  * @author liuyuhui
  * @date 2022/6/11
  * @qq 1515418211
  */
 @Slf4j
+@SuppressWarnings("unchecked")
 public abstract class BaseMemoryCacheOperator<T> implements CacheOperator<T> {
 
     /**
-     * 最大数量
+     * 默认最大数量
+     */
+    private static final long DEF_MAX_SIZE = 10_000;
+
+    /**
+     * 永不过期
+     */
+    private static final long NEVER_EXPIRE = Long.MAX_VALUE;
+
+    /**
+     * 更新时沿用原有的失效时长
+     */
+    private static final long KEEP_TTL = -1L;
+
+    private final Cache<String, CacheValue> cache;
+
+    @Autowired(required = false)
+    private TtlPolicy ttlPolicy;
+
+    protected BaseMemoryCacheOperator() {
+        this(DEF_MAX_SIZE);
+    }
+
+    /**
+     * @param maximumSize 最大缓存数量
      */
-    private static final long DEF_MAX_SIZE = 1_000;
+    protected BaseMemoryCacheOperator(long maximumSize) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfter(new CacheValueExpiry())
+                .build();
+    }
 
-    private final Cache<String, Cache<String, Object>> cacheMap = Caffeine.newBuilder()
-            .maximumSize(DEF_MAX_SIZE)
-            .build();
+    /**
+     * @param maximumWeight 最大缓存权重
+     * @param weigher       计算每个缓存值的权重，计数器传入当前数值
+     */
+    protected BaseMemoryCacheOperator(long maximumWeight, Weigher<String, Object> weigher) {
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maximumWeight)
+                .weigher((String key, CacheValue value) -> weigher.weigh(key, unwrap(value)))
+                .expireAfter(new CacheValueExpiry())
+                .build();
+    }
 
     @Override
     public void set(String key, T object) {
         if (object == null) {
             return;
         }
-
-        Caffeine<Object, Object> cacheBuilder = Caffeine.newBuilder().maximumSize(DEF_MAX_SIZE);
-        Cache<String, Object> cache = cacheBuilder.build();
-        cache.put(key, object);
-        cacheMap.put(key, cache);
+        cache.put(key, new CacheValue(object, toTtlNanos(getTtlPolicy().apply(getKey(key), 0))));
     }
 
     @Override
@@ -58,96 +106,289 @@ public abstract class BaseMemoryCacheOperator<T> implements CacheOperator<T> {
         if (object == null) {
             return;
         }
+        cache.put(key, new CacheValue(object, toTtlNanos(getTtlPolicy().apply(getKey(key), timeout))));
+    }
 
-        Caffeine<Object, Object> cacheBuilder = Caffeine.newBuilder()
-                .expireAfterWrite(timeout, TimeUnit.SECONDS)
-                .maximumSize(DEF_MAX_SIZE);
-        Cache<String, Object> cache = cacheBuilder.build();
-        cache.put(key, object);
-        cacheMap.put(key, cache);
+    @Override
+    public void setAll(Map<String, T> map, Duration timeout) {
+        TtlPolicy policy = getTtlPolicy();
+        map.forEach((key, object) -> {
+            if (object != null) {
+                Duration ttl = policy.apply(getKey(key), timeout);
+                cache.put(key, new CacheValue(object, ttl != null && ttl.toNanos() > 0 ? ttl.toNanos() : NEVER_EXPIRE));
+            }
+        });
     }
 
     @Override
-    public T get(String key) {
-        Cache<String, Object> ifPresent = cacheMap.getIfPresent(key);
-        if (ifPresent == null) {
-            return null;
+    public void expireAll(Collection<String> keys, Duration timeout) {
+        if (timeout == null || timeout.toNanos() <= 0) {
+            return;
         }
-        return (T) ifPresent.getIfPresent(key);
+        cache.policy().expireVariably().ifPresent(expiration ->
+                keys.forEach(key -> expiration.setExpiresAfter(key, timeout.toNanos(), TimeUnit.NANOSECONDS)));
+    }
+
+    @Override
+    public List<T> getAndTouchAll(Collection<String> keys, Duration timeout) {
+        List<T> values = find(keys);
+        expireAll(keys, timeout);
+        return values;
+    }
+
+    @Override
+    public T get(String key) {
+        CacheValue value = cache.getIfPresent(key);
+        return value == null ? null : (T) unwrap(value);
     }
 
     @Override
     public T get(String key, Supplier<T> loader) {
-        Cache<String, Object> cache = cacheMap.get(key, (k) -> {
-            Caffeine<Object, Object> builder = Caffeine.newBuilder()
-                    .maximumSize(DEF_MAX_SIZE);
-            Cache<String, Object> newCache = builder.build();
-            newCache.get(k, (tk) -> loader.get());
-            return newCache;
+        CacheValue value = cache.get(key, k -> {
+            T loaded = loader.get();
+            return loaded == null ? null : new CacheValue(loaded, NEVER_EXPIRE);
         });
-
-        return (T) cache.getIfPresent(key);
+        return value == null ? null : (T) unwrap(value);
     }
 
     @Override
     public List<T> find(Collection<String> keys) {
-        return null;
+        Map<String, CacheValue> present = cache.getAllPresent(keys);
+        List<T> result = new ArrayList<>(keys.size());
+        for (String key : keys) {
+            CacheValue value = present.get(key);
+            result.add(value == null ? null : (T) unwrap(value));
+        }
+        return result;
     }
 
     @Override
     public Long del(String... keys) {
+        long count = 0;
         for (String key : keys) {
-            cacheMap.invalidate(key);
+            if (cache.asMap().remove(key) != null) {
+                count++;
+            }
         }
-        return (long) keys.length;
+        return count;
     }
 
     @Override
     public Long del(Collection<String> keys) {
+        long count = 0;
         for (String key : keys) {
-            cacheMap.invalidate(key);
+            if (cache.asMap().remove(key) != null) {
+                count++;
+            }
         }
-        return (long) keys.size();
+        return count;
     }
 
     @Override
     public void flushDb() {
-        cacheMap.invalidateAll();
+        cache.invalidateAll();
     }
 
     @Override
     public Boolean exists(String key) {
-        return null;
+        return cache.asMap().containsKey(key);
     }
 
     @Override
     public Long getCounter(String key) {
-        return null;
+        CacheValue value = cache.getIfPresent(key);
+        return value == null ? null : toLong(key, unwrap(value));
     }
 
     @Override
     public Long incr(String key) {
-        return null;
+        return addAndGet(key, 1L);
     }
 
     @Override
     public Long incrBy(String key, long delta) {
-        return null;
+        return addAndGet(key, delta);
     }
 
     @Override
     public Double incrByFloat(String key, double delta) {
-        return null;
+        CacheValue value = cache.getIfPresent(key);
+        if (value != null && value.value instanceof DoubleCounter) {
+            return ((DoubleCounter) value.value).addAndGet(delta);
+        }
+        // 首次写入或由普通值转换为计数器，沿用原有失效时长
+        CacheValue counter = cache.asMap().compute(key, (k, old) -> {
+            if (old != null && old.value instanceof DoubleCounter) {
+                return old;
+            }
+            double current = old == null ? 0D : toDouble(k, unwrap(old));
+            return new CacheValue(new DoubleCounter(current), KEEP_TTL);
+        });
+        return ((DoubleCounter) counter.value).addAndGet(delta);
     }
 
     @Override
     public Long decr(String key) {
-        return null;
+        return addAndGet(key, -1L);
     }
 
     @Override
     public Long decrBy(String key, long delta) {
-        return null;
+        return addAndGet(key, -delta);
+    }
+
+    /**
+     * 计数器累加，计数器已存在时只做一次 CAS，不经过缓存的写锁
+     *
+     * @param key   键
+     * @param delta 增量
+     * @return 累加结果
+     */
+    private Long addAndGet(String key, long delta) {
+        CacheValue value = cache.getIfPresent(key);
+        if (value != null && value.value instanceof AtomicLong) {
+            return addExact((AtomicLong) value.value, delta);
+        }
+        // 首次写入或由普通值转换为计数器，沿用原有失效时长
+        CacheValue counter = cache.asMap().compute(key, (k, old) -> {
+            if (old != null && old.value instanceof AtomicLong) {
+                return old;
+            }
+            long current = old == null ? 0L : toLong(k, unwrap(old));
+            return new CacheValue(new AtomicLong(current), KEEP_TTL);
+        });
+        return addExact((AtomicLong) counter.value, delta);
+    }
+
+    /**
+     * 失效时长策略，默认使用容器中的 {@link TtlPolicy}，子类可按需覆盖
+     *
+     * @return 失效时长策略
+     */
+    protected TtlPolicy getTtlPolicy() {
+        return ttlPolicy == null ? TtlPolicy.NONE : ttlPolicy;
+    }
+
+    private static long addExact(AtomicLong counter, long delta) {
+        long current;
+        long next;
+        do {
+            current = counter.get();
+            next = Math.addExact(current, delta);
+        } while (!counter.compareAndSet(current, next));
+        return next;
+    }
+
+    /**
+     * 计数器以原子类保存，读取时转换为数值
+     */
+    private static Object unwrap(CacheValue value) {
+        if (value.value instanceof AtomicLong) {
+            return ((AtomicLong) value.value).get();
+        }
+        if (value.value instanceof DoubleCounter) {
+            return ((DoubleCounter) value.value).get();
+        }
+        return value.value;
+    }
+
+    private static long toTtlNanos(long timeout) {
+        return timeout > 0 ? TimeUnit.SECONDS.toNanos(timeout) : NEVER_EXPIRE;
+    }
+
+    private static long toLong(String key, Object value) {
+        try {
+            if (value instanceof Double || value instanceof Float) {
+                // 与 Redis 一致，整数值的浮点计数器可以继续按整数累加
+                double number = ((Number) value).doubleValue();
+                if (number != Math.rint(number) || Double.isInfinite(number)) {
+                    throw new NumberFormatException();
+                }
+                return (long) number;
+            }
+            if (value instanceof Number) {
+                return ((Number) value).longValue();
+            }
+            return Long.parseLong(String.valueOf(value));
+        } catch (NumberFormatException e) {
+            throw new ArgumentException(String.format("缓存 [%s] 的值不是整数", key));
+        }
+    }
+
+    private static double toDouble(String key, Object value) {
+        try {
+            if (value instanceof Number) {
+                return ((Number) value).doubleValue();
+            }
+            return Double.parseDouble(String.valueOf(value));
+        } catch (NumberFormatException e) {
+            throw new ArgumentException(String.format("缓存 [%s] 的值不是数字", key));
+        }
+    }
+
+    /**
+     * 缓存值及其失效时长
+     */
+    private static final class CacheValue {
+
+        private final Object value;
+
+        private final long ttlNanos;
+
+        private CacheValue(Object value, long ttlNanos) {
+            this.value = value;
+            this.ttlNanos = ttlNanos;
+        }
+
+    }
+
+    /**
+     * 浮点计数器，以 long 保存 double 的位表示做 CAS
+     */
+    private static final class DoubleCounter {
+
+        private final AtomicLong bits;
+
+        private DoubleCounter(double initial) {
+            this.bits = new AtomicLong(Double.doubleToRawLongBits(initial));
+        }
+
+        private double get() {
+            return Double.longBitsToDouble(bits.get());
+        }
+
+        private double addAndGet(double delta) {
+            long current;
+            double next;
+            do {
+                current = bits.get();
+                next = Double.longBitsToDouble(current) + delta;
+            } while (!bits.compareAndSet(current, Double.doubleToRawLongBits(next)));
+            return next;
+        }
+
+    }
+
+    /**
+     * 按缓存值上记录的时长失效，计数器更新时保持原有时长
+     */
+    private static final class CacheValueExpiry implements Expiry<String, CacheValue> {
+
+        @Override
+        public long expireAfterCreate(String key, CacheValue value, long currentTime) {
+            return value.ttlNanos == KEEP_TTL ? NEVER_EXPIRE : value.ttlNanos;
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, CacheValue value, long currentTime, long currentDuration) {
+            return value.ttlNanos == KEEP_TTL ? currentDuration : value.ttlNanos;
+        }
+
+        @Override
+        public long expireAfterRead(String key, CacheValue value, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+
     }
 
 }
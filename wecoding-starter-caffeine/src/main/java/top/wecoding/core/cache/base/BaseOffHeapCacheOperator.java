@@ -0,0 +1,524 @@
+/*
+ * Copyright (c) 2022. WeCoding (wecoding@yeah.net).
+ *
+ * Licensed under the GNU LESSER GENERAL PUBLIC LICENSE 3.0;
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.gnu.org/licenses/lgpl.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package top.wecoding.core.cache.base;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import top.wecoding.core.cache.factory.CreateRedisTemplateFactory;
+import top.wecoding.core.cache.support.SingleFlight;
+import top.wecoding.core.exception.ArgumentException;
+import top.wecoding.core.exception.Assert;
+
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+
+/**
+ * 堆外本地缓存，值序列化后保存在直接内存中，堆内只保留索引
+ * <p>
+ * 直接内存按固定大小的 slab 分配，写入时顺序追加到当前 slab，写满后切换到下一个；
+ * 总量达到上限后复用最旧的 slab，其中最近读取过的 key 迁移到新位置(Clock)，其余淘汰。
+ * 序列化方式复用 Redis 模块的 {@link RedisSerializer}，需要引入 wecoding-starter-redis
+ *
+ * @author liuyuhui
+ * @date 2022/6/26
+ * @qq 1515418211
+ */
+@Slf4j
+@SuppressWarnings("unchecked")
+public abstract class BaseOffHeapCacheOperator<T> implements CacheOperator<T> {
+
+    /**
+     * 默认直接内存上限
+     */
+    private static final long DEF_MAX_BYTES = 256L * 1024 * 1024;
+
+    /**
+     * 默认 slab 大小，单个值不能超过该大小
+     */
+    private static final int DEF_SLAB_SIZE = 4 * 1024 * 1024;
+
+    /**
+     * 永不过期
+     */
+    private static final long NEVER_EXPIRE = Long.MAX_VALUE;
+
+    private final RedisSerializer<Object> serializer;
+
+    private final int slabSize;
+
+    private final Slab[] slabs;
+
+    private final Map<String, Entry> index = new ConcurrentHashMap<>();
+
+    /**
+     * 读取时持有读锁，追加、淘汰时持有写锁，保证读取过程中 slab 不会被复用
+     */
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final SingleFlight singleFlight = new SingleFlight();
+
+    /**
+     * 当前写入的 slab，只在写锁内访问
+     */
+    private int head = -1;
+
+    protected BaseOffHeapCacheOperator() {
+        this(DEF_MAX_BYTES);
+    }
+
+    /**
+     * @param maxBytes 直接内存上限
+     */
+    protected BaseOffHeapCacheOperator(long maxBytes) {
+        this(maxBytes, DEF_SLAB_SIZE, CreateRedisTemplateFactory.redisValueSerializer());
+    }
+
+    /**
+     * @param maxBytes   直接内存上限
+     * @param slabSize   slab 大小
+     * @param serializer 序列化方式
+     */
+    protected BaseOffHeapCacheOperator(long maxBytes, int slabSize, RedisSerializer<Object> serializer) {
+        Assert.isTrue(slabSize > 0 && maxBytes >= slabSize * 2L, "直接内存上限至少为两个 slab");
+        Assert.notNull(serializer, "序列化方式不能为空");
+        this.slabSize = slabSize;
+        this.slabs = new Slab[(int) Math.min(maxBytes / slabSize, Integer.MAX_VALUE)];
+        this.serializer = serializer;
+    }
+
+    @Override
+    public void set(String key, T object) {
+        if (object == null) {
+            return;
+        }
+        put(Collections.singletonMap(key, serializer.serialize(object)), NEVER_EXPIRE);
+    }
+
+    @Override
+    public void set(String key, T object, long timeout) {
+        if (object == null) {
+            return;
+        }
+        put(Collections.singletonMap(key, serializer.serialize(object)), toExpireAt(TimeUnit.SECONDS.toNanos(timeout)));
+    }
+
+    @Override
+    public void setAll(Map<String, T> map, Duration timeout) {
+        // 在锁外完成序列化
+        Map<String, byte[]> values = new LinkedHashMap<>(map.size());
+        map.forEach((key, object) -> {
+            if (object != null) {
+                values.put(key, serializer.serialize(object));
+            }
+        });
+        put(values, toExpireAt(timeout == null ? 0 : timeout.toNanos()));
+    }
+
+    @Override
+    public void expireAll(Collection<String> keys, Duration timeout) {
+        if (timeout == null || timeout.toNanos() <= 0) {
+            return;
+        }
+        long expireAt = toExpireAt(timeout.toNanos());
+        lock.readLock().lock();
+        try {
+            keys.forEach(key -> {
+                Entry entry = index.get(key);
+                if (entry != null) {
+                    entry.expireAt = expireAt;
+                }
+            });
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<T> getAndTouchAll(Collection<String> keys, Duration timeout) {
+        List<T> values = find(keys);
+        expireAll(keys, timeout);
+        return values;
+    }
+
+    @Override
+    public T get(String key) {
+        byte[] bytes = read(key);
+        return bytes == null ? null : (T) serializer.deserialize(bytes);
+    }
+
+    @Override
+    public T get(String key, Supplier<T> loader) {
+        T value = get(key);
+        if (value != null) {
+            return value;
+        }
+        return singleFlight.execute(key, () -> {
+            // 上一次加载可能刚刚结束
+            T cached = get(key);
+            if (cached != null) {
+                return cached;
+            }
+            T loaded = loader.get();
+            set(key, loaded);
+            return loaded;
+        });
+    }
+
+    @Override
+    public List<T> find(Collection<String> keys) {
+        List<T> result = new ArrayList<>(keys.size());
+        for (String key : keys) {
+            result.add(get(key));
+        }
+        return result;
+    }
+
+    @Override
+    public Long del(String... keys) {
+        long count = 0;
+        for (String key : keys) {
+            if (index.remove(key) != null) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    @Override
+    public Long del(Collection<String> keys) {
+        long count = 0;
+        for (String key : keys) {
+            if (index.remove(key) != null) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    @Override
+    public void flushDb() {
+        lock.writeLock().lock();
+        try {
+            index.clear();
+            for (Slab slab : slabs) {
+                if (slab != null) {
+                    slab.reset();
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public Boolean exists(String key) {
+        Entry entry = index.get(key);
+        return entry != null && !entry.isExpired(System.nanoTime());
+    }
+
+    @Override
+    public Long getCounter(String key) {
+        byte[] bytes = read(key);
+        return bytes == null ? null : toLong(key, serializer.deserialize(bytes));
+    }
+
+    @Override
+    public Long incr(String key) {
+        return addAndGet(key, 1L);
+    }
+
+    @Override
+    public Long incrBy(String key, long delta) {
+        Assert.isTrue(delta > 0, "递增因子必须大于0");
+        return addAndGet(key, delta);
+    }
+
+    @Override
+    public Double incrByFloat(String key, double delta) {
+        lock.writeLock().lock();
+        try {
+            Entry entry = liveEntry(key);
+            double current = entry == null ? 0D : toDouble(key, serializer.deserialize(copy(entry)));
+            double next = current + delta;
+            write(key, serializer.serialize(next), entry == null ? NEVER_EXPIRE : entry.expireAt);
+            return next;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public Long decr(String key) {
+        return addAndGet(key, -1L);
+    }
+
+    @Override
+    public Long decrBy(String key, long delta) {
+        Assert.isTrue(delta > 0, "递减因子必须大于0");
+        return addAndGet(key, -delta);
+    }
+
+    /**
+     * 已占用的直接内存
+     *
+     * @return 字节数
+     */
+    public long getAllocatedBytes() {
+        long allocated = 0;
+        for (Slab slab : slabs) {
+            if (slab != null) {
+                allocated += slabSize;
+            }
+        }
+        return allocated;
+    }
+
+    /**
+     * 计数器累加，沿用原有失效时长
+     *
+     * @param key   键
+     * @param delta 增量
+     * @return 累加结果
+     */
+    private Long addAndGet(String key, long delta) {
+        lock.writeLock().lock();
+        try {
+            Entry entry = liveEntry(key);
+            long current = entry == null ? 0L : toLong(key, serializer.deserialize(copy(entry)));
+            long next = Math.addExact(current, delta);
+            write(key, serializer.serialize(next), entry == null ? NEVER_EXPIRE : entry.expireAt);
+            return next;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void put(Map<String, byte[]> values, long expireAt) {
+        lock.writeLock().lock();
+        try {
+            values.forEach((key, bytes) -> write(key, bytes, expireAt));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private byte[] read(String key) {
+        lock.readLock().lock();
+        try {
+            Entry entry = liveEntry(key);
+            if (entry == null) {
+                return null;
+            }
+            entry.accessed = true;
+            return copy(entry);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 获取未过期的索引，已过期的索引直接移除，占用的空间随 slab 复用回收
+     */
+    private Entry liveEntry(String key) {
+        Entry entry = index.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (entry.isExpired(System.nanoTime())) {
+            index.remove(key, entry);
+            return null;
+        }
+        return entry;
+    }
+
+    /**
+     * 写入当前 slab，需持有写锁
+     */
+    private void write(String key, byte[] bytes, long expireAt) {
+        if (bytes == null || bytes.length > slabSize) {
+            index.remove(key);
+            log.warn(" >>> 缓存 [{}] 序列化后超过 slab 大小 {} 字节，不写入堆外缓存", key, slabSize);
+            return;
+        }
+        if (head < 0 || slabs[head].remaining() < bytes.length) {
+            advance(bytes.length);
+        }
+        index.put(key, slabs[head].append(key, head, bytes, expireAt));
+    }
+
+    /**
+     * 切换到下一个 slab，未分配时分配，否则复用最旧的 slab
+     *
+     * @param reserve 切换后需要写入的字节数，迁移的数据不会占用这部分空间
+     */
+    private void advance(int reserve) {
+        int next = (head + 1) % slabs.length;
+        Slab slab = slabs[next];
+        if (slab == null) {
+            slabs[next] = new Slab(ByteBuffer.allocateDirect(slabSize));
+            head = next;
+            return;
+        }
+
+        // 最近读取过的 key 获得一次迁移机会，迁移总量不超过半个 slab，并为待写入的值留出空间
+        long now = System.nanoTime();
+        int budget = Math.min(slabSize / 2, slabSize - reserve);
+        List<Entry> survivors = new ArrayList<>();
+        List<byte[]> survivorBytes = new ArrayList<>();
+        for (Entry entry : slab.entries) {
+            if (index.get(entry.key) != entry) {
+                continue;
+            }
+            if (entry.accessed && !entry.isExpired(now) && entry.length <= budget) {
+                survivors.add(entry);
+                survivorBytes.add(copy(entry));
+                budget -= entry.length;
+            } else {
+                index.remove(entry.key, entry);
+            }
+        }
+
+        slab.reset();
+        head = next;
+        for (int i = 0; i < survivors.size(); i++) {
+            Entry entry = survivors.get(i);
+            index.replace(entry.key, entry, slab.append(entry.key, next, survivorBytes.get(i), entry.expireAt));
+        }
+    }
+
+    private byte[] copy(Entry entry) {
+        byte[] bytes = new byte[entry.length];
+        ByteBuffer buffer = slabs[entry.slab].buffer.duplicate();
+        buffer.position(entry.offset);
+        buffer.get(bytes);
+        return bytes;
+    }
+
+    private static long toExpireAt(long ttlNanos) {
+        return ttlNanos > 0 ? System.nanoTime() + ttlNanos : NEVER_EXPIRE;
+    }
+
+    private static long toLong(String key, Object value) {
+        try {
+            if (value instanceof Double || value instanceof Float) {
+                // 与 Redis 一致，整数值的浮点计数器可以继续按整数累加
+                double number = ((Number) value).doubleValue();
+                if (number != Math.rint(number) || Double.isInfinite(number)) {
+                    throw new NumberFormatException();
+                }
+                return (long) number;
+            }
+            if (value instanceof Number) {
+                return ((Number) value).longValue();
+            }
+            return Long.parseLong(String.valueOf(value));
+        } catch (NumberFormatException e) {
+            throw new ArgumentException(String.format("缓存 [%s] 的值不是整数", key));
+        }
+    }
+
+    private static double toDouble(String key, Object value) {
+        try {
+            if (value instanceof Number) {
+                return ((Number) value).doubleValue();
+            }
+            return Double.parseDouble(String.valueOf(value));
+        } catch (NumberFormatException e) {
+            throw new ArgumentException(String.format("缓存 [%s] 的值不是数字", key));
+        }
+    }
+
+    /**
+     * 一段直接内存及写入其中的索引
+     */
+    private static final class Slab {
+
+        private final ByteBuffer buffer;
+
+        private final List<Entry> entries = new ArrayList<>();
+
+        private int position;
+
+        private Slab(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        private int remaining() {
+            return buffer.capacity() - position;
+        }
+
+        private Entry append(String key, int slabIndex, byte[] bytes, long expireAt) {
+            ByteBuffer target = buffer.duplicate();
+            target.position(position);
+            target.put(bytes);
+            Entry entry = new Entry(key, slabIndex, position, bytes.length, expireAt);
+            position += bytes.length;
+            entries.add(entry);
+            return entry;
+        }
+
+        private void reset() {
+            position = 0;
+            entries.clear();
+        }
+
+    }
+
+    /**
+     * 堆内索引，记录值所在的 slab 及位置
+     */
+    private static final class Entry {
+
+        private final String key;
+
+        private final int slab;
+
+        private final int offset;
+
+        private final int length;
+
+        private volatile long expireAt;
+
+        /**
+         * 最近是否被读取，slab 复用时决定是否迁移
+         */
+        private volatile boolean accessed;
+
+        private Entry(String key, int slab, int offset, int length, long expireAt) {
+            this.key = key;
+            this.slab = slab;
+            this.offset = offset;
+            this.length = length;
+            this.expireAt = expireAt;
+        }
+
+        private boolean isExpired(long now) {
+            return expireAt != NEVER_EXPIRE && now - expireAt >= 0;
+        }
+
+    }
+
+}
@@ -0,0 +1,149 @@
+/*
+ * Copyright (c) 2022. WeCoding (wecoding@yeah.net).
+ *
+ * Licensed under the GNU LESSER GENERAL PUBLIC LICENSE 3.0;
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.gnu.org/licenses/lgpl.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY StringIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package top.wecoding.core.cache.base;
+
+import com.github.benmanes.caffeine.cache.Weigher;
+import org.junit.jupiter.api.Test;
+import top.wecoding.core.exception.ArgumentException;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * @author liuyuhui
+ * @date 2022/6/30
+ * @qq 1515418211
+ */
+class BaseMemoryCacheOperatorTest {
+
+    private final TestCacheOperator operator = new TestCacheOperator();
+
+    @Test
+    void incrAndDecr() {
+        assertThat(operator.incr("a")).isEqualTo(1L);
+        assertThat(operator.incrBy("a", 5)).isEqualTo(6L);
+        assertThat(operator.decr("a")).isEqualTo(5L);
+        assertThat(operator.decrBy("a", 2)).isEqualTo(3L);
+        assertThat(operator.getCounter("a")).isEqualTo(3L);
+    }
+
+    @Test
+    void zeroAndNegativeDelta() {
+        assertThat(operator.incrBy("a", 0)).isEqualTo(0L);
+        assertThat(operator.incrBy("a", -3)).isEqualTo(-3L);
+        assertThat(operator.decrBy("a", -5)).isEqualTo(2L);
+        assertThat(operator.decrBy("a", 0)).isEqualTo(2L);
+    }
+
+    @Test
+    void overflowIsRejected() {
+        operator.incrBy("a", Long.MAX_VALUE);
+        assertThatThrownBy(() -> operator.incr("a")).isInstanceOf(ArithmeticException.class);
+        assertThat(operator.getCounter("a")).isEqualTo(Long.MAX_VALUE);
+    }
+
+    @Test
+    void counterReadsAsNumber() {
+        operator.incrBy("a", 2);
+        operator.incrByFloat("b", 1.5);
+
+        assertThat((Object) operator.get("a")).isEqualTo(2L);
+        assertThat((Object) operator.get("b")).isEqualTo(1.5D);
+        assertThat(operator.find(Arrays.asList("a", "b", "c"))).containsExactly(2L, 1.5D, null);
+    }
+
+    @Test
+    void plainValueConvertsToCounter() {
+        operator.set("a", "10");
+        assertThat(operator.incr("a")).isEqualTo(11L);
+
+        operator.set("b", "x");
+        assertThatThrownBy(() -> operator.incr("b")).isInstanceOf(ArgumentException.class);
+    }
+
+    @Test
+    void setReplacesCounter() {
+        operator.incr("a");
+        operator.set("a", "v");
+
+        assertThat((Object) operator.get("a")).isEqualTo("v");
+    }
+
+    @Test
+    void concurrentIncrIsExact() throws Exception {
+        int threads = 8;
+        int increments = 10_000;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                futures.add(executor.submit(() -> {
+                    for (int j = 0; j < increments; j++) {
+                        operator.incr("a");
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertThat(operator.getCounter("a")).isEqualTo((long) threads * increments);
+    }
+
+    @Test
+    void weigherReceivesUnwrappedValue() {
+        List<Object> weighed = new CopyOnWriteArrayList<>();
+        TestCacheOperator weighted = new TestCacheOperator(1_000, (key, value) -> {
+            weighed.add(value);
+            return 1;
+        });
+
+        weighted.set("a", "v");
+        weighted.incr("b");
+        weighted.incrByFloat("c", 0.5);
+
+        assertThat(weighed).containsExactly("v", 0L, 0D);
+    }
+
+    private static class TestCacheOperator extends BaseMemoryCacheOperator<Object> {
+
+        TestCacheOperator() {
+            super();
+        }
+
+        TestCacheOperator(long maximumWeight, Weigher<String, Object> weigher) {
+            super(maximumWeight, weigher);
+        }
+
+        @Override
+        public String getKeyPrefix() {
+            return "test:";
+        }
+
+    }
+
+}
@@ -16,8 +16,14 @@
 package top.wecoding.core.jwt;
 
 import lombok.AllArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import top.wecoding.core.jwt.cache.JwtClaimsCache;
+import top.wecoding.core.jwt.codec.JwtCodec;
+import top.wecoding.core.jwt.codec.JwtCodecRefreshListener;
 import top.wecoding.core.jwt.props.JwtProperties;
 
 /**
@@ -29,4 +35,38 @@ import top.wecoding.core.jwt.props.JwtProperties;
 @Configuration(proxyBeanMethods = false)
 @EnableConfigurationProperties(value = {JwtProperties.class})
 public class WeCodingJwtConfiguration {
+
+    /**
+     * 已验签令牌缓存，同一令牌只验签一次
+     */
+    @Bean
+    @ConditionalOnMissingBean
+    public JwtClaimsCache jwtClaimsCache(JwtProperties jwtProperties) {
+        return new JwtClaimsCache(jwtProperties.getClaimsCacheSize());
+    }
+
+    /**
+     * JWT 签名、验签，密钥和解析器只构建一次
+     */
+    @Bean
+    @ConditionalOnMissingBean
+    public JwtCodec jwtCodec(JwtProperties jwtProperties, JwtClaimsCache jwtClaimsCache) {
+        return new JwtCodec(jwtProperties, jwtClaimsCache);
+    }
+
+    /**
+     * 配置中心刷新配置后重新构建签名密钥
+     */
+    @Configuration(proxyBeanMethods = false)
+    @ConditionalOnClass(name = "org.springframework.cloud.context.environment.EnvironmentChangeEvent")
+    static class JwtCodecRefreshConfiguration {
+
+        @Bean
+        @ConditionalOnMissingBean
+        public JwtCodecRefreshListener jwtCodecRefreshListener(JwtCodec jwtCodec) {
+            return new JwtCodecRefreshListener(jwtCodec);
+        }
+
+    }
+
 }
@@ -0,0 +1,150 @@
+/*
+ * Copyright (c) 2022. WeCoding (wecoding@yeah.net).
+ *
+ * Licensed under the GNU LESSER GENERAL PUBLIC LICENSE 3.0;
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.gnu.org/licenses/lgpl.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package top.wecoding.core.jwt.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.jsonwebtoken.Claims;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * 已验签的 JWT 数据声明缓存
+ * <p>
+ * 当前请求内解析过的令牌直接从请求属性中取回，随请求结束释放，非请求线程不保存；其他请求携带同一令牌时从进程内缓存取回，
+ * 缓存在令牌的过期时间失效，每个令牌只验签、解析一次。缓存的 Claims 为共享对象，不要修改
+ *
+ * @author liuyuhui
+ * @date 2022/6/28
+ * @qq 1515418211
+ */
+public class JwtClaimsCache {
+
+    /**
+     * 请求属性中保存当前请求令牌的 key
+     */
+    private static final String REQUEST_CLAIMS_KEY = JwtClaimsCache.class.getName() + ".VERIFIED_CLAIMS";
+
+    /**
+     * 令牌未设置过期时间时的缓存时长
+     */
+    private static final long DEF_TTL_NANOS = TimeUnit.MINUTES.toNanos(30);
+
+    private final Cache<String, Claims> cache;
+
+    /**
+     * @param maximumSize 最多缓存的令牌数，小于等于 0 时不缓存
+     */
+    public JwtClaimsCache(long maximumSize) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(Math.max(0, maximumSize))
+                .expireAfter(new ClaimsExpiry())
+                .build();
+    }
+
+    /**
+     * 获取令牌的数据声明，未缓存时通过解析器验签、解析
+     *
+     * @param token  令牌
+     * @param parser 解析器，验签失败、过期时抛出异常，异常不会被缓存
+     * @return 数据声明
+     */
+    public Claims get(String token, Function<String, Claims> parser) {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        Object verified = attributes == null ? null : attributes.getAttribute(REQUEST_CLAIMS_KEY, RequestAttributes.SCOPE_REQUEST);
+        if (verified instanceof VerifiedToken && ((VerifiedToken) verified).token.equals(token)
+                && !isExpired(((VerifiedToken) verified).claims)) {
+            return ((VerifiedToken) verified).claims;
+        }
+
+        Claims claims = cache.getIfPresent(token);
+        if (claims == null || isExpired(claims)) {
+            // 已过期的令牌重新解析，由解析器抛出过期异常
+            claims = parser.apply(token);
+            cache.put(token, claims);
+        }
+        if (attributes != null) {
+            attributes.setAttribute(REQUEST_CLAIMS_KEY, new VerifiedToken(token, claims), RequestAttributes.SCOPE_REQUEST);
+        }
+        return claims;
+    }
+
+    /**
+     * 清除令牌的缓存
+     *
+     * @param token 令牌
+     */
+    public void invalidate(String token) {
+        cache.invalidate(token);
+    }
+
+    /**
+     * 清除全部缓存，签名密钥变更时调用
+     */
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    private static boolean isExpired(Claims claims) {
+        Date expiration = claims.getExpiration();
+        return expiration != null && expiration.getTime() <= System.currentTimeMillis();
+    }
+
+    private static final class VerifiedToken {
+
+        private final String token;
+
+        private final Claims claims;
+
+        private VerifiedToken(String token, Claims claims) {
+            this.token = token;
+            this.claims = claims;
+        }
+
+    }
+
+    /**
+     * 在令牌的过期时间失效
+     */
+    private static final class ClaimsExpiry implements Expiry<String, Claims> {
+
+        @Override
+        public long expireAfterCreate(String key, Claims claims, long currentTime) {
+            Date expiration = claims.getExpiration();
+            if (expiration == null) {
+                return DEF_TTL_NANOS;
+            }
+            return Math.max(0, TimeUnit.MILLISECONDS.toNanos(expiration.getTime() - System.currentTimeMillis()));
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, Claims claims, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, claims, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String key, Claims claims, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+
+    }
+
+}
@@ -0,0 +1,215 @@
+/*
+ * Copyright (c) 2022. WeCoding (wecoding@yeah.net).
+ *
+ * Licensed under the GNU LESSER GENERAL PUBLIC LICENSE 3.0;
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.gnu.org/licenses/lgpl.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package top.wecoding.core.jwt.codec;
+
+import cn.hutool.core.util.StrUtil;
+import io.jsonwebtoken.*;
+import io.jsonwebtoken.security.SignatureException;
+import lombok.extern.slf4j.Slf4j;
+import top.wecoding.core.exception.ArgumentException;
+import top.wecoding.core.jwt.cache.JwtClaimsCache;
+import top.wecoding.core.jwt.props.JwtProperties;
+
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.Key;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * JWT 签名、验签
+ * <p>
+ * 密钥与解析器根据 {@link JwtProperties} 只构建一次，配置刷新后由 {@link JwtCodecRefreshListener} 触发重新构建。
+ * 配置了 {@code keyId} 时签发的令牌带有 kid 头，验签时按 kid 选择密钥，
+ * 轮换密钥期间旧密钥放在 {@code verifyKeys} 中继续用于验签。
+ * 非对称算法（RS256、ES256 等）下使用私钥签名，验签公钥从本地 JWKS 文档加载，
+ * 其他服务只需持有 JWKS 即可在本地验签
+ *
+ * @author liuyuhui
+ * @date 2022/6/28
+ * @qq 1515418211
+ */
+@Slf4j
+public class JwtCodec {
+
+    private final JwtProperties jwtProperties;
+
+    private final JwtClaimsCache claimsCache;
+
+    private volatile KeyState state;
+
+    public JwtCodec(JwtProperties jwtProperties, JwtClaimsCache claimsCache) {
+        this.jwtProperties = jwtProperties;
+        this.claimsCache = claimsCache;
+        this.state = buildState();
+    }
+
+    /**
+     * 创建已设置签名密钥的令牌构建器
+     *
+     * @return 令牌构建器
+     */
+    public JwtBuilder builder() {
+        KeyState current = current();
+        if (current.signingKey == null) {
+            throw new ArgumentException("未配置签名私钥，当前服务只能验签");
+        }
+        JwtBuilder builder = Jwts.builder()
+                .setHeaderParam("typ", "JsonWebToken")
+                .signWith(current.signingKey, current.algorithm);
+        if (current.keyId != null) {
+            builder.setHeaderParam(JwsHeader.KEY_ID, current.keyId);
+        }
+        return builder;
+    }
+
+    /**
+     * 验签并解析令牌
+     *
+     * @param token 令牌
+     * @return 数据声明
+     */
+    public Claims parse(String token) {
+        return current().parser.parseClaimsJws(token).getBody();
+    }
+
+    /**
+     * 配置变化时重新构建密钥和解析器，并清除已验签令牌的缓存
+     */
+    public synchronized void refresh() {
+        if (state.matches(jwtProperties)) {
+            return;
+        }
+        state = buildState();
+        if (claimsCache != null) {
+            claimsCache.invalidateAll();
+        }
+        log.info(" >>> JWT 签名密钥已更新, kid: {}", state.keyId);
+    }
+
+    private KeyState current() {
+        return state;
+    }
+
+    private KeyState buildState() {
+        SignatureAlgorithm algorithm = jwtProperties.getAlgorithm();
+        String keyId = StrUtil.emptyToNull(jwtProperties.getKeyId());
+        Key signingKey;
+        Map<String, Key> verifyKeys = new HashMap<>();
+
+        if (algorithm.isHmac()) {
+            signingKey = toHmacKey(jwtProperties.getSignKey(), algorithm);
+            Map<String, String> configured = jwtProperties.getVerifyKeys();
+            if (configured != null) {
+                configured.forEach((kid, secret) -> verifyKeys.put(kid, toHmacKey(secret, algorithm)));
+            }
+            if (keyId != null) {
+                verifyKeys.put(keyId, signingKey);
+            }
+        } else {
+            // 只验签的服务不配置私钥，签名服务的公钥也需要发布在 JWKS 中
+            JwtKeyLoader.keyType(algorithm);
+            String privateKey = jwtProperties.getPrivateKey();
+            signingKey = StrUtil.isEmpty(privateKey) ? null : JwtKeyLoader.loadPrivateKey(privateKey, algorithm);
+            String jwks = jwtProperties.getJwks();
+            if (StrUtil.isNotEmpty(jwks)) {
+                verifyKeys.putAll(JwtKeyLoader.loadJwks(jwks, algorithm));
+            }
+            if (verifyKeys.isEmpty()) {
+                log.warn(" >>> JWKS 中没有可用于 {} 验签的公钥", algorithm.getValue());
+            }
+        }
+
+        return new KeyState(jwtProperties, keyId, algorithm, signingKey, Collections.unmodifiableMap(verifyKeys));
+    }
+
+    private static Key toHmacKey(String secret, SignatureAlgorithm algorithm) {
+        return new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), algorithm.getJcaName());
+    }
+
+    /**
+     * 一组不可变的密钥与解析器，配置刷新时整体替换
+     */
+    private static final class KeyState {
+
+        private final String signKey;
+
+        private final Map<String, String> configuredKeys;
+
+        private final String privateKeyLocation;
+
+        private final String jwksLocation;
+
+        private final String keyId;
+
+        private final SignatureAlgorithm algorithm;
+
+        private final Key signingKey;
+
+        private final JwtParser parser;
+
+        private KeyState(JwtProperties properties, String keyId, SignatureAlgorithm algorithm,
+                         Key signingKey, Map<String, Key> verifyKeys) {
+            this.signKey = properties.getSignKey();
+            this.configuredKeys = properties.getVerifyKeys() == null ? null : new HashMap<>(properties.getVerifyKeys());
+            this.privateKeyLocation = properties.getPrivateKey();
+            this.jwksLocation = properties.getJwks();
+            this.keyId = keyId;
+            this.algorithm = algorithm;
+            this.signingKey = signingKey;
+            this.parser = Jwts.parserBuilder()
+                    .setSigningKeyResolver(new SigningKeyResolverAdapter() {
+                        @Override
+                        public Key resolveSigningKey(JwsHeader header, Claims claims) {
+                            // 只接受配置的签名算法，避免算法混淆
+                            if (!algorithm.getValue().equals(header.getAlgorithm())) {
+                                throw new SignatureException("不支持的签名算法: " + header.getAlgorithm());
+                            }
+                            String kid = header.getKeyId();
+                            if (kid == null) {
+                                // 未带 kid 的令牌使用当前签名密钥或唯一的公钥验签
+                                if (algorithm.isHmac()) {
+                                    return signingKey;
+                                }
+                                if (verifyKeys.size() == 1) {
+                                    return verifyKeys.values().iterator().next();
+                                }
+                                throw new SignatureException("令牌缺少 kid");
+                            }
+                            Key key = verifyKeys.get(kid);
+                            if (key == null) {
+                                throw new SignatureException("未知的签名密钥: " + kid);
+                            }
+                            return key;
+                        }
+                    })
+                    .build();
+        }
+
+        private boolean matches(JwtProperties properties) {
+            return algorithm == properties.getAlgorithm()
+                    && Objects.equals(signKey, properties.getSignKey())
+                    && Objects.equals(keyId, StrUtil.emptyToNull(properties.getKeyId()))
+                    && Objects.equals(privateKeyLocation, properties.getPrivateKey())
+                    && Objects.equals(jwksLocation, properties.getJwks())
+                    && Objects.equals(configuredKeys, properties.getVerifyKeys());
+        }
+
+    }
+
+}
@@ -0,0 +1,63 @@
+/*
+ * Copyright (c) 2022. WeCoding (wecoding@yeah.net).
+ *
+ * Licensed under the GNU LESSER GENERAL PUBLIC LICENSE 3.0;
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.gnu.org/licenses/lgpl.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package top.wecoding.core.jwt.codec;
+
+import org.springframework.cloud.context.environment.EnvironmentChangeEvent;
+import org.springframework.cloud.context.scope.refresh.RefreshScopeRefreshedEvent;
+import org.springframework.context.ApplicationEvent;
+import org.springframework.context.event.SmartApplicationListener;
+import org.springframework.core.Ordered;
+import top.wecoding.core.jwt.props.JwtProperties;
+
+/**
+ * 配置刷新后重新构建 {@link JwtCodec} 的密钥与解析器
+ * <p>
+ * {@link EnvironmentChangeEvent} 与配置重新绑定的先后顺序不确定，
+ * 因此在刷新作用域完成刷新（{@link RefreshScopeRefreshedEvent}）后再检查一次，配置未变化时不会重新构建
+ *
+ * @author liuyuhui
+ * @date 2022/6/28
+ * @qq 1515418211
+ */
+public class JwtCodecRefreshListener implements SmartApplicationListener {
+
+    private final JwtCodec jwtCodec;
+
+    public JwtCodecRefreshListener(JwtCodec jwtCodec) {
+        this.jwtCodec = jwtCodec;
+    }
+
+    @Override
+    public boolean supportsEventType(Class<? extends ApplicationEvent> eventType) {
+        return EnvironmentChangeEvent.class.isAssignableFrom(eventType)
+                || RefreshScopeRefreshedEvent.class.isAssignableFrom(eventType);
+    }
+
+    @Override
+    public void onApplicationEvent(ApplicationEvent event) {
+        if (event instanceof EnvironmentChangeEvent
+                && ((EnvironmentChangeEvent) event).getKeys().stream().noneMatch(key -> key.startsWith(JwtProperties.PREFIX))) {
+            return;
+        }
+        jwtCodec.refresh();
+    }
+
+    @Override
+    public int getOrder() {
+        return Ordered.LOWEST_PRECEDENCE;
+    }
+
+}
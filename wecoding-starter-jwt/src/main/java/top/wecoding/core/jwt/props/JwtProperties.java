@@ -15,11 +15,15 @@
  */
 package top.wecoding.core.jwt.props;
 
+import io.jsonwebtoken.SignatureAlgorithm;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import top.wecoding.core.constant.TokenConstant;
 
+import java.util.HashMap;
+import java.util.Map;
+
 /**
  * @author liuyuhui
  * @date 2022/5/13
@@ -47,4 +51,34 @@ public class JwtProperties {
      */
     private String signKey = TokenConstant.SING_KEY;
 
+    /**
+     * 签名算法，默认：HS256，使用 RS256、ES256 等非对称算法时通过 privateKey 签名、jwks 验签
+     */
+    private SignatureAlgorithm algorithm = SignatureAlgorithm.HS256;
+
+    /**
+     * 非对称算法的签名私钥，PKCS#8 格式的 PEM 文件路径，支持 classpath: 与 file: 前缀，只验签的服务不需要配置
+     */
+    private String privateKey;
+
+    /**
+     * 非对称算法的验签公钥，JWKS 文档路径，支持 classpath: 与 file: 前缀
+     */
+    private String jwks;
+
+    /**
+     * 当前签名密钥的标识，设置后签发的令牌带有 kid 头
+     */
+    private String keyId;
+
+    /**
+     * 轮换中仍用于验签的旧密钥，key 为密钥标识（kid），value 为签名
+     */
+    private Map<String, String> verifyKeys = new HashMap<>();
+
+    /**
+     * 已验签令牌的缓存数量，小于等于 0 时不缓存，默认：10000
+     */
+    private long claimsCacheSize = 10_000;
+
 }
@@ -28,12 +28,12 @@ import top.wecoding.core.exception.ArgumentException;
 import top.wecoding.core.exception.Assert;
 import top.wecoding.core.exception.code.ClientErrorCodeEnum;
 import top.wecoding.core.exception.user.UnauthorizedException;
+import top.wecoding.core.jwt.cache.JwtClaimsCache;
+import top.wecoding.core.jwt.codec.JwtCodec;
 import top.wecoding.core.jwt.model.TokenInfo;
 import top.wecoding.core.jwt.props.JwtProperties;
 
-import javax.crypto.spec.SecretKeySpec;
 import java.nio.charset.StandardCharsets;
-import java.security.Key;
 import java.util.Base64;
 import java.util.Date;
 import java.util.Map;
@@ -51,6 +51,10 @@ public class JwtUtils {
 
     private static JwtProperties jwtProperties;
 
+    private static JwtClaimsCache claimsCache;
+
+    private static JwtCodec jwtCodec;
+
     public static JwtProperties getJwtProperties() {
         if (jwtProperties == null) {
             jwtProperties = SpringUtil.getBean(JwtProperties.class);
@@ -58,6 +62,20 @@ public class JwtUtils {
         return jwtProperties;
     }
 
+    public static JwtCodec getJwtCodec() {
+        if (jwtCodec == null) {
+            jwtCodec = SpringUtil.getBean(JwtCodec.class);
+        }
+        return jwtCodec;
+    }
+
+    public static JwtClaimsCache getClaimsCache() {
+        if (claimsCache == null) {
+            claimsCache = SpringUtil.getBean(JwtClaimsCache.class);
+        }
+        return claimsCache;
+    }
+
     /**
      * 签名加密
      */
@@ -112,18 +130,10 @@ public class JwtUtils {
      * @return 令牌
      */
     public static TokenInfo createJWT(Map<String, String> claims, long expire) {
-        SignatureAlgorithm signatureAlgorithm = SignatureAlgorithm.HS256;
-
         long nowMillis = System.currentTimeMillis();
         Date now = new Date(nowMillis);
 
-        // 生成签名密钥
-        byte[] apiKeySecretBytes = Base64.getDecoder().decode(getBase64Security());
-        Key signingKey = new SecretKeySpec(apiKeySecretBytes, signatureAlgorithm.getJcaName());
-
-        JwtBuilder builder = Jwts.builder().setHeaderParam("typ", "JsonWebToken")
-                .setIssuedAt(now)
-                .signWith(signingKey, signatureAlgorithm);
+        JwtBuilder builder = getJwtCodec().builder().setIssuedAt(now);
 
         // 设置JWT数据声明
         claims.forEach(builder::claim);
@@ -142,18 +152,27 @@ public class JwtUtils {
     }
 
     /**
-     * 从令牌中获取数据声明
+     * 从令牌中获取数据声明，已验签的令牌从缓存中获取
      *
      * @param token 令牌
      * @return 数据声明
      */
     public static Claims parseToken(String token) {
+        if (token == null || getJwtProperties().getClaimsCacheSize() <= 0) {
+            return doParseToken(token);
+        }
+        return getClaimsCache().get(token, JwtUtils::doParseToken);
+    }
+
+    /**
+     * 验签并解析令牌
+     *
+     * @param token 令牌
+     * @return 数据声明
+     */
+    private static Claims doParseToken(String token) {
         try {
-            return Jwts.parserBuilder()
-                    .setSigningKey(Base64.getDecoder().decode(getBase64Security()))
-                    .build()
-                    .parseClaimsJws(token)
-                    .getBody();
+            return getJwtCodec().parse(token);
         } catch (ExpiredJwtException ex) {
             throw new UnauthorizedException(ClientErrorCodeEnum.JWT_TOKEN_EXPIRED);
         } catch (SignatureException ex) {
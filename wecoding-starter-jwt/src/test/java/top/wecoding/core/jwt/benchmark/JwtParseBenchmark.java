@@ -0,0 +1,98 @@
+/*
+ * Copyright (c) 2022. WeCoding (wecoding@yeah.net).
+ *
+ * Licensed under the GNU LESSER GENERAL PUBLIC LICENSE 3.0;
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.gnu.org/licenses/lgpl.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package top.wecoding.core.jwt.benchmark;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import top.wecoding.core.jwt.cache.JwtClaimsCache;
+import top.wecoding.core.jwt.codec.JwtCodec;
+import top.wecoding.core.jwt.props.JwtProperties;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 令牌解析基准测试，对比每次重新构建密钥与解析器、复用 {@link JwtCodec}、命中已验签令牌缓存三种方式
+ * <p>
+ * 在 IDE 中运行 {@link #main} 即可，测试类名不以 Test 结尾，不会随单元测试执行
+ *
+ * @author liuyuhui
+ * @date 2022/6/30
+ * @qq 1515418211
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtParseBenchmark {
+
+    private JwtProperties jwtProperties;
+
+    private JwtCodec jwtCodec;
+
+    private JwtClaimsCache claimsCache;
+
+    private String token;
+
+    @Setup
+    public void setUp() {
+        jwtProperties = new JwtProperties();
+        jwtCodec = new JwtCodec(jwtProperties, null);
+        claimsCache = new JwtClaimsCache(1_000);
+        token = jwtCodec.builder()
+                .claim("user_id", "1")
+                .claim("account", "admin")
+                .setIssuedAt(new Date())
+                .setExpiration(new Date(System.currentTimeMillis() + TimeUnit.HOURS.toMillis(2)))
+                .compact();
+    }
+
+    /**
+     * 每次解析都重新生成密钥并构建解析器
+     */
+    @Benchmark
+    public Claims rebuildParser() {
+        String base64Security = Base64.getEncoder().encodeToString(jwtProperties.getSignKey().getBytes(StandardCharsets.UTF_8));
+        return Jwts.parserBuilder()
+                .setSigningKey(Base64.getDecoder().decode(base64Security))
+                .build()
+                .parseClaimsJws(token)
+                .getBody();
+    }
+
+    @Benchmark
+    public Claims sharedParser() {
+        return jwtCodec.parse(token);
+    }
+
+    @Benchmark
+    public Claims cachedClaims() {
+        return claimsCache.get(token, jwtCodec::parse);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(JwtParseBenchmark.class.getSimpleName()).build()).run();
+    }
+
+}
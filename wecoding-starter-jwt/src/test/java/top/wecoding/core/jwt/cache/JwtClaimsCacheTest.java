@@ -0,0 +1,105 @@
+/*
+ * Copyright (c) 2022. WeCoding (wecoding@yeah.net).
+ *
+ * Licensed under the GNU LESSER GENERAL PUBLIC LICENSE 3.0;
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.gnu.org/licenses/lgpl.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package top.wecoding.core.jwt.cache;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.Jwts;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import top.wecoding.core.context.security.SecurityContextHolder;
+
+import java.util.Collections;
+import java.util.Date;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * @author liuyuhui
+ * @date 2022/6/30
+ * @qq 1515418211
+ */
+class JwtClaimsCacheTest {
+
+    private final AtomicInteger parses = new AtomicInteger();
+
+    @AfterEach
+    void tearDown() {
+        RequestContextHolder.resetRequestAttributes();
+        SecurityContextHolder.remove();
+    }
+
+    @Test
+    void parseOncePerToken() {
+        JwtClaimsCache cache = new JwtClaimsCache(100);
+        Function<String, Claims> parser = parser(new Date(System.currentTimeMillis() + 60_000));
+
+        Claims first = cache.get("token", parser);
+        Claims second = cache.get("token", parser);
+
+        assertThat(second).isSameAs(first);
+        assertThat(parses).hasValue(1);
+    }
+
+    @Test
+    void noThreadStateOutsideRequest() {
+        JwtClaimsCache cache = new JwtClaimsCache(100);
+
+        cache.get("token", parser(null));
+
+        assertThat(SecurityContextHolder.getLocalMap()).isEmpty();
+    }
+
+    @Test
+    void memoizedInRequestAttributes() {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+        // 不缓存时仍可在同一请求内复用
+        JwtClaimsCache cache = new JwtClaimsCache(0);
+        Function<String, Claims> parser = parser(null);
+
+        cache.get("token", parser);
+        cache.get("token", parser);
+
+        assertThat(parses).hasValue(1);
+        assertThat(Collections.list(request.getAttributeNames())).hasSize(1);
+        assertThat(SecurityContextHolder.getLocalMap()).isEmpty();
+    }
+
+    @Test
+    void expiredClaimsAreParsedAgain() {
+        JwtClaimsCache cache = new JwtClaimsCache(100);
+        cache.get("token", parser(new Date(System.currentTimeMillis() - 1_000)));
+
+        assertThatThrownBy(() -> cache.get("token", token -> {
+            throw new ExpiredJwtException(null, null, "expired");
+        })).isInstanceOf(ExpiredJwtException.class);
+    }
+
+    private Function<String, Claims> parser(Date expiration) {
+        return token -> {
+            parses.incrementAndGet();
+            return Jwts.claims().setSubject(token).setExpiration(expiration);
+        };
+    }
+
+}
@@ -15,12 +15,16 @@
  */
 package top.wecoding.core.cache;
 
+import io.micrometer.core.instrument.binder.MeterBinder;
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.boot.autoconfigure.AutoConfigureBefore;
 import org.springframework.boot.autoconfigure.cache.CacheProperties;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.autoconfigure.data.redis.RedisAutoConfiguration;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.cache.CacheManager;
@@ -31,16 +35,35 @@ import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Primary;
 import org.springframework.data.redis.cache.RedisCacheConfiguration;
 import org.springframework.data.redis.cache.RedisCacheManager;
+import org.springframework.data.redis.cache.RedisCacheWriter;
+import org.springframework.data.redis.connection.ReactiveRedisConnectionFactory;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
 import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.data.redis.serializer.RedisSerializationContext;
 import org.springframework.data.redis.serializer.RedisSerializer;
+import reactor.core.publisher.Flux;
+import top.wecoding.core.cache.base.TtlPolicy;
 import top.wecoding.core.cache.factory.CreateRedisTemplateFactory;
+import top.wecoding.core.cache.limiter.RedisRateLimiter;
+import top.wecoding.core.cache.lock.RedisLockFactory;
+import top.wecoding.core.cache.manager.TtlPolicyRedisCacheWriter;
+import top.wecoding.core.cache.manager.TwoLevelCacheManager;
+import top.wecoding.core.cache.metrics.RedisCompressionMetrics;
+import top.wecoding.core.cache.props.WeCodingCacheProperties;
+import top.wecoding.core.cache.serializer.CompressingRedisSerializer;
+import top.wecoding.core.cache.service.ReactiveRedisService;
 import top.wecoding.core.cache.service.RedisService;
+import top.wecoding.core.cache.stream.RedisEventPublisher;
+import top.wecoding.core.cache.stream.RedisEventSubscriber;
+import top.wecoding.core.cache.support.CacheRefresher;
+import top.wecoding.core.cache.support.DefaultTtlPolicy;
 import top.wecoding.core.constant.StrPool;
 
 import java.time.Duration;
+import java.util.concurrent.Executor;
 
 /**
  * RedisTemplate 配置
@@ -54,25 +77,96 @@ import java.time.Duration;
 @Configuration(proxyBeanMethods = false)
 @ConditionalOnClass(RedisConnectionFactory.class)
 @AutoConfigureBefore(RedisAutoConfiguration.class)
-@EnableConfigurationProperties(CacheProperties.class)
+@EnableConfigurationProperties({CacheProperties.class, WeCodingCacheProperties.class})
 public class WeCodingRedisAutoConfiguration extends CachingConfigurerSupport {
 
     private final CacheProperties cacheProperties;
 
+    private final WeCodingCacheProperties weCodingCacheProperties;
+
+    @Bean
+    @ConditionalOnMissingBean
+    public RedisService redisService(RedisTemplate<String, Object> redisTemplate, StringRedisTemplate stringRedisTemplate,
+                                     ObjectProvider<RedisLockFactory> lockFactoryProvider) {
+        RedisService redisService = new RedisService(redisTemplate, stringRedisTemplate);
+        redisService.setLockFactoryProvider(lockFactoryProvider);
+        redisService.setPipelineBatchSize(weCodingCacheProperties.getPipelineBatchSize());
+        redisService.setScanCount(weCodingCacheProperties.getScanCount());
+        return redisService;
+    }
+
+    /**
+     * 分布式锁，同时用于 RedisService 集群内合并加载
+     */
+    @Bean
+    @ConditionalOnMissingBean
+    public RedisLockFactory redisLockFactory(RedisService redisService, RedisMessageListenerContainer redisMessageListenerContainer) {
+        return new RedisLockFactory(redisService, redisMessageListenerContainer);
+    }
+
+    @Bean
+    @ConditionalOnMissingBean
+    public RedisRateLimiter redisRateLimiter(RedisService redisService) {
+        return new RedisRateLimiter(redisService);
+    }
+
+    @Bean
+    @ConditionalOnMissingBean
+    @ConditionalOnProperty(prefix = WeCodingCacheProperties.PREFIX, name = "stream.enabled", havingValue = "true")
+    public RedisEventPublisher redisEventPublisher(RedisService redisService) {
+        return new RedisEventPublisher(redisService, weCodingCacheProperties.getStream());
+    }
+
+    @Bean
+    @ConditionalOnMissingBean
+    @ConditionalOnProperty(prefix = WeCodingCacheProperties.PREFIX, name = "stream.enabled", havingValue = "true")
+    public RedisEventSubscriber redisEventSubscriber(RedisService redisService) {
+        return new RedisEventSubscriber(redisService, weCodingCacheProperties.getStream());
+    }
+
+    /**
+     * 失效时长策略，按 key 前缀覆盖时长并增加随机抖动
+     */
+    @Bean
+    @ConditionalOnMissingBean
+    public TtlPolicy ttlPolicy() {
+        WeCodingCacheProperties.Ttl ttl = weCodingCacheProperties.getTtl();
+        return new DefaultTtlPolicy(ttl.getJitter(), ttl.getRules());
+    }
+
+    /**
+     * 缓存提前刷新，优先使用 threadPoolTaskExecutor 线程池；
+     * 默认线程池队列满时拒绝刷新任务，不阻塞读取缓存的线程
+     */
     @Bean
     @ConditionalOnMissingBean
-    public RedisService redisService(RedisTemplate<String, Object> redisTemplate, StringRedisTemplate stringRedisTemplate) {
-        return new RedisService(redisTemplate, stringRedisTemplate);
+    public CacheRefresher cacheRefresher(RedisService redisService,
+                                         @Qualifier("threadPoolTaskExecutor") ObjectProvider<Executor> executorProvider) {
+        return new CacheRefresher(redisService, executorProvider.getIfAvailable());
     }
 
+    /**
+     * Value 序列化，可自定义 RedisSerializer Bean 替换
+     */
     @Bean
+    @ConditionalOnMissingBean(name = "redisValueSerializer")
     public RedisSerializer<Object> redisValueSerializer() {
-        return CreateRedisTemplateFactory.redisValueSerializer();
+        WeCodingCacheProperties.Serializer serializer = weCodingCacheProperties.getSerializer();
+        log.info(" >>> Redis 序列化方式: {}.", serializer.getType());
+        RedisSerializer<Object> valueSerializer = CreateRedisTemplateFactory.redisValueSerializer(serializer.getType(), serializer.getRegistrations());
+
+        WeCodingCacheProperties.Compression compression = weCodingCacheProperties.getCompression();
+        if (compression.isEnabled()) {
+            log.info(" >>> Redis 开启 LZ4 压缩，阈值: {} 字节.", compression.getThreshold());
+            return new CompressingRedisSerializer(valueSerializer, compression.getThreshold());
+        }
+        return valueSerializer;
     }
 
     @Bean("redisTemplate")
-    public RedisTemplate<String, Object> redisTemplate(RedisConnectionFactory connectionFactory) {
-        return CreateRedisTemplateFactory.createObject(connectionFactory);
+    public RedisTemplate<String, Object> redisTemplate(RedisConnectionFactory connectionFactory,
+                                                       RedisSerializer<Object> redisValueSerializer) {
+        return CreateRedisTemplateFactory.createObject(connectionFactory, redisValueSerializer);
     }
 
     @Bean
@@ -81,16 +175,38 @@ public class WeCodingRedisAutoConfiguration extends CachingConfigurerSupport {
         return CreateRedisTemplateFactory.createString(connectionFactory);
     }
 
+    @Bean
+    @ConditionalOnMissingBean
+    public RedisMessageListenerContainer redisMessageListenerContainer(RedisConnectionFactory connectionFactory) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        return container;
+    }
+
     @Bean
     @Primary
     public CacheManager cacheManager(RedisConnectionFactory connectionFactory,
-                                     RedisSerializer<Object> redisValueSerializer) {
-        log.info(" >>> 启动 Redis 缓存.");
+                                     RedisSerializer<Object> redisValueSerializer,
+                                     RedisTemplate<String, Object> redisTemplate,
+                                     RedisMessageListenerContainer redisMessageListenerContainer,
+                                     TtlPolicy ttlPolicy) {
+        RedisCacheWriter cacheWriter = new TtlPolicyRedisCacheWriter(RedisCacheWriter.nonLockingRedisCacheWriter(connectionFactory), ttlPolicy);
+        WeCodingCacheProperties.Local local = weCodingCacheProperties.getLocal();
+        if (!local.isEnabled()) {
+            log.info(" >>> 启动 Redis 缓存.");
+            return RedisCacheManager.builder(cacheWriter)
+                    .cacheDefaults(createRedisCacheConfiguration(redisValueSerializer))
+                    .transactionAware()
+                    .build();
+        }
 
-        return RedisCacheManager.builder(connectionFactory)
+        log.info(" >>> 启动本地缓存 + Redis 二级缓存.");
+        RedisCacheManager redisCacheManager = RedisCacheManager.builder(cacheWriter)
                 .cacheDefaults(createRedisCacheConfiguration(redisValueSerializer))
-                .transactionAware()
                 .build();
+        TwoLevelCacheManager cacheManager = new TwoLevelCacheManager(redisCacheManager, redisTemplate, redisMessageListenerContainer, local);
+        cacheManager.setTransactionAware(true);
+        return cacheManager;
     }
 
     private RedisCacheConfiguration createRedisCacheConfiguration(RedisSerializer<Object> redisValueSerializer) {
@@ -100,7 +216,7 @@ public class WeCodingRedisAutoConfiguration extends CachingConfigurerSupport {
                 .serializeValuesWith(RedisSerializationContext.SerializationPair.fromSerializer(redisValueSerializer));
 
         if (redis.getTimeToLive() != null) {
-            configuration.entryTtl(redis.getTimeToLive());
+            configuration = configuration.entryTtl(redis.getTimeToLive());
         }
         if (!redis.isCacheNullValues()) {
             configuration = configuration.disableCachingNullValues();
@@ -117,4 +233,41 @@ public class WeCodingRedisAutoConfiguration extends CachingConfigurerSupport {
         return configuration;
     }
 
+    @Configuration(proxyBeanMethods = false)
+    @ConditionalOnClass({ReactiveRedisConnectionFactory.class, Flux.class})
+    static class ReactiveRedisConfiguration {
+
+        /**
+         * 与 redisTemplate 使用相同的序列化方式，替换 Spring Boot 默认的 reactiveRedisTemplate
+         */
+        @Bean
+        @ConditionalOnMissingBean(name = "reactiveRedisTemplate")
+        public ReactiveRedisTemplate<String, Object> reactiveRedisTemplate(ReactiveRedisConnectionFactory connectionFactory,
+                                                                           @Qualifier("redisValueSerializer") RedisSerializer<Object> redisValueSerializer) {
+            return CreateRedisTemplateFactory.createReactiveObject(connectionFactory, redisValueSerializer);
+        }
+
+        @Bean
+        @ConditionalOnMissingBean
+        public ReactiveRedisService reactiveRedisService(ReactiveRedisTemplate<String, Object> reactiveRedisTemplate,
+                                                         WeCodingCacheProperties weCodingCacheProperties) {
+            ReactiveRedisService reactiveRedisService = new ReactiveRedisService(reactiveRedisTemplate);
+            reactiveRedisService.setScanCount(weCodingCacheProperties.getScanCount());
+            return reactiveRedisService;
+        }
+
+    }
+
+    @Configuration(proxyBeanMethods = false)
+    @ConditionalOnClass(MeterBinder.class)
+    static class RedisMetricsConfiguration {
+
+        @Bean
+        @ConditionalOnProperty(prefix = WeCodingCacheProperties.PREFIX, name = "compression.enabled", havingValue = "true")
+        public RedisCompressionMetrics redisCompressionMetrics(@Qualifier("redisValueSerializer") RedisSerializer<Object> redisValueSerializer) {
+            return new RedisCompressionMetrics(redisValueSerializer);
+        }
+
+    }
+
 }
@@ -0,0 +1,122 @@
+/*
+ * Copyright (c) 2022. WeCoding (wecoding@yeah.net).
+ *
+ * Licensed under the GNU LESSER GENERAL PUBLIC LICENSE 3.0;
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.gnu.org/licenses/lgpl.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package top.wecoding.core.cache.base;
+
+import reactor.core.publisher.Mono;
+import top.wecoding.core.cache.service.ReactiveRedisService;
+
+import javax.annotation.Resource;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+/**
+ * 基于 {@link ReactiveRedisService} 的异步缓存，与 {@link BaseRedisCacheOperator} 读写同一份数据
+ *
+ * @author liuyuhui
+ * @date 2022/6/21
+ * @qq 1515418211
+ */
+public abstract class BaseReactiveRedisCacheOperator<T> implements AsyncCacheOperator<T> {
+
+    @Resource
+    private ReactiveRedisService reactiveRedisService;
+
+    @Override
+    public CompletableFuture<Void> set(String key, T object) {
+        return reactiveRedisService.set(getKey(key), object).then().toFuture();
+    }
+
+    @Override
+    public CompletableFuture<Void> set(String key, T object, long timeout) {
+        return reactiveRedisService.set(getKey(key), object, timeout).then().toFuture();
+    }
+
+    @Override
+    public CompletableFuture<T> get(String key) {
+        return reactiveRedisService.<T>get(getKey(key)).toFuture();
+    }
+
+    @Override
+    public CompletableFuture<T> get(String key, Supplier<CompletableFuture<T>> loader) {
+        return reactiveRedisService.get(getKey(key), () -> Mono.fromFuture(loader), getLoadTimeout()).toFuture();
+    }
+
+    @Override
+    public CompletableFuture<List<T>> find(Collection<String> keys) {
+        return reactiveRedisService.<T>mGet(getKeys(keys)).toFuture();
+    }
+
+    @Override
+    public CompletableFuture<Long> del(String... keys) {
+        return reactiveRedisService.del(getKeys(keys)).toFuture();
+    }
+
+    @Override
+    public CompletableFuture<Long> del(Collection<String> keys) {
+        return reactiveRedisService.del(getKeys(keys)).toFuture();
+    }
+
+    @Override
+    public CompletableFuture<Boolean> exists(String key) {
+        return reactiveRedisService.hasKey(getKey(key)).toFuture();
+    }
+
+    @Override
+    public CompletableFuture<Long> getCounter(String key) {
+        return reactiveRedisService.getCounter(getKey(key)).toFuture();
+    }
+
+    @Override
+    public CompletableFuture<Long> incr(String key) {
+        return reactiveRedisService.incr(getKey(key)).toFuture();
+    }
+
+    @Override
+    public CompletableFuture<Long> incrBy(String key, long delta) {
+        return reactiveRedisService.incrBy(getKey(key), delta).toFuture();
+    }
+
+    @Override
+    public CompletableFuture<Double> incrByFloat(String key, double delta) {
+        return reactiveRedisService.incrByFloat(getKey(key), delta).toFuture();
+    }
+
+    @Override
+    public CompletableFuture<Long> decr(String key) {
+        return reactiveRedisService.decr(getKey(key)).toFuture();
+    }
+
+    @Override
+    public CompletableFuture<Long> decrBy(String key, long delta) {
+        return reactiveRedisService.decrBy(getKey(key), delta).toFuture();
+    }
+
+    /**
+     * {@link #get(String, Supplier)} 加载后的缓存时间/秒，小于等于 0 时永不过期
+     *
+     * @return 缓存时间
+     */
+    protected long getLoadTimeout() {
+        return 0;
+    }
+
+    protected ReactiveRedisService getReactiveRedisService() {
+        return reactiveRedisService;
+    }
+
+}
@@ -16,12 +16,22 @@
 package top.wecoding.core.cache.base;
 
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.redis.core.RedisCallback;
+import top.wecoding.core.cache.bloom.BloomFilter;
+import top.wecoding.core.cache.model.CacheLoadOptions;
 import top.wecoding.core.cache.service.RedisService;
+import top.wecoding.core.cache.support.CacheRefresher;
 
 import javax.annotation.Resource;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.function.Supplier;
 
 /**
@@ -35,29 +45,101 @@ public abstract class BaseRedisCacheOperator<T> implements CacheOperator<T> {
     @Resource
     private RedisService redisService;
 
+    @Autowired(required = false)
+    private CacheRefresher cacheRefresher;
+
+    @Autowired(required = false)
+    private TtlPolicy ttlPolicy;
+
     @Override
     public void set(String key, T object) {
-        redisService.set(getKey(key), object);
+        // 与 set(key, object, 0) 一致，同样适用按前缀配置的失效时长
+        doSet(key, object, 0);
     }
 
     @Override
     public void set(String key, T object, long timeout) {
-        redisService.set(getKey(key), object, timeout);
+        doSet(key, object, timeout);
+    }
+
+    private void doSet(String key, T object, long timeout) {
+        String cacheKey = getKey(key);
+        redisService.set(cacheKey, object, getTtlPolicy().apply(cacheKey, timeout));
+        addToBloomFilter(key);
+    }
+
+    @Override
+    public void setAll(Map<String, T> map, Duration timeout) {
+        Map<String, T> prefixed = new LinkedHashMap<>(map.size());
+        map.forEach((key, object) -> prefixed.put(getKey(key), object));
+        TtlPolicy policy = getTtlPolicy();
+        redisService.setAll(prefixed, cacheKey -> policy.apply(cacheKey, timeout));
+        BloomFilter bloomFilter = getBloomFilter();
+        if (bloomFilter != null) {
+            bloomFilter.putAll(map.keySet());
+        }
+    }
+
+    @Override
+    public void expireAll(Collection<String> keys, Duration timeout) {
+        redisService.expireAll(getKeys(keys), timeout);
+    }
+
+    @Override
+    public List<T> getAndTouchAll(Collection<String> keys, Duration timeout) {
+        return redisService.getAndTouchAll(getKeys(keys), timeout);
     }
 
     @Override
     public T get(String key) {
+        if (isAbsent(key)) {
+            return null;
+        }
+        // 注册了提前刷新的缓存，读取时同时检查剩余时间
+        if (cacheRefresher != null && cacheRefresher.isRegistered(getKeyPrefix())) {
+            return cacheRefresher.get(getKeyPrefix(), key);
+        }
         return redisService.get(getKey(key));
     }
 
     @Override
     public T get(String key, Supplier<T> loader) {
-        return redisService.get(getKey(key), loader);
+        if (isAbsent(key)) {
+            return null;
+        }
+        String cacheKey = getKey(key);
+        CacheLoadOptions options = getLoadOptions();
+        TtlPolicy policy = getTtlPolicy();
+        if (policy != TtlPolicy.NONE) {
+            options = options.toBuilder().timeout(policy.apply(cacheKey, options.getTimeout())).build();
+        }
+        return redisService.get(cacheKey, loader, options);
     }
 
     @Override
     public List<T> find(Collection<String> keys) {
-        return redisService.mGet(getKeys(keys));
+        BloomFilter bloomFilter = getBloomFilter();
+        if (bloomFilter == null) {
+            return redisService.mGet(getKeys(keys));
+        }
+        // 一定不存在的 key 不再查询 Redis
+        List<String> candidates = new ArrayList<>(keys.size());
+        boolean[] present = new boolean[keys.size()];
+        int i = 0;
+        for (String key : keys) {
+            if (bloomFilter.mightContain(key)) {
+                candidates.add(key);
+                present[i] = true;
+            }
+            i++;
+        }
+        Iterator<T> values = candidates.isEmpty()
+                ? Collections.emptyIterator() : redisService.<T>mGet(getKeys(candidates)).iterator();
+        List<T> result = new ArrayList<>(keys.size());
+        for (boolean candidate : present) {
+            result.add(candidate && values.hasNext() ? values.next() : null);
+        }
+        return result;
     }
 
     @Override
@@ -113,4 +195,48 @@ public abstract class BaseRedisCacheOperator<T> implements CacheOperator<T> {
         return redisService.decrBy(getKey(key), delta);
     }
 
+    /**
+     * 缓存加载选项，子类可开启集群内合并加载、提前刷新等
+     *
+     * @return 加载选项
+     */
+    protected CacheLoadOptions getLoadOptions() {
+        return CacheLoadOptions.DEFAULT;
+    }
+
+    /**
+     * 布隆过滤器，返回非 null 时读取前先判断 key 是否一定不存在，写入时同步添加 key。
+     * 数据源中已有的 key 需要在启动时通过 {@link BloomFilter#putAll(Collection)} 预热
+     *
+     * @return 布隆过滤器，key 不含前缀
+     */
+    protected BloomFilter getBloomFilter() {
+        return null;
+    }
+
+    /**
+     * 失效时长策略，默认使用容器中的 {@link TtlPolicy}，子类可按需覆盖
+     *
+     * @return 失效时长策略
+     */
+    protected TtlPolicy getTtlPolicy() {
+        return ttlPolicy == null ? TtlPolicy.NONE : ttlPolicy;
+    }
+
+    private boolean isAbsent(String key) {
+        BloomFilter bloomFilter = getBloomFilter();
+        return bloomFilter != null && !bloomFilter.mightContain(key);
+    }
+
+    private void addToBloomFilter(String key) {
+        BloomFilter bloomFilter = getBloomFilter();
+        if (bloomFilter != null) {
+            bloomFilter.put(key);
+        }
+    }
+
+    protected RedisService getRedisService() {
+        return redisService;
+    }
+
 }
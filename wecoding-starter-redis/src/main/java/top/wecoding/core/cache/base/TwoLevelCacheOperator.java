@@ -0,0 +1,309 @@
+/*
+ * Copyright (c) 2022. WeCoding (wecoding@yeah.net).
+ *
+ * Licensed under the GNU LESSER GENERAL PUBLIC LICENSE 3.0;
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.gnu.org/licenses/lgpl.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package top.wecoding.core.cache.base;
+
+import cn.hutool.core.collection.CollUtil;
+import cn.hutool.core.util.IdUtil;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import top.wecoding.core.cache.model.CacheInvalidateMessage;
+import top.wecoding.core.cache.support.LocalCache;
+
+import javax.annotation.Resource;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * 二级缓存，本地 Caffeine 缓存(L1) + Redis(L2)
+ * <p>
+ * 写入、删除时通过 Redis 发布订阅通知其他节点清除本地缓存，
+ * 本地缓存的失效时长不超过 {@code localTtl}，通知丢失时最多读到 {@code localTtl} 内的旧值
+ *
+ * @author liuyuhui
+ * @date 2022/6/18
+ * @qq 1515418211
+ */
+@Slf4j
+@SuppressWarnings("unchecked")
+public abstract class TwoLevelCacheOperator<T> extends BaseRedisCacheOperator<T> implements MessageListener, InitializingBean {
+
+    /**
+     * 本地缓存失效通知频道
+     */
+    public static final String INVALIDATE_CHANNEL = "wecoding:cache:invalidate";
+
+    /**
+     * 当前节点标识，忽略自己发出的通知
+     */
+    private static final String NODE_ID = IdUtil.fastSimpleUUID();
+
+    /**
+     * 默认本地缓存最大数量
+     */
+    private static final long DEF_MAX_SIZE = 1_000;
+
+    /**
+     * 默认本地缓存失效时长
+     */
+    private static final Duration DEF_LOCAL_TTL = Duration.ofMinutes(1);
+
+    private final LocalCache<LocalValue> localCache;
+
+    private final long localTtlNanos;
+
+    @Resource
+    private RedisMessageListenerContainer redisMessageListenerContainer;
+
+    protected TwoLevelCacheOperator() {
+        this(DEF_MAX_SIZE, DEF_LOCAL_TTL);
+    }
+
+    /**
+     * @param maximumSize 本地缓存最大数量
+     * @param localTtl    本地缓存失效时长
+     */
+    protected TwoLevelCacheOperator(long maximumSize, Duration localTtl) {
+        this.localTtlNanos = localTtl.toNanos();
+        Cache<String, LocalValue> cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfter(new LocalValueExpiry())
+                .build();
+        this.localCache = new LocalCache<>(cache);
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        redisMessageListenerContainer.addMessageListener(this, new ChannelTopic(INVALIDATE_CHANNEL));
+    }
+
+    @Override
+    public void set(String key, T object) {
+        super.set(key, object);
+        localCache.put(key, new LocalValue(object, localTtlNanos));
+        publish(Collections.singletonList(key));
+    }
+
+    @Override
+    public void set(String key, T object, long timeout) {
+        super.set(key, object, timeout);
+        long ttlNanos = timeout > 0 ? Math.min(localTtlNanos, TimeUnit.SECONDS.toNanos(timeout)) : localTtlNanos;
+        localCache.put(key, new LocalValue(object, ttlNanos));
+        publish(Collections.singletonList(key));
+    }
+
+    @Override
+    public void setAll(Map<String, T> map, Duration timeout) {
+        super.setAll(map, timeout);
+        long ttlNanos = timeout != null && timeout.toNanos() > 0 ? Math.min(localTtlNanos, timeout.toNanos()) : localTtlNanos;
+        map.forEach((key, object) -> {
+            if (object != null) {
+                localCache.put(key, new LocalValue(object, ttlNanos));
+            }
+        });
+        publish(new ArrayList<>(map.keySet()));
+    }
+
+    @Override
+    public T get(String key) {
+        // 加载在 compute 之外完成，期间收到失效通知时不回填本地缓存
+        LocalValue value = localCache.get(key, () -> toLocalValue(super.get(key)));
+        return value == null ? null : (T) value.value;
+    }
+
+    @Override
+    public T get(String key, Supplier<T> loader) {
+        LocalValue value = localCache.get(key, () -> toLocalValue(super.get(key, loader)));
+        return value == null ? null : (T) value.value;
+    }
+
+    @Override
+    public List<T> find(Collection<String> keys) {
+        Map<String, LocalValue> present = localCache.getAllPresent(keys);
+        if (present.size() == keys.size()) {
+            List<T> result = new ArrayList<>(keys.size());
+            keys.forEach(key -> result.add((T) present.get(key).value));
+            return result;
+        }
+
+        List<String> missKeys = new ArrayList<>();
+        List<Long> generations = new ArrayList<>();
+        for (String key : keys) {
+            if (!present.containsKey(key)) {
+                missKeys.add(key);
+                generations.add(localCache.generation(key));
+            }
+        }
+        List<T> loaded = super.find(missKeys);
+        Map<String, T> loadedMap = new HashMap<>(missKeys.size());
+        for (int i = 0; i < missKeys.size() && i < loaded.size(); i++) {
+            T value = loaded.get(i);
+            if (value != null) {
+                loadedMap.put(missKeys.get(i), value);
+                localCache.putIfCurrent(missKeys.get(i), toLocalValue(value), generations.get(i));
+            }
+        }
+
+        List<T> result = new ArrayList<>(keys.size());
+        for (String key : keys) {
+            LocalValue value = present.get(key);
+            result.add(value != null ? (T) value.value : loadedMap.get(key));
+        }
+        return result;
+    }
+
+    @Override
+    public Long del(String... keys) {
+        return del(Arrays.asList(keys));
+    }
+
+    @Override
+    public Long del(Collection<String> keys) {
+        Long count = super.del(keys);
+        localCache.invalidateAll(keys);
+        publish(new ArrayList<>(keys));
+        return count;
+    }
+
+    @Override
+    public void flushDb() {
+        super.flushDb();
+        localCache.invalidateAll();
+        publish(Collections.emptyList());
+    }
+
+    @Override
+    public Boolean exists(String key) {
+        if (localCache.containsKey(key)) {
+            return true;
+        }
+        return super.exists(key);
+    }
+
+    @Override
+    public Long incr(String key) {
+        return invalidateAfter(key, super.incr(key));
+    }
+
+    @Override
+    public Long incrBy(String key, long delta) {
+        return invalidateAfter(key, super.incrBy(key, delta));
+    }
+
+    @Override
+    public Double incrByFloat(String key, double delta) {
+        return invalidateAfter(key, super.incrByFloat(key, delta));
+    }
+
+    @Override
+    public Long decr(String key) {
+        return invalidateAfter(key, super.decr(key));
+    }
+
+    @Override
+    public Long decrBy(String key, long delta) {
+        return invalidateAfter(key, super.decrBy(key, delta));
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        Object body = getRedisService().getRedisTemplate().getValueSerializer().deserialize(message.getBody());
+        if (!(body instanceof CacheInvalidateMessage)) {
+            return;
+        }
+        CacheInvalidateMessage invalidateMessage = (CacheInvalidateMessage) body;
+        if (NODE_ID.equals(invalidateMessage.getNodeId()) || !getKeyPrefix().equals(invalidateMessage.getKeyPrefix())) {
+            return;
+        }
+        invalidateLocal(invalidateMessage.getKeys());
+    }
+
+    /**
+     * 清除本地缓存
+     *
+     * @param keys 键，为空时清除全部
+     */
+    public void invalidateLocal(Collection<String> keys) {
+        if (CollUtil.isEmpty(keys)) {
+            localCache.invalidateAll();
+        } else {
+            localCache.invalidateAll(keys);
+        }
+    }
+
+    private <R> R invalidateAfter(String key, R result) {
+        localCache.invalidate(key);
+        publish(Collections.singletonList(key));
+        return result;
+    }
+
+    private void publish(List<String> keys) {
+        try {
+            getRedisService().getRedisTemplate().convertAndSend(INVALIDATE_CHANNEL,
+                    new CacheInvalidateMessage(NODE_ID, getKeyPrefix(), keys));
+        } catch (Exception e) {
+            log.error(" >>> 发送本地缓存失效通知失败: {}", e.getMessage(), e);
+        }
+    }
+
+    private LocalValue toLocalValue(T value) {
+        return value == null ? null : new LocalValue(value, localTtlNanos);
+    }
+
+    /**
+     * 本地缓存值及其失效时长
+     */
+    private static final class LocalValue {
+
+        private final Object value;
+
+        private final long ttlNanos;
+
+        private LocalValue(Object value, long ttlNanos) {
+            this.value = value;
+            this.ttlNanos = ttlNanos;
+        }
+
+    }
+
+    private static final class LocalValueExpiry implements Expiry<String, LocalValue> {
+
+        @Override
+        public long expireAfterCreate(String key, LocalValue value, long currentTime) {
+            return value.ttlNanos;
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, LocalValue value, long currentTime, long currentDuration) {
+            return value.ttlNanos;
+        }
+
+        @Override
+        public long expireAfterRead(String key, LocalValue value, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+
+    }
+
+}
@@ -0,0 +1,72 @@
+/*
+ * Copyright (c) 2022. WeCoding (wecoding@yeah.net).
+ *
+ * Licensed under the GNU LESSER GENERAL PUBLIC LICENSE 3.0;
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.gnu.org/licenses/lgpl.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package top.wecoding.core.cache.bloom;
+
+import cn.hutool.core.lang.hash.MurmurHash;
+import top.wecoding.core.exception.Assert;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 按预计数量及误判率计算位数组大小与哈希次数，通过两个 64 位哈希组合出各个位置
+ *
+ * @author liuyuhui
+ * @date 2022/6/27
+ * @qq 1515418211
+ */
+public abstract class AbstractBloomFilter implements BloomFilter {
+
+    private final long numBits;
+
+    private final int numHashes;
+
+    /**
+     * @param expectedInsertions 预计添加的 key 数量
+     * @param fpp                误判率，取值 (0, 1)
+     */
+    protected AbstractBloomFilter(long expectedInsertions, double fpp) {
+        Assert.isTrue(expectedInsertions > 0, "预计数量必须大于0");
+        Assert.isTrue(fpp > 0 && fpp < 1, "误判率必须在 (0, 1) 之间");
+        this.numBits = Math.max(64, (long) Math.ceil(-expectedInsertions * Math.log(fpp) / (Math.log(2) * Math.log(2))));
+        this.numHashes = Math.max(1, (int) Math.round((double) numBits / expectedInsertions * Math.log(2)));
+    }
+
+    /**
+     * 计算 key 对应的位置
+     *
+     * @param key 键
+     * @return 位置
+     */
+    protected long[] offsets(String key) {
+        long[] hash = MurmurHash.hash128(key.getBytes(StandardCharsets.UTF_8));
+        long[] offsets = new long[numHashes];
+        long combined = hash[0];
+        for (int i = 0; i < numHashes; i++) {
+            offsets[i] = (combined & Long.MAX_VALUE) % numBits;
+            combined += hash[1];
+        }
+        return offsets;
+    }
+
+    public long getNumBits() {
+        return numBits;
+    }
+
+    public int getNumHashes() {
+        return numHashes;
+    }
+
+}
@@ -0,0 +1,53 @@
+/*
+ * Copyright (c) 2022. WeCoding (wecoding@yeah.net).
+ *
+ * Licensed under the GNU LESSER GENERAL PUBLIC LICENSE 3.0;
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.gnu.org/licenses/lgpl.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package top.wecoding.core.cache.bloom;
+
+import java.util.Collection;
+
+/**
+ * 布隆过滤器，判断 key 是否一定不存在，用于在访问缓存及数据源前拦截不存在的 key
+ *
+ * @author liuyuhui
+ * @date 2022/6/27
+ * @qq 1515418211
+ */
+public interface BloomFilter {
+
+    /**
+     * 判断 key 是否可能存在
+     *
+     * @param key 键
+     * @return false 表示一定不存在，true 表示可能存在
+     */
+    boolean mightContain(String key);
+
+    /**
+     * 添加 key
+     *
+     * @param key 键
+     */
+    void put(String key);
+
+    /**
+     * 批量添加 key，用于启动时预热
+     *
+     * @param keys 键
+     */
+    default void putAll(Collection<String> keys) {
+        keys.forEach(this::put);
+    }
+
+}
@@ -0,0 +1,62 @@
+/*
+ * Copyright (c) 2022. WeCoding (wecoding@yeah.net).
+ *
+ * Licensed under the GNU LESSER GENERAL PUBLIC LICENSE 3.0;
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.gnu.org/licenses/lgpl.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package top.wecoding.core.cache.bloom;
+
+import top.wecoding.core.exception.Assert;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 本地布隆过滤器，位数组保存在当前进程内，无锁并发添加
+ *
+ * @author liuyuhui
+ * @date 2022/6/27
+ * @qq 1515418211
+ */
+public class LocalBloomFilter extends AbstractBloomFilter {
+
+    private final AtomicLongArray bits;
+
+    public LocalBloomFilter(long expectedInsertions, double fpp) {
+        super(expectedInsertions, fpp);
+        long words = (getNumBits() + 63) >>> 6;
+        Assert.isTrue(words <= Integer.MAX_VALUE, "预计数量过大");
+        this.bits = new AtomicLongArray((int) words);
+    }
+
+    @Override
+    public boolean mightContain(String key) {
+        for (long offset : offsets(key)) {
+            if ((bits.get((int) (offset >>> 6)) & (1L << offset)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public void put(String key) {
+        for (long offset : offsets(key)) {
+            long mask = 1L << offset;
+            int index = (int) (offset >>> 6);
+            long current;
+            do {
+                current = bits.get(index);
+            } while ((current & mask) == 0 && !bits.compareAndSet(index, current, current | mask));
+        }
+    }
+
+}
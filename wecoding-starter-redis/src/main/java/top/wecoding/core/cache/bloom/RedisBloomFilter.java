@@ -0,0 +1,116 @@
+/*
+ * Copyright (c) 2022. WeCoding (wecoding@yeah.net).
+ *
+ * Licensed under the GNU LESSER GENERAL PUBLIC LICENSE 3.0;
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.gnu.org/licenses/lgpl.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package top.wecoding.core.cache.bloom;
+
+import cn.hutool.core.collection.ListUtil;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import top.wecoding.core.cache.service.RedisService;
+import top.wecoding.core.exception.Assert;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * 基于 Redis 位图的布隆过滤器，集群内各节点共享，每次判断通过 pipeline 一次往返
+ *
+ * @author liuyuhui
+ * @date 2022/6/27
+ * @qq 1515418211
+ */
+public class RedisBloomFilter extends AbstractBloomFilter {
+
+    public static final String KEY_PREFIX = "bloom:";
+
+    /**
+     * Redis 位图最大 2^32 位
+     */
+    private static final long MAX_BITS = 1L << 32;
+
+    private final StringRedisTemplate stringRedisTemplate;
+
+    private final byte[] rawKey;
+
+    private final int pipelineBatchSize;
+
+    /**
+     * @param redisService       RedisService
+     * @param name               过滤器名称，一般为缓存前缀
+     * @param expectedInsertions 预计添加的 key 数量
+     * @param fpp                误判率，取值 (0, 1)
+     */
+    public RedisBloomFilter(RedisService redisService, String name, long expectedInsertions, double fpp) {
+        super(expectedInsertions, fpp);
+        Assert.isTrue(getNumBits() <= MAX_BITS, "预计数量过大，超过 Redis 位图上限");
+        this.stringRedisTemplate = redisService.getStringRedisTemplate();
+        this.rawKey = (KEY_PREFIX + name).getBytes(StandardCharsets.UTF_8);
+        this.pipelineBatchSize = redisService.getPipelineBatchSize();
+    }
+
+    @Override
+    public boolean mightContain(String key) {
+        long[] offsets = offsets(key);
+        List<Object> results = stringRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            for (long offset : offsets) {
+                connection.getBit(rawKey, offset);
+            }
+            return null;
+        });
+        for (Object result : results) {
+            if (!Boolean.TRUE.equals(result)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public void put(String key) {
+        long[] offsets = offsets(key);
+        stringRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            for (long offset : offsets) {
+                connection.setBit(rawKey, offset, true);
+            }
+            return null;
+        });
+    }
+
+    @Override
+    public void putAll(Collection<String> keys) {
+        List<long[]> allOffsets = new ArrayList<>(keys.size());
+        keys.forEach(key -> allOffsets.add(offsets(key)));
+        for (List<long[]> batch : ListUtil.partition(allOffsets, pipelineBatchSize)) {
+            stringRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                for (long[] offsets : batch) {
+                    for (long offset : offsets) {
+                        connection.setBit(rawKey, offset, true);
+                    }
+                }
+                return null;
+            });
+        }
+    }
+
+    /**
+     * 清空过滤器，数据源大量删除后可清空并重新预热
+     */
+    public void clear() {
+        stringRedisTemplate.execute((RedisCallback<Long>) connection -> connection.del(rawKey));
+    }
+
+}
@@ -20,12 +20,18 @@ import com.fasterxml.jackson.annotation.JsonTypeInfo;
 import com.fasterxml.jackson.annotation.PropertyAccessor;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.jsontype.impl.LaissezFaireSubTypeValidator;
+import org.springframework.data.redis.connection.ReactiveRedisConnectionFactory;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.serializer.RedisSerializationContext;
 import org.springframework.data.redis.serializer.RedisSerializer;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
-
 import top.wecoding.core.cache.serializer.FastJson2JsonRedisSerializer;
+import top.wecoding.core.cache.serializer.KryoRedisSerializer;
+import top.wecoding.core.cache.serializer.SerializerType;
+
+import java.util.List;
 
 /**
  * @author liuyuhui
@@ -34,6 +40,9 @@ import top.wecoding.core.cache.serializer.FastJson2JsonRedisSerializer;
  */
 public class CreateRedisTemplateFactory {
 
+    /**
+     * 默认的 Value 序列化方式，FastJson
+     */
     public static RedisSerializer<Object> redisValueSerializer() {
         FastJson2JsonRedisSerializer<Object> serializer = new FastJson2JsonRedisSerializer<>(Object.class);
         ObjectMapper mapper = new ObjectMapper();
@@ -43,20 +52,59 @@ public class CreateRedisTemplateFactory {
         return serializer;
     }
 
+    /**
+     * 按序列化方式创建 Value 序列化
+     *
+     * @param type          序列化方式
+     * @param registrations Kryo 注册的类，各节点需保持一致
+     */
+    public static RedisSerializer<Object> redisValueSerializer(SerializerType type, List<Class<?>> registrations) {
+        if (type == SerializerType.KRYO) {
+            return new KryoRedisSerializer(registrations, redisValueSerializer());
+        }
+        return redisValueSerializer();
+    }
+
     /**
      * 创建 Value 存储 Object 类型的 Redis 操作类
      */
     public static <T> RedisTemplate<String, T> createObject(RedisConnectionFactory connectionFactory) {
+        return createObject(connectionFactory, redisValueSerializer());
+    }
+
+    /**
+     * 创建 Value 存储 Object 类型的 Redis 操作类
+     *
+     * @param connectionFactory 连接工厂
+     * @param valueSerializer   Value 序列化
+     */
+    public static <T> RedisTemplate<String, T> createObject(RedisConnectionFactory connectionFactory, RedisSerializer<?> valueSerializer) {
         RedisTemplate<String, T> template = new RedisTemplate<>();
         template.setConnectionFactory(connectionFactory);
         template.setKeySerializer(new StringRedisSerializer());
-        template.setValueSerializer(redisValueSerializer());
+        template.setValueSerializer(valueSerializer);
         template.setHashKeySerializer(new StringRedisSerializer());
-        template.setHashValueSerializer(redisValueSerializer());
+        template.setHashValueSerializer(valueSerializer);
         template.afterPropertiesSet();
         return template;
     }
 
+    /**
+     * 创建 Value 存储 Object 类型的响应式 Redis 操作类，序列化方式与 {@link #createObject} 一致
+     *
+     * @param connectionFactory 连接工厂
+     * @param valueSerializer   Value 序列化
+     */
+    public static <T> ReactiveRedisTemplate<String, T> createReactiveObject(ReactiveRedisConnectionFactory connectionFactory, RedisSerializer<T> valueSerializer) {
+        RedisSerializationContext<String, T> serializationContext = RedisSerializationContext.<String, T>newSerializationContext()
+                .key(RedisSerializer.string())
+                .value(valueSerializer)
+                .hashKey(RedisSerializer.string())
+                .hashValue(valueSerializer)
+                .build();
+        return new ReactiveRedisTemplate<>(connectionFactory, serializationContext);
+    }
+
     /**
      * 创建 Value 存储 String 类型的 Redis 操作类
      */
@@ -0,0 +1,175 @@
+/*
+ * Copyright (c) 2022. WeCoding (wecoding@yeah.net).
+ *
+ * Licensed under the GNU LESSER GENERAL PUBLIC LICENSE 3.0;
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.gnu.org/licenses/lgpl.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package top.wecoding.core.cache.limiter;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import top.wecoding.core.cache.service.RedisService;
+import top.wecoding.core.cache.support.RedisScriptRegistry;
+import top.wecoding.core.exception.Assert;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 基于 Redis 令牌桶的分布式限流器
+ * <p>
+ * 令牌的生成和扣减在一个 Lua 脚本中完成，所有节点共享同一个令牌桶。
+ * {@code batch} 大于 1 时每次从 Redis 预取一批令牌放在本地，本地令牌用完前不再访问 Redis，
+ * 预取的令牌最多保留 {@code maxHoldMillis}，过期未用完的令牌直接丢弃
+ *
+ * @author liuyuhui
+ * @date 2022/6/22
+ * @qq 1515418211
+ */
+@Slf4j
+public class RedisRateLimiter {
+
+    /**
+     * 令牌桶 key 前缀
+     */
+    public static final String KEY_PREFIX = "rate_limit:";
+
+    /**
+     * 默认本地令牌最长保留时间/毫秒
+     */
+    private static final long DEF_MAX_HOLD_MILLIS = 1000;
+
+    private static final byte[] PARTIAL = "1".getBytes(StandardCharsets.UTF_8);
+
+    private static final byte[] NOT_PARTIAL = "0".getBytes(StandardCharsets.UTF_8);
+
+    private final RedisService redisService;
+
+    private final long maxHoldNanos;
+
+    private final Cache<String, LocalPermits> localPermits = Caffeine.newBuilder()
+            .maximumSize(10_000)
+            .expireAfterAccess(1, TimeUnit.MINUTES)
+            .build();
+
+    public RedisRateLimiter(RedisService redisService) {
+        this(redisService, DEF_MAX_HOLD_MILLIS);
+    }
+
+    /**
+     * @param redisService  RedisService
+     * @param maxHoldMillis 本地令牌最长保留时间/毫秒
+     */
+    public RedisRateLimiter(RedisService redisService, long maxHoldMillis) {
+        Assert.notNull(redisService, " >>> redisService 不能为空.");
+        this.redisService = redisService;
+        this.maxHoldNanos = TimeUnit.MILLISECONDS.toNanos(maxHoldMillis);
+    }
+
+    /**
+     * 获取一个令牌，每次都访问 Redis
+     *
+     * @param key              限流 key
+     * @param capacity         桶容量，即允许的突发请求数
+     * @param permitsPerSecond 每秒生成的令牌数
+     * @return 是否获取成功
+     */
+    public boolean tryAcquire(String key, long capacity, double permitsPerSecond) {
+        return acquire(key, capacity, permitsPerSecond, 1, false) == 1;
+    }
+
+    /**
+     * 获取一个令牌，{@code batch} 大于 1 时优先使用本地预取的令牌
+     *
+     * @param key              限流 key
+     * @param capacity         桶容量，即允许的突发请求数
+     * @param permitsPerSecond 每秒生成的令牌数
+     * @param batch            每次从 Redis 预取的令牌数
+     * @return 是否获取成功
+     */
+    public boolean tryAcquire(String key, long capacity, double permitsPerSecond, int batch) {
+        if (batch <= 1) {
+            return tryAcquire(key, capacity, permitsPerSecond);
+        }
+        LocalPermits permits = localPermits.get(key, k -> new LocalPermits());
+        if (permits.tryTake()) {
+            return true;
+        }
+        synchronized (permits) {
+            if (permits.tryTake()) {
+                return true;
+            }
+            long granted = acquire(key, capacity, permitsPerSecond, Math.min(batch, capacity), true);
+            if (granted <= 0) {
+                return false;
+            }
+            permits.refill(granted - 1, System.nanoTime() + maxHoldNanos);
+            return true;
+        }
+    }
+
+    /**
+     * 从 Redis 令牌桶获取令牌
+     *
+     * @param key              限流 key
+     * @param capacity         桶容量
+     * @param permitsPerSecond 每秒生成的令牌数
+     * @param permits          申请的令牌数
+     * @param partial          令牌不足时是否允许部分获取
+     * @return 获取到的令牌数
+     */
+    public long acquire(String key, long capacity, double permitsPerSecond, long permits, boolean partial) {
+        Assert.isTrue(capacity > 0 && permitsPerSecond > 0, "限流容量和速率必须大于0");
+        Long granted = redisService.executeScript(RedisScriptRegistry.RATE_LIMIT, Long.class,
+                Collections.singletonList(KEY_PREFIX + key), toRawArg(capacity), toRawArg(permitsPerSecond),
+                toRawArg(permits), partial ? PARTIAL : NOT_PARTIAL);
+        return granted == null ? 0 : granted;
+    }
+
+    private static byte[] toRawArg(Object number) {
+        return String.valueOf(number).getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 本地预取的令牌
+     */
+    private static final class LocalPermits {
+
+        private final AtomicLong remaining = new AtomicLong();
+
+        private volatile long expireAtNanos;
+
+        private boolean tryTake() {
+            if (System.nanoTime() - expireAtNanos > 0) {
+                return false;
+            }
+            long current;
+            do {
+                current = remaining.get();
+                if (current <= 0) {
+                    return false;
+                }
+            } while (!remaining.compareAndSet(current, current - 1));
+            return true;
+        }
+
+        private void refill(long permits, long expireAtNanos) {
+            remaining.set(permits);
+            this.expireAtNanos = expireAtNanos;
+        }
+
+    }
+
+}
@@ -0,0 +1,108 @@
+/*
+ * Copyright (c) 2022. WeCoding (wecoding@yeah.net).
+ *
+ * Licensed under the GNU LESSER GENERAL PUBLIC LICENSE 3.0;
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.gnu.org/licenses/lgpl.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package top.wecoding.core.cache.lock;
+
+import java.time.Duration;
+
+/**
+ * 分布式锁
+ * <p>
+ * 同一个锁对象在同一线程内可重入，不同节点、不同线程之间互斥。
+ * 未指定租期时由看门狗定期续期，持有者进程退出后锁在租期到期后自动释放。
+ * 每次获得锁会分配一个单调递增的 fencing token，写入下游资源时带上该值，
+ * 下游拒绝比已见过的 token 更小的写入，可以避免锁过期后旧持有者的延迟写入
+ * <pre>
+ * try (DistributedLock lock = lockFactory.getLock("order:" + orderId)) {
+ *     if (lock.tryLock(Duration.ofSeconds(3))) {
+ *         ...
+ *     }
+ * }
+ * </pre>
+ *
+ * @author liuyuhui
+ * @date 2022/6/23
+ * @qq 1515418211
+ */
+public interface DistributedLock extends AutoCloseable {
+
+    /**
+     * 锁名称
+     *
+     * @return 名称
+     */
+    String getName();
+
+    /**
+     * 尝试获取锁，不等待
+     *
+     * @return 是否获得锁
+     */
+    boolean tryLock();
+
+    /**
+     * 尝试获取锁，锁被占用时等待释放通知，最多等待 {@code waitTime}
+     *
+     * @param waitTime 最长等待时间
+     * @return 是否获得锁，等待期间线程被中断时返回 false 并保留中断状态
+     */
+    boolean tryLock(Duration waitTime);
+
+    /**
+     * 尝试获取锁，使用固定租期，不自动续期
+     *
+     * @param waitTime  最长等待时间
+     * @param leaseTime 租期，为 null 时由看门狗自动续期
+     * @return 是否获得锁，等待期间线程被中断时返回 false 并保留中断状态
+     */
+    boolean tryLock(Duration waitTime, Duration leaseTime);
+
+    /**
+     * 获取锁，锁被占用时一直等待
+     */
+    void lock();
+
+    /**
+     * 释放锁，重入时只减少持有次数
+     *
+     * @throws IllegalMonitorStateException 当前线程未持有锁
+     */
+    void unlock();
+
+    /**
+     * 当前线程是否持有锁
+     *
+     * @return 是否持有
+     */
+    boolean isHeldByCurrentThread();
+
+    /**
+     * 本次持有锁的 fencing token
+     *
+     * @return fencing token，未持有锁时为 0
+     */
+    long getFencingToken();
+
+    /**
+     * 当前线程持有锁时释放，便于 try-with-resources 使用
+     */
+    @Override
+    default void close() {
+        if (isHeldByCurrentThread()) {
+            unlock();
+        }
+    }
+
+}
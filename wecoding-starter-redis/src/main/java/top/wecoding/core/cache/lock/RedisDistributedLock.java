@@ -0,0 +1,262 @@
+/*
+ * Copyright (c) 2022. WeCoding (wecoding@yeah.net).
+ *
+ * Licensed under the GNU LESSER GENERAL PUBLIC LICENSE 3.0;
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.gnu.org/licenses/lgpl.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package top.wecoding.core.cache.lock;
+
+import lombok.extern.slf4j.Slf4j;
+import top.wecoding.core.cache.service.RedisService;
+import top.wecoding.core.cache.support.RedisScriptRegistry;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 基于 Redis 的分布式锁，通过 {@link RedisLockFactory#getLock(String)} 获取
+ * <p>
+ * 锁 key 为 {@code lock:{name}}，fencing token 保存在 {@code lock:{name}:fencing}，
+ * 使用 hash tag 保证集群模式下两者在同一个 slot
+ *
+ * @author liuyuhui
+ * @date 2022/6/23
+ * @qq 1515418211
+ */
+@Slf4j
+public class RedisDistributedLock implements DistributedLock {
+
+    /**
+     * 没有剩余租期信息时的最长等待间隔/毫秒
+     */
+    private static final long DEF_WAIT_MILLIS = 100;
+
+    private final String name;
+
+    private final RedisLockFactory factory;
+
+    private final String lockKey;
+
+    private final String fencingKey;
+
+    /**
+     * 持有锁的线程，获取锁时最后写入，读到持有者后即可读到下面的持有次数和 fencing token
+     */
+    private volatile Thread ownerThread;
+
+    private volatile int holdCount;
+
+    private volatile long fencingToken;
+
+    private final AtomicReference<ScheduledFuture<?>> renewTask = new AtomicReference<>();
+
+    RedisDistributedLock(String name, RedisLockFactory factory) {
+        this.name = name;
+        this.factory = factory;
+        this.lockKey = RedisLockFactory.KEY_PREFIX + "{" + name + "}";
+        this.fencingKey = lockKey + ":fencing";
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public boolean tryLock() {
+        if (reenter()) {
+            return true;
+        }
+        return acquire(null) > 0;
+    }
+
+    @Override
+    public boolean tryLock(Duration waitTime) {
+        return tryLock(waitTime, null);
+    }
+
+    @Override
+    public boolean tryLock(Duration waitTime, Duration leaseTime) {
+        try {
+            return tryLock(waitTime == null ? 0 : waitTime.toNanos(), leaseTime);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    @Override
+    public void lock() {
+        boolean interrupted = false;
+        while (true) {
+            try {
+                if (tryLock(Long.MAX_VALUE, null)) {
+                    break;
+                }
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public void unlock() {
+        if (ownerThread != Thread.currentThread()) {
+            throw new IllegalMonitorStateException("当前线程未持有锁 [" + name + "]");
+        }
+        if (--holdCount > 0) {
+            return;
+        }
+        cancelRenew();
+        fencingToken = 0;
+        ownerThread = null;
+        Long released = factory.getRedisService().executeScript(RedisScriptRegistry.LOCK_RELEASE, Long.class,
+                Collections.singletonList(lockKey), owner(), raw(RedisLockFactory.UNLOCK_CHANNEL), raw(name));
+        if (released == null || released == 0) {
+            log.warn(" >>> 分布式锁 [{}] 已过期，释放时不再由当前线程持有", name);
+        }
+    }
+
+    @Override
+    public boolean isHeldByCurrentThread() {
+        return ownerThread == Thread.currentThread();
+    }
+
+    @Override
+    public long getFencingToken() {
+        return isHeldByCurrentThread() ? fencingToken : 0;
+    }
+
+    private boolean tryLock(long waitNanos, Duration leaseTime) throws InterruptedException {
+        if (reenter()) {
+            return true;
+        }
+        long result = acquire(leaseTime);
+        if (result > 0) {
+            return true;
+        }
+        if (waitNanos <= 0) {
+            return false;
+        }
+
+        long deadline = waitNanos == Long.MAX_VALUE ? Long.MAX_VALUE : System.nanoTime() + waitNanos;
+        RedisLockFactory.LockSignal signal = factory.subscribe(name);
+        try {
+            while (true) {
+                long version = signal.version();
+                result = acquire(leaseTime);
+                if (result > 0) {
+                    return true;
+                }
+                long remainingMillis = deadline == Long.MAX_VALUE ? Long.MAX_VALUE
+                        : TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+                if (remainingMillis <= 0) {
+                    return false;
+                }
+                // 释放通知丢失时，最多等到锁的租期结束
+                long ttlMillis = result < -1 ? -result : DEF_WAIT_MILLIS;
+                signal.await(version, Math.max(1, Math.min(remainingMillis, ttlMillis)));
+            }
+        } finally {
+            factory.unsubscribe(name);
+        }
+    }
+
+    /**
+     * 当前线程已持有锁时增加持有次数
+     */
+    private boolean reenter() {
+        if (ownerThread == Thread.currentThread()) {
+            holdCount++;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * @return 成功时为 fencing token，失败时为锁剩余租期的相反数
+     */
+    private long acquire(Duration leaseTime) {
+        long leaseMillis = (leaseTime != null ? leaseTime : factory.getLeaseTime()).toMillis();
+        Long result = factory.getRedisService().executeScript(RedisScriptRegistry.LOCK_ACQUIRE, Long.class,
+                Arrays.asList(lockKey, fencingKey), owner(), raw(String.valueOf(leaseMillis)));
+        if (result == null || result <= 0) {
+            return result == null ? -1 : result;
+        }
+        holdCount = 1;
+        fencingToken = result;
+        ownerThread = Thread.currentThread();
+        if (leaseTime == null) {
+            scheduleRenew(leaseMillis);
+        }
+        return result;
+    }
+
+    /**
+     * 启动看门狗，同时取消上一个持有者遗留的看门狗；续期失败时看门狗只取消自己
+     */
+    private void scheduleRenew(long leaseMillis) {
+        RedisService redisService = factory.getRedisService();
+        byte[] owner = owner();
+        byte[] rawLease = raw(String.valueOf(leaseMillis));
+        long period = Math.max(1, leaseMillis / 3);
+        AtomicReference<ScheduledFuture<?>> self = new AtomicReference<>();
+        ScheduledFuture<?> task = factory.getWatchdog().scheduleAtFixedRate(() -> {
+            try {
+                Long renewed = redisService.executeScript(RedisScriptRegistry.LOCK_RENEW, Long.class,
+                        Collections.singletonList(lockKey), owner, rawLease);
+                if (renewed == null || renewed == 0) {
+                    log.warn(" >>> 分布式锁 [{}] 续期失败，锁已不再由当前线程持有", name);
+                    ScheduledFuture<?> current = self.get();
+                    if (current != null) {
+                        current.cancel(false);
+                        renewTask.compareAndSet(current, null);
+                    }
+                }
+            } catch (Exception e) {
+                log.error(" >>> 分布式锁 [{}] 续期异常: {}", name, e.getMessage(), e);
+            }
+        }, period, period, TimeUnit.MILLISECONDS);
+        self.set(task);
+        ScheduledFuture<?> previous = renewTask.getAndSet(task);
+        if (previous != null) {
+            previous.cancel(false);
+        }
+    }
+
+    private void cancelRenew() {
+        ScheduledFuture<?> task = renewTask.getAndSet(null);
+        if (task != null) {
+            task.cancel(false);
+        }
+    }
+
+    /**
+     * 持有者为 节点标识:线程 ID，重入和释放都以此判断
+     */
+    private byte[] owner() {
+        return raw(RedisLockFactory.NODE_ID + ":" + Thread.currentThread().getId());
+    }
+
+    private static byte[] raw(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+}
@@ -0,0 +1,172 @@
+/*
+ * Copyright (c) 2022. WeCoding (wecoding@yeah.net).
+ *
+ * Licensed under the GNU LESSER GENERAL PUBLIC LICENSE 3.0;
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.gnu.org/licenses/lgpl.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package top.wecoding.core.cache.lock;
+
+import cn.hutool.core.util.IdUtil;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import top.wecoding.core.cache.service.RedisService;
+import top.wecoding.core.exception.Assert;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+
+/**
+ * Redis 分布式锁工厂
+ * <p>
+ * 锁释放时通过 Redis 发布订阅通知所有节点，等待中的线程被唤醒后立即重试，不轮询。
+ * 通知丢失时等待线程最多等到锁的剩余租期后重试
+ *
+ * @author liuyuhui
+ * @date 2022/6/23
+ * @qq 1515418211
+ */
+@Slf4j
+public class RedisLockFactory implements MessageListener, InitializingBean, DisposableBean {
+
+    /**
+     * 锁释放通知频道
+     */
+    public static final String UNLOCK_CHANNEL = "wecoding:lock:unlock";
+
+    /**
+     * 锁 key 前缀
+     */
+    public static final String KEY_PREFIX = "lock:";
+
+    /**
+     * 默认租期，看门狗每 1/3 租期续期一次
+     */
+    public static final Duration DEF_LEASE_TIME = Duration.ofSeconds(30);
+
+    /**
+     * 当前节点标识
+     */
+    static final String NODE_ID = IdUtil.fastSimpleUUID();
+
+    @Getter
+    private final RedisService redisService;
+
+    private final RedisMessageListenerContainer listenerContainer;
+
+    @Getter
+    private final Duration leaseTime;
+
+    @Getter
+    private final ScheduledExecutorService watchdog;
+
+    private final ConcurrentMap<String, LockSignal> signals = new ConcurrentHashMap<>();
+
+    public RedisLockFactory(RedisService redisService, RedisMessageListenerContainer listenerContainer) {
+        this(redisService, listenerContainer, DEF_LEASE_TIME);
+    }
+
+    /**
+     * @param redisService      RedisService
+     * @param listenerContainer 接收锁释放通知，为 null 时等待线程按锁的剩余租期重试
+     * @param leaseTime         看门狗续期的租期
+     */
+    public RedisLockFactory(RedisService redisService, RedisMessageListenerContainer listenerContainer, Duration leaseTime) {
+        Assert.notNull(redisService, " >>> redisService 不能为空.");
+        this.redisService = redisService;
+        this.listenerContainer = listenerContainer;
+        this.leaseTime = leaseTime;
+        this.watchdog = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "wecoding-lock-watchdog");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        if (listenerContainer != null) {
+            listenerContainer.addMessageListener(this, new ChannelTopic(UNLOCK_CHANNEL));
+        }
+    }
+
+    @Override
+    public void destroy() {
+        watchdog.shutdownNow();
+    }
+
+    /**
+     * 获取锁对象，不会立即加锁
+     *
+     * @param name 锁名称
+     * @return 锁
+     */
+    public DistributedLock getLock(String name) {
+        return new RedisDistributedLock(name, this);
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        LockSignal signal = signals.get(new String(message.getBody(), StandardCharsets.UTF_8));
+        if (signal != null) {
+            signal.signalAll();
+        }
+    }
+
+    LockSignal subscribe(String name) {
+        return signals.compute(name, (key, signal) -> {
+            LockSignal result = signal == null ? new LockSignal() : signal;
+            result.waiters++;
+            return result;
+        });
+    }
+
+    void unsubscribe(String name) {
+        signals.computeIfPresent(name, (key, signal) -> --signal.waiters == 0 ? null : signal);
+    }
+
+    /**
+     * 同一个锁名称的等待线程共用一个信号，version 变化说明等待期间锁被释放过
+     */
+    static final class LockSignal {
+
+        private int waiters;
+
+        private long version;
+
+        synchronized long version() {
+            return version;
+        }
+
+        synchronized void await(long expectedVersion, long millis) throws InterruptedException {
+            if (version == expectedVersion && millis > 0) {
+                wait(millis);
+            }
+        }
+
+        synchronized void signalAll() {
+            version++;
+            notifyAll();
+        }
+
+    }
+
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright (c) 2022. WeCoding (wecoding@yeah.net).
+ *
+ * Licensed under the GNU LESSER GENERAL PUBLIC LICENSE 3.0;
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.gnu.org/licenses/lgpl.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package top.wecoding.core.cache.manager;
+
+import org.springframework.data.redis.cache.CacheStatistics;
+import org.springframework.data.redis.cache.CacheStatisticsCollector;
+import org.springframework.data.redis.cache.RedisCacheWriter;
+import org.springframework.lang.Nullable;
+import top.wecoding.core.cache.base.TtlPolicy;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+
+/**
+ * 写入时按 {@link TtlPolicy} 调整失效时长的 RedisCacheWriter，@Cacheable 的缓存同样按 key 前缀配置时长、增加抖动
+ *
+ * @author liuyuhui
+ * @date 2022/6/26
+ * @qq 1515418211
+ */
+public class TtlPolicyRedisCacheWriter implements RedisCacheWriter {
+
+    private final RedisCacheWriter delegate;
+
+    private final TtlPolicy ttlPolicy;
+
+    public TtlPolicyRedisCacheWriter(RedisCacheWriter delegate, TtlPolicy ttlPolicy) {
+        this.delegate = delegate;
+        this.ttlPolicy = ttlPolicy;
+    }
+
+    @Override
+    public void put(String name, byte[] key, byte[] value, @Nullable Duration ttl) {
+        delegate.put(name, key, value, applyTtl(key, ttl));
+    }
+
+    @Override
+    public byte[] get(String name, byte[] key) {
+        return delegate.get(name, key);
+    }
+
+    @Override
+    public byte[] putIfAbsent(String name, byte[] key, byte[] value, @Nullable Duration ttl) {
+        return delegate.putIfAbsent(name, key, value, applyTtl(key, ttl));
+    }
+
+    @Override
+    public void remove(String name, byte[] key) {
+        delegate.remove(name, key);
+    }
+
+    @Override
+    public void clean(String name, byte[] pattern) {
+        delegate.clean(name, pattern);
+    }
+
+    @Override
+    public void clearStatistics(String name) {
+        delegate.clearStatistics(name);
+    }
+
+    @Override
+    public RedisCacheWriter withStatisticsCollector(CacheStatisticsCollector cacheStatisticsCollector) {
+        return new TtlPolicyRedisCacheWriter(delegate.withStatisticsCollector(cacheStatisticsCollector), ttlPolicy);
+    }
+
+    @Override
+    public CacheStatistics getCacheStatistics(String cacheName) {
+        return delegate.getCacheStatistics(cacheName);
+    }
+
+    private Duration applyTtl(byte[] key, @Nullable Duration ttl) {
+        // RedisCacheManager 的 key 由 StringRedisSerializer 序列化
+        Duration applied = ttlPolicy.apply(new String(key, StandardCharsets.UTF_8), ttl);
+        return applied == null || applied.isNegative() ? Duration.ZERO : applied;
+    }
+
+}
@@ -0,0 +1,156 @@
+/*
+ * Copyright (c) 2022. WeCoding (wecoding@yeah.net).
+ *
+ * Licensed under the GNU LESSER GENERAL PUBLIC LICENSE 3.0;
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.gnu.org/licenses/lgpl.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package top.wecoding.core.cache.manager;
+
+import cn.hutool.core.collection.CollUtil;
+import org.springframework.cache.Cache;
+import org.springframework.cache.support.AbstractValueAdaptingCache;
+import org.springframework.core.convert.ConversionService;
+import top.wecoding.core.cache.support.LocalCache;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.concurrent.Callable;
+
+/**
+ * Spring Cache 二级缓存，本地 Caffeine 缓存(L1) + RedisCache(L2)
+ * <p>
+ * 本地缓存以 RedisCache 相同的方式将 key 转换为字符串，各节点据此清除本地缓存
+ *
+ * @author liuyuhui
+ * @date 2022/6/24
+ * @qq 1515418211
+ */
+@SuppressWarnings("unchecked")
+public class TwoLevelCache extends AbstractValueAdaptingCache {
+
+    private final String name;
+
+    private final Cache redisCache;
+
+    private final LocalCache<Object> localCache;
+
+    private final ConversionService conversionService;
+
+    private final TwoLevelCacheManager cacheManager;
+
+    TwoLevelCache(String name, Cache redisCache, com.github.benmanes.caffeine.cache.Cache<String, Object> localCache,
+                  ConversionService conversionService, boolean allowNullValues, TwoLevelCacheManager cacheManager) {
+        super(allowNullValues);
+        this.name = name;
+        this.redisCache = redisCache;
+        this.localCache = new LocalCache<>(localCache);
+        this.conversionService = conversionService;
+        this.cacheManager = cacheManager;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public com.github.benmanes.caffeine.cache.Cache<String, Object> getNativeCache() {
+        return localCache.getNativeCache();
+    }
+
+    @Override
+    protected Object lookup(Object key) {
+        // 加载在 compute 之外完成，期间收到失效通知时不回填本地缓存
+        return localCache.get(toLocalKey(key), () -> {
+            ValueWrapper wrapper = redisCache.get(key);
+            return wrapper == null ? null : toStoreValue(wrapper.get());
+        });
+    }
+
+    @Override
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        return (T) fromStoreValue(localCache.get(toLocalKey(key), () -> toStoreValue(redisCache.get(key, valueLoader))));
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        redisCache.put(key, value);
+        String localKey = toLocalKey(key);
+        localCache.put(localKey, toStoreValue(value));
+        cacheManager.publish(name, Collections.singletonList(localKey));
+    }
+
+    @Override
+    public ValueWrapper putIfAbsent(Object key, Object value) {
+        ValueWrapper existing = redisCache.putIfAbsent(key, value);
+        evictLocal(key);
+        return existing;
+    }
+
+    @Override
+    public void evict(Object key) {
+        redisCache.evict(key);
+        evictLocal(key);
+    }
+
+    @Override
+    public boolean evictIfPresent(Object key) {
+        boolean evicted = redisCache.evictIfPresent(key);
+        evictLocal(key);
+        return evicted;
+    }
+
+    @Override
+    public void clear() {
+        redisCache.clear();
+        localCache.invalidateAll();
+        cacheManager.publish(name, Collections.emptyList());
+    }
+
+    @Override
+    public boolean invalidate() {
+        boolean invalidated = redisCache.invalidate();
+        localCache.invalidateAll();
+        cacheManager.publish(name, Collections.emptyList());
+        return invalidated;
+    }
+
+    /**
+     * 清除本地缓存
+     *
+     * @param localKeys 转换后的 key，为空时清除全部
+     */
+    public void invalidateLocal(Collection<String> localKeys) {
+        if (CollUtil.isEmpty(localKeys)) {
+            localCache.invalidateAll();
+        } else {
+            localCache.invalidateAll(localKeys);
+        }
+    }
+
+    private void evictLocal(Object key) {
+        String localKey = toLocalKey(key);
+        localCache.invalidate(localKey);
+        cacheManager.publish(name, Collections.singletonList(localKey));
+    }
+
+    private String toLocalKey(Object key) {
+        if (key instanceof String) {
+            return (String) key;
+        }
+        if (conversionService.canConvert(key.getClass(), String.class)) {
+            return conversionService.convert(key, String.class);
+        }
+        return String.valueOf(key);
+    }
+
+}
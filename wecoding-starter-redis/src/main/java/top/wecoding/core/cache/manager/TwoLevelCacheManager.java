@@ -0,0 +1,151 @@
+/*
+ * Copyright (c) 2022. WeCoding (wecoding@yeah.net).
+ *
+ * Licensed under the GNU LESSER GENERAL PUBLIC LICENSE 3.0;
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.gnu.org/licenses/lgpl.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package top.wecoding.core.cache.manager;
+
+import cn.hutool.core.util.IdUtil;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.transaction.AbstractTransactionSupportingCacheManager;
+import org.springframework.data.redis.cache.RedisCache;
+import org.springframework.data.redis.cache.RedisCacheConfiguration;
+import org.springframework.data.redis.cache.RedisCacheManager;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import top.wecoding.core.cache.model.CacheInvalidateMessage;
+import top.wecoding.core.cache.props.WeCodingCacheProperties;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.stream.Collectors;
+
+/**
+ * 二级缓存 CacheManager，每个缓存名称对应一个本地 Caffeine 缓存，未命中时读取 RedisCacheManager 中的同名缓存
+ * <p>
+ * 写入、删除时通过 Redis 发布订阅通知其他节点清除本地缓存
+ *
+ * @author liuyuhui
+ * @date 2022/6/24
+ * @qq 1515418211
+ */
+@Slf4j
+public class TwoLevelCacheManager extends AbstractTransactionSupportingCacheManager implements MessageListener {
+
+    /**
+     * 本地缓存失效通知频道
+     */
+    public static final String INVALIDATE_CHANNEL = "wecoding:cache-manager:invalidate";
+
+    /**
+     * 当前节点标识，忽略自己发出的通知
+     */
+    private static final String NODE_ID = IdUtil.fastSimpleUUID();
+
+    private final RedisCacheManager redisCacheManager;
+
+    private final RedisTemplate<String, Object> redisTemplate;
+
+    private final RedisMessageListenerContainer listenerContainer;
+
+    private final WeCodingCacheProperties.Local properties;
+
+    private final ConcurrentMap<String, TwoLevelCache> twoLevelCaches = new ConcurrentHashMap<>();
+
+    /**
+     * @param redisCacheManager Redis 缓存，不需要注册为 Bean，也不需要开启事务支持
+     * @param redisTemplate     发送失效通知
+     * @param listenerContainer 接收失效通知
+     * @param properties        本地缓存配置
+     */
+    public TwoLevelCacheManager(RedisCacheManager redisCacheManager, RedisTemplate<String, Object> redisTemplate,
+                                RedisMessageListenerContainer listenerContainer, WeCodingCacheProperties.Local properties) {
+        this.redisCacheManager = redisCacheManager;
+        this.redisTemplate = redisTemplate;
+        this.listenerContainer = listenerContainer;
+        this.properties = properties;
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        redisCacheManager.initializeCaches();
+        super.afterPropertiesSet();
+        listenerContainer.addMessageListener(this, new ChannelTopic(INVALIDATE_CHANNEL));
+    }
+
+    @Override
+    protected Collection<? extends Cache> loadCaches() {
+        return properties.getCaches().keySet().stream()
+                .map(this::getMissingCache)
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    protected Cache getMissingCache(String name) {
+        Cache redisCache = redisCacheManager.getCache(name);
+        if (!(redisCache instanceof RedisCache)) {
+            return null;
+        }
+        return twoLevelCaches.computeIfAbsent(name, key -> createCache(key, redisCache));
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        Object body = redisTemplate.getValueSerializer().deserialize(message.getBody());
+        if (!(body instanceof CacheInvalidateMessage)) {
+            return;
+        }
+        CacheInvalidateMessage invalidateMessage = (CacheInvalidateMessage) body;
+        if (NODE_ID.equals(invalidateMessage.getNodeId())) {
+            return;
+        }
+        TwoLevelCache cache = twoLevelCaches.get(invalidateMessage.getKeyPrefix());
+        if (cache != null) {
+            cache.invalidateLocal(invalidateMessage.getKeys());
+        }
+    }
+
+    /**
+     * 通知其他节点清除本地缓存
+     *
+     * @param name      缓存名称
+     * @param localKeys 转换后的 key，为空时清除全部
+     */
+    void publish(String name, List<String> localKeys) {
+        try {
+            redisTemplate.convertAndSend(INVALIDATE_CHANNEL, new CacheInvalidateMessage(NODE_ID, name, localKeys));
+        } catch (Exception e) {
+            log.error(" >>> 发送本地缓存失效通知失败: {}", e.getMessage(), e);
+        }
+    }
+
+    private TwoLevelCache createCache(String name, Cache redisCache) {
+        WeCodingCacheProperties.LocalCacheSpec spec = properties.getCaches().get(name);
+        long maximumSize = spec != null && spec.getMaximumSize() != null ? spec.getMaximumSize() : properties.getMaximumSize();
+        Duration timeToLive = spec != null && spec.getTimeToLive() != null ? spec.getTimeToLive() : properties.getTimeToLive();
+
+        RedisCacheConfiguration configuration = ((RedisCache) redisCache).getCacheConfiguration();
+        return new TwoLevelCache(name, redisCache,
+                Caffeine.newBuilder().maximumSize(maximumSize).expireAfterWrite(timeToLive).build(),
+                configuration.getConversionService(), configuration.getAllowCacheNullValues(), this);
+    }
+
+}
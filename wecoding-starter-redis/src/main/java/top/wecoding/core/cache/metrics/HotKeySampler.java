@@ -0,0 +1,207 @@
+/*
+ * Copyright (c) 2022. WeCoding (wecoding@yeah.net).
+ *
+ * Licensed under the GNU LESSER GENERAL PUBLIC LICENSE 3.0;
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.gnu.org/licenses/lgpl.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package top.wecoding.core.cache.metrics;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+import top.wecoding.core.exception.Assert;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 热点 key 采样，Count-Min Sketch 估算访问次数，保留估算次数最高的 K 个 key
+ * <p>
+ * 内存占用固定为 {@code depth * width} 个 long 加 K 个候选 key，与 key 的总数无关。
+ * 采样数达到 {@code width * 10} 时所有计数减半，使排名反映最近的访问情况，
+ * 减半分摊到之后的每次采样中完成，每次只处理 {@value #DECAY_STEP} 个计数器。
+ * 已在候选中的 key 无锁更新，只有新 key 挤出最小候选时才加锁
+ *
+ * @author liuyuhui
+ * @date 2022/6/25
+ * @qq 1515418211
+ */
+public class HotKeySampler {
+
+    private static final int DEPTH = 4;
+
+    /**
+     * 每次采样减半的计数器数量
+     */
+    private static final int DECAY_STEP = 64;
+
+    private final int width;
+
+    private final int topK;
+
+    private final int sampleRate;
+
+    private final AtomicLongArray counters;
+
+    private final AtomicLong samples = new AtomicLong();
+
+    /**
+     * 下一个待减半的计数器，不小于计数器总数时表示没有进行中的减半
+     */
+    private final AtomicInteger decayCursor;
+
+    private final Map<String, Long> candidates = new ConcurrentHashMap<>();
+
+    /**
+     * 候选已满时进入候选的最低次数，即当前最小候选次数加一
+     */
+    private volatile long threshold;
+
+    public HotKeySampler() {
+        this(2048, 20, 1);
+    }
+
+    /**
+     * @param width      每行计数器数量，越大误差越小
+     * @param topK       保留的热点 key 数量
+     * @param sampleRate 每 sampleRate 次访问采样一次，1 表示全部采样
+     */
+    public HotKeySampler(int width, int topK, int sampleRate) {
+        Assert.isTrue(width > 0 && topK > 0 && sampleRate > 0, "采样参数必须大于0");
+        this.width = width;
+        this.topK = topK;
+        this.sampleRate = sampleRate;
+        this.counters = new AtomicLongArray(DEPTH * width);
+        this.decayCursor = new AtomicInteger(counters.length());
+    }
+
+    /**
+     * 记录一次访问
+     *
+     * @param key 键
+     */
+    public void record(String key) {
+        if (sampleRate > 1 && ThreadLocalRandom.current().nextInt(sampleRate) != 0) {
+            return;
+        }
+        int hash1 = spread(key.hashCode());
+        int hash2 = spread(hash1 ^ 0x9E3779B9);
+        long estimate = Long.MAX_VALUE;
+        for (int i = 0; i < DEPTH; i++) {
+            int index = i * width + ((hash1 + i * hash2) & Integer.MAX_VALUE) % width;
+            estimate = Math.min(estimate, counters.incrementAndGet(index));
+        }
+        if (candidates.replace(key, estimate) == null
+                && (candidates.size() < topK || estimate >= threshold)) {
+            offer(key, estimate);
+        }
+        if (samples.incrementAndGet() % (width * 10L) == 0) {
+            startDecay();
+        }
+        decayStep();
+    }
+
+    /**
+     * 估算访问次数最高的 key，按次数降序
+     *
+     * @return 热点 key
+     */
+    public List<HotKey> topK() {
+        List<HotKey> hotKeys = new ArrayList<>(candidates.size());
+        candidates.forEach((key, count) -> hotKeys.add(new HotKey(key, count * sampleRate)));
+        hotKeys.sort(Comparator.comparingLong(HotKey::getCount).reversed());
+        return hotKeys;
+    }
+
+    /**
+     * 新 key 加入候选，候选已满时挤出次数最小的 key
+     */
+    private synchronized void offer(String key, long estimate) {
+        if (candidates.replace(key, estimate) != null) {
+            return;
+        }
+        if (candidates.size() < topK) {
+            candidates.put(key, estimate);
+            if (candidates.size() >= topK) {
+                threshold = minCandidate().getValue() + 1;
+            }
+            return;
+        }
+        Map.Entry<String, Long> min = minCandidate();
+        if (estimate > min.getValue()) {
+            candidates.remove(min.getKey());
+            candidates.put(key, estimate);
+            min = minCandidate();
+        }
+        threshold = min.getValue() + 1;
+    }
+
+    private Map.Entry<String, Long> minCandidate() {
+        Map.Entry<String, Long> min = null;
+        for (Map.Entry<String, Long> entry : candidates.entrySet()) {
+            if (min == null || entry.getValue() < min.getValue()) {
+                min = entry;
+            }
+        }
+        return min;
+    }
+
+    /**
+     * 开始一轮减半，候选次数立即减半，计数器在之后的采样中逐步减半
+     */
+    private void startDecay() {
+        decayCursor.set(0);
+        candidates.replaceAll((key, count) -> count >>> 1);
+        threshold >>>= 1;
+    }
+
+    private void decayStep() {
+        if (decayCursor.get() >= counters.length()) {
+            return;
+        }
+        int start = decayCursor.getAndAdd(DECAY_STEP);
+        int end = Math.min(start + DECAY_STEP, counters.length());
+        for (int i = start; i < end; i++) {
+            counters.getAndUpdate(i, value -> value >>> 1);
+        }
+    }
+
+    private static int spread(int hash) {
+        hash ^= hash >>> 16;
+        hash *= 0x85EBCA6B;
+        hash ^= hash >>> 13;
+        hash *= 0xC2B2AE35;
+        return hash ^ (hash >>> 16);
+    }
+
+    @Getter
+    @ToString
+    @AllArgsConstructor
+    public static class HotKey {
+
+        private final String key;
+
+        /**
+         * 估算的访问次数，可能偏大
+         */
+        private final long count;
+
+    }
+
+}
@@ -0,0 +1,276 @@
+/*
+ * Copyright (c) 2022. WeCoding (wecoding@yeah.net).
+ *
+ * Licensed under the GNU LESSER GENERAL PUBLIC LICENSE 3.0;
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.gnu.org/licenses/lgpl.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package top.wecoding.core.cache.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import top.wecoding.core.cache.base.CacheOperator;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * 为任意 {@link CacheOperator} 记录监控指标，按缓存前缀打 tag
+ * <ul>
+ *     <li>wecoding.cache.gets：命中/未命中次数</li>
+ *     <li>wecoding.cache.loads：get(key, loader) 的加载耗时</li>
+ *     <li>wecoding.cache.puts / wecoding.cache.deletes：写入、删除次数</li>
+ *     <li>wecoding.cache.value.size：写入值序列化后的大小，需要传入序列化方式，会额外序列化一次</li>
+ * </ul>
+ * 同时通过 {@link HotKeySampler} 采样热点 key
+ * <pre>
+ * CacheOperator&lt;Dict&gt; cache = new InstrumentedCacheOperator&lt;&gt;(dictCache, meterRegistry);
+ * </pre>
+ *
+ * @author liuyuhui
+ * @date 2022/6/25
+ * @qq 1515418211
+ */
+public class InstrumentedCacheOperator<T> implements CacheOperator<T> {
+
+    private final CacheOperator<T> delegate;
+
+    private final RedisSerializer<Object> sizeSerializer;
+
+    private final HotKeySampler hotKeySampler;
+
+    private final Counter hits;
+
+    private final Counter misses;
+
+    private final Timer loadSuccess;
+
+    private final Timer loadFailure;
+
+    private final Counter puts;
+
+    private final Counter deletes;
+
+    private final DistributionSummary valueSize;
+
+    public InstrumentedCacheOperator(CacheOperator<T> delegate, MeterRegistry registry) {
+        this(delegate, registry, null, new HotKeySampler());
+    }
+
+    /**
+     * @param delegate       实际的缓存
+     * @param registry       MeterRegistry
+     * @param sizeSerializer 统计值大小使用的序列化方式，为 null 时不统计
+     * @param hotKeySampler  热点 key 采样，为 null 时不采样
+     */
+    public InstrumentedCacheOperator(CacheOperator<T> delegate, MeterRegistry registry,
+                                     RedisSerializer<Object> sizeSerializer, HotKeySampler hotKeySampler) {
+        this.delegate = delegate;
+        this.sizeSerializer = sizeSerializer;
+        this.hotKeySampler = hotKeySampler;
+
+        String prefix = delegate.getKeyPrefix();
+        this.hits = Counter.builder("wecoding.cache.gets").tag("prefix", prefix).tag("result", "hit")
+                .description("缓存命中次数").register(registry);
+        this.misses = Counter.builder("wecoding.cache.gets").tag("prefix", prefix).tag("result", "miss")
+                .description("缓存未命中次数").register(registry);
+        this.loadSuccess = Timer.builder("wecoding.cache.loads").tag("prefix", prefix).tag("result", "success")
+                .description("缓存加载耗时").register(registry);
+        this.loadFailure = Timer.builder("wecoding.cache.loads").tag("prefix", prefix).tag("result", "failure")
+                .description("缓存加载耗时").register(registry);
+        this.puts = Counter.builder("wecoding.cache.puts").tag("prefix", prefix)
+                .description("缓存写入次数").register(registry);
+        this.deletes = Counter.builder("wecoding.cache.deletes").tag("prefix", prefix)
+                .description("缓存删除数量").register(registry);
+        this.valueSize = DistributionSummary.builder("wecoding.cache.value.size").tag("prefix", prefix)
+                .baseUnit("bytes").publishPercentileHistogram()
+                .description("缓存值序列化后的大小").register(registry);
+    }
+
+    @Override
+    public void set(String key, T object) {
+        delegate.set(key, object);
+        recordPut(object);
+    }
+
+    @Override
+    public void set(String key, T object, long timeout) {
+        delegate.set(key, object, timeout);
+        recordPut(object);
+    }
+
+    @Override
+    public void setAll(Map<String, T> map, Duration timeout) {
+        delegate.setAll(map, timeout);
+        map.values().forEach(this::recordPut);
+    }
+
+    @Override
+    public void expireAll(Collection<String> keys, Duration timeout) {
+        delegate.expireAll(keys, timeout);
+    }
+
+    @Override
+    public List<T> getAndTouchAll(Collection<String> keys, Duration timeout) {
+        return recordFind(keys, delegate.getAndTouchAll(keys, timeout));
+    }
+
+    @Override
+    public T get(String key) {
+        recordKey(key);
+        T value = delegate.get(key);
+        (value != null ? hits : misses).increment();
+        return value;
+    }
+
+    @Override
+    public T get(String key, Supplier<T> loader) {
+        recordKey(key);
+        boolean[] loaded = new boolean[1];
+        T value = delegate.get(key, () -> {
+            loaded[0] = true;
+            long start = System.nanoTime();
+            try {
+                T result = loader.get();
+                loadSuccess.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                return result;
+            } catch (RuntimeException | Error e) {
+                loadFailure.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                throw e;
+            }
+        });
+        (loaded[0] ? misses : hits).increment();
+        return value;
+    }
+
+    @Override
+    public List<T> find(Collection<String> keys) {
+        return recordFind(keys, delegate.find(keys));
+    }
+
+    @Override
+    public Long del(String... keys) {
+        return recordEvictions(delegate.del(keys));
+    }
+
+    @Override
+    public Long del(Collection<String> keys) {
+        return recordEvictions(delegate.del(keys));
+    }
+
+    @Override
+    public void flushDb() {
+        delegate.flushDb();
+    }
+
+    @Override
+    public Boolean exists(String key) {
+        return delegate.exists(key);
+    }
+
+    @Override
+    public Long getCounter(String key) {
+        recordKey(key);
+        return delegate.getCounter(key);
+    }
+
+    @Override
+    public Long incr(String key) {
+        recordKey(key);
+        return delegate.incr(key);
+    }
+
+    @Override
+    public Long incrBy(String key, long delta) {
+        recordKey(key);
+        return delegate.incrBy(key, delta);
+    }
+
+    @Override
+    public Double incrByFloat(String key, double delta) {
+        recordKey(key);
+        return delegate.incrByFloat(key, delta);
+    }
+
+    @Override
+    public Long decr(String key) {
+        recordKey(key);
+        return delegate.decr(key);
+    }
+
+    @Override
+    public Long decrBy(String key, long delta) {
+        recordKey(key);
+        return delegate.decrBy(key, delta);
+    }
+
+    @Override
+    public String getKeyPrefix() {
+        return delegate.getKeyPrefix();
+    }
+
+    @Override
+    public String getKey(String key) {
+        return delegate.getKey(key);
+    }
+
+    /**
+     * 当前的热点 key，不含前缀
+     *
+     * @return 按估算访问次数降序排列的 key
+     */
+    public List<HotKeySampler.HotKey> getHotKeys() {
+        return hotKeySampler == null ? Collections.emptyList() : hotKeySampler.topK();
+    }
+
+    public CacheOperator<T> getDelegate() {
+        return delegate;
+    }
+
+    private void recordKey(String key) {
+        if (hotKeySampler != null) {
+            hotKeySampler.record(key);
+        }
+    }
+
+    private List<T> recordFind(Collection<String> keys, List<T> values) {
+        keys.forEach(this::recordKey);
+        long hitCount = values.stream().filter(Objects::nonNull).count();
+        hits.increment(hitCount);
+        misses.increment(keys.size() - hitCount);
+        return values;
+    }
+
+    private void recordPut(T object) {
+        puts.increment();
+        if (sizeSerializer != null && object != null) {
+            byte[] bytes = sizeSerializer.serialize(object);
+            valueSize.record(bytes == null ? 0 : bytes.length);
+        }
+    }
+
+    private Long recordEvictions(Long count) {
+        if (count != null && count > 0) {
+            deletes.increment(count);
+        }
+        return count;
+    }
+
+}
@@ -0,0 +1,65 @@
+/*
+ * Copyright (c) 2022. WeCoding (wecoding@yeah.net).
+ *
+ * Licensed under the GNU LESSER GENERAL PUBLIC LICENSE 3.0;
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.gnu.org/licenses/lgpl.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package top.wecoding.core.cache.metrics;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.AllArgsConstructor;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import top.wecoding.core.cache.serializer.CompressingRedisSerializer;
+
+/**
+ * Redis 值压缩监控指标，未开启压缩时不注册
+ *
+ * @author liuyuhui
+ * @date 2022/6/20
+ * @qq 1515418211
+ */
+@AllArgsConstructor
+public class RedisCompressionMetrics implements MeterBinder {
+
+    private final RedisSerializer<?> redisValueSerializer;
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        if (!(redisValueSerializer instanceof CompressingRedisSerializer)) {
+            return;
+        }
+        CompressingRedisSerializer serializer = (CompressingRedisSerializer) redisValueSerializer;
+        FunctionCounter.builder("wecoding.redis.compression.values", serializer, CompressingRedisSerializer::getCompressedCount)
+                .tag("result", "compressed")
+                .description("压缩的值数量")
+                .register(registry);
+        FunctionCounter.builder("wecoding.redis.compression.values", serializer, CompressingRedisSerializer::getSkippedCount)
+                .tag("result", "skipped")
+                .description("未压缩的值数量")
+                .register(registry);
+        FunctionCounter.builder("wecoding.redis.compression.bytes", serializer, CompressingRedisSerializer::getRawBytes)
+                .tag("stage", "raw")
+                .baseUnit("bytes")
+                .register(registry);
+        FunctionCounter.builder("wecoding.redis.compression.bytes", serializer, CompressingRedisSerializer::getCompressedBytes)
+                .tag("stage", "compressed")
+                .baseUnit("bytes")
+                .register(registry);
+        Gauge.builder("wecoding.redis.compression.ratio", serializer, CompressingRedisSerializer::getCompressionRatio)
+                .description("压缩后字节数 / 原始字节数")
+                .register(registry);
+    }
+
+}
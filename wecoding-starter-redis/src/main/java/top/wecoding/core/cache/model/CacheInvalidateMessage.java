@@ -0,0 +1,54 @@
+/*
+ * Copyright (c) 2022. WeCoding (wecoding@yeah.net).
+ *
+ * Licensed under the GNU LESSER GENERAL PUBLIC LICENSE 3.0;
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.gnu.org/licenses/lgpl.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package top.wecoding.core.cache.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * 本地缓存失效通知
+ *
+ * @author liuyuhui
+ * @date 2022/6/18
+ * @qq 1515418211
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CacheInvalidateMessage implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * 发送通知的节点
+     */
+    private String nodeId;
+
+    /**
+     * 缓存前缀
+     */
+    private String keyPrefix;
+
+    /**
+     * 失效的 keys，为空时清空该前缀下的全部本地缓存
+     */
+    private List<String> keys;
+
+}
@@ -0,0 +1,79 @@
+/*
+ * Copyright (c) 2022. WeCoding (wecoding@yeah.net).
+ *
+ * Licensed under the GNU LESSER GENERAL PUBLIC LICENSE 3.0;
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.gnu.org/licenses/lgpl.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package top.wecoding.core.cache.model;
+
+import lombok.Builder;
+import lombok.Getter;
+
+import java.time.Duration;
+
+/**
+ * 缓存加载选项
+ *
+ * @author liuyuhui
+ * @date 2022/6/19
+ * @qq 1515418211
+ */
+@Getter
+@Builder(toBuilder = true)
+public class CacheLoadOptions {
+
+    /**
+     * 默认选项：永不过期，只在当前进程内合并加载
+     */
+    public static final CacheLoadOptions DEFAULT = CacheLoadOptions.builder().build();
+
+    /**
+     * 缓存时长/秒，小于等于 0 时永不过期
+     */
+    @Builder.Default
+    private final long timeout = 0;
+
+    /**
+     * 加载结果为 null 时空值占位的缓存时长/秒，大于 0 时开启，一般取较短的时长，默认不缓存空值
+     */
+    @Builder.Default
+    private final long nullTimeout = 0;
+
+    /**
+     * 是否通过 Redis 锁在集群内合并加载
+     */
+    @Builder.Default
+    private final boolean distributed = false;
+
+    /**
+     * 加载锁的持有时长
+     */
+    @Builder.Default
+    private final Duration lockLease = Duration.ofSeconds(5);
+
+    /**
+     * 未获得加载锁时等待其他节点加载结果的最长时间，超时后自行加载
+     */
+    @Builder.Default
+    private final Duration waitTimeout = Duration.ofSeconds(3);
+
+    /**
+     * 提前刷新系数，大于 0 时开启概率提前刷新，一般取 1.0，越大越早刷新
+     */
+    @Builder.Default
+    private final double earlyRefreshBeta = 0;
+
+    public static CacheLoadOptions ofTimeout(long timeout) {
+        return CacheLoadOptions.builder().timeout(timeout).build();
+    }
+
+}
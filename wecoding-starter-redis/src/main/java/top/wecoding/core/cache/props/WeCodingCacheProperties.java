@@ -0,0 +1,228 @@
+/*
+ * Copyright (c) 2022. WeCoding (wecoding@yeah.net).
+ *
+ * Licensed under the GNU LESSER GENERAL PUBLIC LICENSE 3.0;
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.gnu.org/licenses/lgpl.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package top.wecoding.core.cache.props;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import top.wecoding.core.cache.serializer.SerializerType;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 缓存配置
+ *
+ * @author liuyuhui
+ * @date 2022/6/19
+ * @qq 1515418211
+ */
+@Data
+@NoArgsConstructor
+@ConfigurationProperties(prefix = WeCodingCacheProperties.PREFIX)
+public class WeCodingCacheProperties {
+
+    public static final String PREFIX = "wecoding.cache";
+
+    /**
+     * 批量操作时每个 pipeline 的命令数，默认：500
+     */
+    private int pipelineBatchSize = 500;
+
+    /**
+     * SCAN 的 COUNT 提示，默认：1000
+     */
+    private long scanCount = 1000;
+
+    /**
+     * Value 序列化配置
+     */
+    private Serializer serializer = new Serializer();
+
+    /**
+     * Value 压缩配置
+     */
+    private Compression compression = new Compression();
+
+    /**
+     * Spring Cache 本地缓存配置
+     */
+    private Local local = new Local();
+
+    /**
+     * 失效时长策略配置
+     */
+    private Ttl ttl = new Ttl();
+
+    /**
+     * Redis Streams 事件总线配置
+     */
+    private Stream stream = new Stream();
+
+    @Data
+    public static class Serializer {
+
+        /**
+         * 序列化方式，默认：JSON。切换为 KRYO 后仍可读取 JSON 格式的旧值，反之不行
+         */
+        private SerializerType type = SerializerType.JSON;
+
+        /**
+         * Kryo 注册的类，按顺序分配 ID，所有节点必须一致
+         */
+        private List<Class<?>> registrations = new ArrayList<>();
+
+    }
+
+    @Data
+    public static class Compression {
+
+        /**
+         * 是否开启压缩，默认：false。开启后仍可读取未压缩的旧值
+         */
+        private boolean enabled = false;
+
+        /**
+         * 压缩阈值/字节，序列化结果小于该值时不压缩，默认：1024
+         */
+        private int threshold = 1024;
+
+    }
+
+    @Data
+    public static class Local {
+
+        /**
+         * 是否为 @Cacheable 开启本地缓存 + Redis 二级缓存，默认：false
+         */
+        private boolean enabled = false;
+
+        /**
+         * 每个缓存名称的本地缓存最大数量，默认：1000
+         */
+        private long maximumSize = 1000;
+
+        /**
+         * 本地缓存失效时长，默认：1分钟。其他节点的失效通知丢失时，最多读到该时长内的旧值
+         */
+        private Duration timeToLive = Duration.ofMinutes(1);
+
+        /**
+         * 按缓存名称单独配置，未配置的项使用上面的默认值
+         */
+        private Map<String, LocalCacheSpec> caches = new LinkedHashMap<>();
+
+    }
+
+    @Data
+    public static class Ttl {
+
+        /**
+         * 失效时长随机延长的比例，如 0.1 表示在原时长基础上随机延长 0~10%，默认：0 不抖动
+         */
+        private double jitter = 0;
+
+        /**
+         * 按 key 前缀覆盖失效时长，同时作用于 CacheOperator 与 @Cacheable，优先匹配最长的前缀
+         */
+        private Map<String, Duration> rules = new LinkedHashMap<>();
+
+    }
+
+    @Data
+    public static class Stream {
+
+        /**
+         * 是否开启 Redis Streams 事件发送、消费，默认：false
+         */
+        private boolean enabled = false;
+
+        /**
+         * 消费者名称前缀，重启后保持不变以复用消费者组中的消费者，默认：主机名
+         */
+        private String consumerName;
+
+        /**
+         * 每个 stream 保留的大致消息数，超出后近似裁剪，默认：100000
+         */
+        private long maxLen = 100_000;
+
+        /**
+         * 发送端每批合并提交的消息数，默认：100
+         */
+        private int batchSize = 100;
+
+        /**
+         * 发送端凑批的最长等待时间，默认：10毫秒
+         */
+        private Duration linger = Duration.ofMillis(10);
+
+        /**
+         * 发送端缓冲的消息数上限，默认：10000
+         */
+        private int bufferSize = 10_000;
+
+        /**
+         * 缓冲区已满时发送方的最长等待时间，超时后抛出异常，默认：1秒
+         */
+        private Duration publishTimeout = Duration.ofSeconds(1);
+
+        /**
+         * 消费端每次读取的消息数，处理完后再读取下一批，默认：10
+         */
+        private int readCount = 10;
+
+        /**
+         * 消费端阻塞读取的超时时间，默认：2秒
+         */
+        private Duration pollTimeout = Duration.ofSeconds(2);
+
+        /**
+         * 检查未确认消息的间隔，默认：30秒
+         */
+        private Duration claimInterval = Duration.ofSeconds(30);
+
+        /**
+         * 消息未确认超过该时长后被其他消费者认领重试，默认：1分钟
+         */
+        private Duration claimIdle = Duration.ofMinutes(1);
+
+        /**
+         * 最大投递次数，超过后转入死信 stream({stream}:dlq) 并确认，默认：5
+         */
+        private int maxDeliveries = 5;
+
+    }
+
+    @Data
+    public static class LocalCacheSpec {
+
+        /**
+         * 本地缓存最大数量
+         */
+        private Long maximumSize;
+
+        /**
+         * 本地缓存失效时长
+         */
+        private Duration timeToLive;
+
+    }
+
+}
@@ -0,0 +1,167 @@
+/*
+ * Copyright (c) 2022. WeCoding (wecoding@yeah.net).
+ *
+ * Licensed under the GNU LESSER GENERAL PUBLIC LICENSE 3.0;
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.gnu.org/licenses/lgpl.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package top.wecoding.core.cache.serializer;
+
+import net.jpountz.lz4.LZ4Compressor;
+import net.jpountz.lz4.LZ4Factory;
+import net.jpountz.lz4.LZ4FastDecompressor;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * LZ4 压缩装饰器
+ * <p>
+ * 序列化结果不小于 {@code threshold} 字节时压缩，格式：[0xFD][算法][原始长度 4 字节][压缩数据]。
+ * 小值、压缩无收益的值以及没有该头部的旧值原样读写
+ *
+ * @author liuyuhui
+ * @date 2022/6/20
+ * @qq 1515418211
+ */
+public class CompressingRedisSerializer implements RedisSerializer<Object> {
+
+    /**
+     * 头部标记，不是合法的 UTF-8 首字节，与 Kryo 头部 0xFE 区分
+     */
+    public static final byte MAGIC = (byte) 0xFD;
+
+    private static final byte ALGORITHM_LZ4 = 1;
+
+    private static final int HEADER_LENGTH = 6;
+
+    /**
+     * LZ4 的最大压缩比，原始长度超过压缩数据长度的该倍数时头部必然已损坏
+     */
+    private static final int MAX_COMPRESSION_RATIO = 255;
+
+    private final RedisSerializer<Object> delegate;
+
+    private final int threshold;
+
+    private final LZ4Compressor compressor;
+
+    private final LZ4FastDecompressor decompressor;
+
+    private final LongAdder compressedCount = new LongAdder();
+
+    private final LongAdder skippedCount = new LongAdder();
+
+    private final LongAdder rawBytes = new LongAdder();
+
+    private final LongAdder compressedBytes = new LongAdder();
+
+    /**
+     * @param delegate  实际的序列化
+     * @param threshold 压缩阈值/字节
+     */
+    public CompressingRedisSerializer(RedisSerializer<Object> delegate, int threshold) {
+        this.delegate = delegate;
+        this.threshold = threshold;
+        LZ4Factory factory = LZ4Factory.fastestInstance();
+        this.compressor = factory.fastCompressor();
+        this.decompressor = factory.fastDecompressor();
+    }
+
+    @Override
+    public byte[] serialize(Object object) throws SerializationException {
+        byte[] raw = delegate.serialize(object);
+        if (raw == null || raw.length < threshold) {
+            skippedCount.increment();
+            return raw;
+        }
+
+        byte[] buffer = new byte[HEADER_LENGTH + compressor.maxCompressedLength(raw.length)];
+        int length = compressor.compress(raw, 0, raw.length, buffer, HEADER_LENGTH);
+        if (HEADER_LENGTH + length >= raw.length) {
+            skippedCount.increment();
+            return raw;
+        }
+        buffer[0] = MAGIC;
+        buffer[1] = ALGORITHM_LZ4;
+        buffer[2] = (byte) (raw.length >>> 24);
+        buffer[3] = (byte) (raw.length >>> 16);
+        buffer[4] = (byte) (raw.length >>> 8);
+        buffer[5] = (byte) raw.length;
+
+        compressedCount.increment();
+        rawBytes.add(raw.length);
+        compressedBytes.add(HEADER_LENGTH + length);
+
+        byte[] result = new byte[HEADER_LENGTH + length];
+        System.arraycopy(buffer, 0, result, 0, result.length);
+        return result;
+    }
+
+    @Override
+    public Object deserialize(byte[] bytes) throws SerializationException {
+        if (bytes == null || bytes.length <= HEADER_LENGTH || bytes[0] != MAGIC || bytes[1] != ALGORITHM_LZ4) {
+            return delegate.deserialize(bytes);
+        }
+        int rawLength = ((bytes[2] & 0xFF) << 24) | ((bytes[3] & 0xFF) << 16) | ((bytes[4] & 0xFF) << 8) | (bytes[5] & 0xFF);
+        // 避免按损坏的长度分配内存
+        if (rawLength <= 0 || (long) rawLength > (long) (bytes.length - HEADER_LENGTH) * MAX_COMPRESSION_RATIO) {
+            throw new SerializationException("LZ4 压缩数据头部已损坏, 原始长度: " + rawLength);
+        }
+        try {
+            byte[] raw = new byte[rawLength];
+            decompressor.decompress(bytes, HEADER_LENGTH, raw, 0, rawLength);
+            return delegate.deserialize(raw);
+        } catch (SerializationException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new SerializationException("LZ4 解压失败", e);
+        }
+    }
+
+    /**
+     * 压缩的值数量
+     */
+    public long getCompressedCount() {
+        return compressedCount.sum();
+    }
+
+    /**
+     * 未压缩的值数量（小于阈值或压缩无收益）
+     */
+    public long getSkippedCount() {
+        return skippedCount.sum();
+    }
+
+    /**
+     * 已压缩值的原始字节数
+     */
+    public long getRawBytes() {
+        return rawBytes.sum();
+    }
+
+    /**
+     * 已压缩值压缩后的字节数
+     */
+    public long getCompressedBytes() {
+        return compressedBytes.sum();
+    }
+
+    /**
+     * 压缩率，压缩后字节数 / 原始字节数，没有压缩过时返回 1
+     */
+    public double getCompressionRatio() {
+        long raw = rawBytes.sum();
+        return raw == 0 ? 1D : (double) compressedBytes.sum() / raw;
+    }
+
+}
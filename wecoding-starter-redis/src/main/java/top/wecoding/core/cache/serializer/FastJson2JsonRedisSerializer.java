@@ -52,7 +52,7 @@ public class FastJson2JsonRedisSerializer<T> implements RedisSerializer<T> {
         if (object == null) {
             return new byte[0];
         }
-        return JSON.toJSONString(object, SerializerFeature.WriteClassName).getBytes(DEFAULT_CHARSET);
+        return JSON.toJSONBytes(object, SerializerFeature.WriteClassName);
     }
 
     @Override
@@ -60,8 +60,7 @@ public class FastJson2JsonRedisSerializer<T> implements RedisSerializer<T> {
         if (bytes == null || bytes.length <= 0) {
             return null;
         }
-        String str = new String(bytes, DEFAULT_CHARSET);
-        return JSON.parseObject(str, clazz);
+        return JSON.parseObject(bytes, clazz);
     }
 
     public void setObjectMapper(ObjectMapper objectMapper) {
@@ -0,0 +1,130 @@
+/*
+ * Copyright (c) 2022. WeCoding (wecoding@yeah.net).
+ *
+ * Licensed under the GNU LESSER GENERAL PUBLIC LICENSE 3.0;
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.gnu.org/licenses/lgpl.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package top.wecoding.core.cache.serializer;
+
+import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.io.Input;
+import com.esotericsoftware.kryo.io.Output;
+import com.esotericsoftware.kryo.util.DefaultInstantiatorStrategy;
+import com.esotericsoftware.kryo.util.Pool;
+import org.objenesis.strategy.StdInstantiatorStrategy;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Kryo 二进制序列化
+ * <p>
+ * 格式：[0xFE][版本][Kryo 数据]。没有该头部的值按 JSON 旧格式读取，便于从 JSON 迁移；
+ * 整数直接写为十进制文本，保证 INCR 等命令可以继续使用。
+ * 各节点注册的类及顺序必须一致
+ *
+ * @author liuyuhui
+ * @date 2022/6/20
+ * @qq 1515418211
+ */
+public class KryoRedisSerializer implements RedisSerializer<Object> {
+
+    /**
+     * 头部标记，不是合法的 UTF-8 首字节，不会与 JSON 旧值冲突
+     */
+    public static final byte MAGIC = (byte) 0xFE;
+
+    /**
+     * 当前格式版本
+     */
+    public static final byte VERSION = 1;
+
+    private static final int HEADER_LENGTH = 2;
+
+    private static final int POOL_SIZE = 64;
+
+    private final RedisSerializer<Object> legacySerializer;
+
+    private final Pool<Kryo> kryoPool;
+
+    public KryoRedisSerializer() {
+        this(Collections.emptyList(), new FastJson2JsonRedisSerializer<>(Object.class));
+    }
+
+    /**
+     * @param registrations    注册的类，按顺序分配 ID
+     * @param legacySerializer 读取旧格式的序列化器
+     */
+    public KryoRedisSerializer(List<Class<?>> registrations, RedisSerializer<Object> legacySerializer) {
+        this.legacySerializer = legacySerializer;
+        this.kryoPool = new Pool<Kryo>(true, false, POOL_SIZE) {
+            @Override
+            protected Kryo create() {
+                Kryo kryo = new Kryo();
+                kryo.setRegistrationRequired(false);
+                kryo.setReferences(true);
+                kryo.setInstantiatorStrategy(new DefaultInstantiatorStrategy(new StdInstantiatorStrategy()));
+                registrations.forEach(kryo::register);
+                return kryo;
+            }
+        };
+    }
+
+    @Override
+    public byte[] serialize(Object object) throws SerializationException {
+        if (object == null) {
+            return new byte[0];
+        }
+        if (object instanceof Long || object instanceof Integer || object instanceof Short || object instanceof Byte) {
+            return object.toString().getBytes(StandardCharsets.US_ASCII);
+        }
+
+        Kryo kryo = kryoPool.obtain();
+        try (Output output = new Output(256, -1)) {
+            output.writeByte(MAGIC);
+            output.writeByte(VERSION);
+            kryo.writeClassAndObject(output, object);
+            return output.toBytes();
+        } catch (Exception e) {
+            throw new SerializationException("Kryo 序列化失败: " + object.getClass().getName(), e);
+        } finally {
+            kryoPool.free(kryo);
+        }
+    }
+
+    @Override
+    public Object deserialize(byte[] bytes) throws SerializationException {
+        if (bytes == null || bytes.length == 0) {
+            return null;
+        }
+        if (!isKryo(bytes)) {
+            return legacySerializer.deserialize(bytes);
+        }
+
+        Kryo kryo = kryoPool.obtain();
+        try (Input input = new Input(bytes, HEADER_LENGTH, bytes.length - HEADER_LENGTH)) {
+            return kryo.readClassAndObject(input);
+        } catch (Exception e) {
+            throw new SerializationException("Kryo 反序列化失败", e);
+        } finally {
+            kryoPool.free(kryo);
+        }
+    }
+
+    private static boolean isKryo(byte[] bytes) {
+        return bytes.length > HEADER_LENGTH && bytes[0] == MAGIC && bytes[1] == VERSION;
+    }
+
+}
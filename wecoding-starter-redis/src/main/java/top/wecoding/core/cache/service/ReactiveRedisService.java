@@ -0,0 +1,604 @@
+/*
+ * Copyright (c) 2022. WeCoding (wecoding@yeah.net).
+ *
+ * Licensed under the GNU LESSER GENERAL PUBLIC LICENSE 3.0;
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.gnu.org/licenses/lgpl.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package top.wecoding.core.cache.service;
+
+import lombok.Getter;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Range;
+import org.springframework.data.redis.core.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import top.wecoding.core.cache.support.SingleFlight;
+import top.wecoding.core.exception.Assert;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * spring redis 响应式工具类
+ * <p>
+ * 与 {@link RedisService} 使用相同的序列化方式，两者写入的数据可以互相读取。
+ * 所有操作立即返回 Mono/Flux，订阅后才发送命令，不占用调用线程等待 Redis 响应
+ *
+ * @author liuyuhui
+ * @date 2022/6/21
+ * @qq 1515418211
+ */
+@Slf4j
+@Getter
+@SuppressWarnings({"unused", "SpellCheckingInspection", "unchecked"})
+public class ReactiveRedisService {
+
+    private final ReactiveRedisTemplate<String, Object> reactiveRedisTemplate;
+    private final ReactiveValueOperations<String, Object> valueOps;
+    private final ReactiveHashOperations<String, Object, Object> hashOps;
+    private final ReactiveListOperations<String, Object> listOps;
+    private final ReactiveSetOperations<String, Object> setOps;
+    private final ReactiveZSetOperations<String, Object> zSetOps;
+
+    private final SingleFlight singleFlight = new SingleFlight();
+
+    /**
+     * SCAN 的 COUNT 提示
+     */
+    @Setter
+    private long scanCount = 1000;
+
+    public ReactiveRedisService(ReactiveRedisTemplate<String, Object> reactiveRedisTemplate) {
+        Assert.notNull(reactiveRedisTemplate, " >>> reactiveRedisTemplate 不能为空.");
+        this.reactiveRedisTemplate = reactiveRedisTemplate;
+        this.valueOps = reactiveRedisTemplate.opsForValue();
+        this.hashOps = reactiveRedisTemplate.opsForHash();
+        this.listOps = reactiveRedisTemplate.opsForList();
+        this.setOps = reactiveRedisTemplate.opsForSet();
+        this.zSetOps = reactiveRedisTemplate.opsForZSet();
+    }
+
+    //============================Common Start=============================//
+
+    /**
+     * 设置有效时间
+     *
+     * @param key     键
+     * @param seconds 超时时间/秒，小于等于 0 时不做处理
+     * @return 操作结果
+     */
+    public Mono<Boolean> expire(final String key, final long seconds) {
+        return seconds > 0 ? reactiveRedisTemplate.expire(key, Duration.ofSeconds(seconds)) : Mono.just(true);
+    }
+
+    /**
+     * 获取过期时间
+     *
+     * @param key 键
+     * @return 剩余时长，key 不存在或永不过期时为空
+     */
+    public Mono<Duration> getExpire(final String key) {
+        return reactiveRedisTemplate.getExpire(key);
+    }
+
+    /**
+     * 删除一个或多个 key
+     *
+     * @param keys 缓存 keys
+     * @return 删除的数量
+     */
+    public Mono<Long> del(final String... keys) {
+        return keys.length == 0 ? Mono.just(0L) : reactiveRedisTemplate.delete(keys);
+    }
+
+    /**
+     * 删除一个或多个 key
+     *
+     * @param keys 缓存 keys
+     * @return 删除的数量
+     */
+    public Mono<Long> del(final Collection<String> keys) {
+        return del(keys.toArray(new String[0]));
+    }
+
+    /**
+     * 异步删除一个或多个 key
+     *
+     * @param keys 缓存 keys
+     * @return 删除的数量
+     */
+    public Mono<Long> unlink(final String... keys) {
+        return keys.length == 0 ? Mono.just(0L) : reactiveRedisTemplate.unlink(keys);
+    }
+
+    /**
+     * 判断 key 是否存在
+     *
+     * @param key 键
+     * @return true 存在 false不存在
+     */
+    public Mono<Boolean> hasKey(final String key) {
+        return reactiveRedisTemplate.hasKey(key);
+    }
+
+    /**
+     * 以 {@code scanCount} 为 COUNT 提示，惰性遍历符合给定模式 pattern 的 key
+     *
+     * @param pattern 表达式
+     * @return key 流
+     */
+    public Flux<String> scan(final String pattern) {
+        return reactiveRedisTemplate.scan(ScanOptions.scanOptions().match(pattern).count(scanCount).build());
+    }
+
+    //============================String=============================//
+
+    /**
+     * 获取缓存
+     *
+     * @param key 键
+     * @return 值，不存在时为空
+     */
+    public <T> Mono<T> get(final String key) {
+        return valueOps.get(key).flatMap(value -> Mono.justOrEmpty(RedisService.<T>unwrapNull(value)));
+    }
+
+    /**
+     * 获取缓存，不存在时通过 loader 加载并放入缓存
+     * <p>
+     * 同一个 key 在本节点同一时刻只加载一次，其余订阅共享该结果
+     *
+     * @param key    键
+     * @param loader 异步加载器，返回空时不缓存
+     * @param time   时间(秒) 小于等于 0 时永不过期
+     * @return 值
+     */
+    public <T> Mono<T> get(final String key, final Supplier<Mono<T>> loader, final long time) {
+        // 缓存的空值占位视为命中，不再加载
+        return valueOps.get(key)
+                .switchIfEmpty(Mono.defer(() -> Mono.<Object>fromFuture(singleFlight.<T>executeAsync(key, () ->
+                        loader.get()
+                                .flatMap(value -> set(key, value, time).thenReturn(value))
+                                .toFuture()))))
+                .flatMap(value -> Mono.justOrEmpty(RedisService.<T>unwrapNull(value)));
+    }
+
+    /**
+     * 批量获取缓存
+     *
+     * @param keys 键
+     * @return 按给定 keys 顺序排列的值，不存在的 key 对应 null
+     */
+    public <T> Mono<List<T>> mGet(final Collection<String> keys) {
+        return valueOps.multiGet(keys).map(values -> {
+            List<T> result = new ArrayList<>(values.size());
+            values.forEach(value -> result.add(RedisService.unwrapNull(value)));
+            return result;
+        });
+    }
+
+    /**
+     * 放入缓存
+     *
+     * @param key   键
+     * @param value 值
+     * @return 操作结果
+     */
+    public Mono<Boolean> set(final String key, final Object value) {
+        return valueOps.set(key, value);
+    }
+
+    /**
+     * 放入缓存并设置时间
+     *
+     * @param key   键
+     * @param value 值
+     * @param time  时间(秒) 小于等于 0 时永不过期
+     * @return 操作结果
+     */
+    public Mono<Boolean> set(final String key, final Object value, final long time) {
+        return time > 0 ? valueOps.set(key, value, Duration.ofSeconds(time)) : valueOps.set(key, value);
+    }
+
+    /**
+     * key 不存在时放入缓存并设置时间
+     *
+     * @param key   键
+     * @param value 值
+     * @param time  时间(秒) 小于等于 0 时永不过期
+     * @return 是否放入
+     */
+    public Mono<Boolean> setNx(final String key, final Object value, final long time) {
+        return time > 0 ? valueOps.setIfAbsent(key, value, Duration.ofSeconds(time)) : valueOps.setIfAbsent(key, value);
+    }
+
+    /**
+     * 将 key 中储存的数字值增一
+     *
+     * @param key 键
+     * @return 执行 INCR 命令之后 key 的值
+     */
+    public Mono<Long> incr(final String key) {
+        return valueOps.increment(key);
+    }
+
+    /**
+     * 将 key 所储存的值加上增量 delta
+     *
+     * @param key   键
+     * @param delta 要增加几(大于0)
+     * @return 执行 INCRBY 命令之后 key 的值
+     */
+    public Mono<Long> incrBy(final String key, final long delta) {
+        Assert.isTrue(delta > 0, "递增因子必须大于0");
+        return valueOps.increment(key, delta);
+    }
+
+    /**
+     * 将 key 所储存的值加上浮点数增量 delta
+     *
+     * @param key   键
+     * @param delta 增量
+     * @return 执行 INCRBYFLOAT 命令之后 key 的值
+     */
+    public Mono<Double> incrByFloat(final String key, final double delta) {
+        return valueOps.increment(key, delta);
+    }
+
+    /**
+     * 将 key 中储存的数字值减一
+     *
+     * @param key 键
+     * @return 执行 DECR 命令之后 key 的值
+     */
+    public Mono<Long> decr(final String key) {
+        return valueOps.decrement(key);
+    }
+
+    /**
+     * 将 key 所储存的值减去减量 delta
+     *
+     * @param key   键
+     * @param delta 要减少几(大于0)
+     * @return 执行 DECRBY 命令之后 key 的值
+     */
+    public Mono<Long> decrBy(final String key, final long delta) {
+        Assert.isTrue(delta > 0, "递减因子必须大于0");
+        return valueOps.decrement(key, delta);
+    }
+
+    /**
+     * 获取记数器的值
+     *
+     * @param key 键
+     * @return 计数器的值，不存在时为空
+     */
+    public Mono<Long> getCounter(final String key) {
+        return valueOps.get(key).map(value -> Long.valueOf(String.valueOf(value)));
+    }
+
+    // ---------------------------- hash start ----------------------------//
+
+    /**
+     * HashGet
+     *
+     * @param key  键
+     * @param item 项
+     * @return 值
+     */
+    public <T> Mono<T> hGet(final String key, final String item) {
+        return cast(hashOps.get(key, item));
+    }
+
+    /**
+     * 获取多个 hashKey 对应的值
+     *
+     * @param key      键
+     * @param hashKeys 项
+     * @return 按给定 hashKeys 顺序排列的值
+     */
+    public <T> Mono<List<T>> hmGet(final String key, final Object... hashKeys) {
+        return cast(hashOps.multiGet(key, Arrays.asList(hashKeys)));
+    }
+
+    /**
+     * 获取 hashKey 对应的所有键值
+     *
+     * @param key 键
+     * @return 对应的多个键值
+     */
+    public <K, V> Mono<Map<K, V>> hGetAll(final String key) {
+        return cast(hashOps.entries(key).collectMap(Map.Entry::getKey, Map.Entry::getValue));
+    }
+
+    /**
+     * 向一张 hash 表中放入数据，如果不存在将创建
+     *
+     * @param key   键
+     * @param item  项
+     * @param value 值
+     * @return 操作结果
+     */
+    public Mono<Boolean> hSet(final String key, final String item, final Object value) {
+        return hashOps.put(key, item, value);
+    }
+
+    /**
+     * 向一张 hash 表中放入多个数据，如果不存在将创建
+     *
+     * @param key 键
+     * @param map 对应多个键值
+     * @return 操作结果
+     */
+    public Mono<Boolean> hmSet(final String key, final Map<String, Object> map) {
+        return hashOps.putAll(key, map);
+    }
+
+    /**
+     * 删除 hash 表中的值
+     *
+     * @param key  键
+     * @param item 项
+     * @return 删除的数量
+     */
+    public Mono<Long> hDel(final String key, final Object... item) {
+        return hashOps.remove(key, item);
+    }
+
+    /**
+     * 判断 hash 表中是否有该项的值
+     *
+     * @param key  键
+     * @param item 项
+     * @return true 存在 false不存在
+     */
+    public Mono<Boolean> hHasKey(final String key, final String item) {
+        return hashOps.hasKey(key, item);
+    }
+
+    /**
+     * 为哈希表 key 中的域 field 的值加上增量 delta
+     *
+     * @param key   键
+     * @param field 域
+     * @param delta 增量
+     * @return 执行 HINCRBY 命令之后，哈希表 key 中域 field 的值
+     */
+    public Mono<Long> hIncrBy(final String key, final String field, final long delta) {
+        return hashOps.increment(key, field, delta);
+    }
+
+    // ---------------------------- set start ----------------------------//
+
+    /**
+     * 将一个或多个 member 元素加入到集合 key 当中
+     *
+     * @param key    键
+     * @param values 值
+     * @return 新增的数量
+     */
+    public Mono<Long> sAdd(final String key, final Object... values) {
+        return setOps.add(key, values);
+    }
+
+    /**
+     * 判断 member 元素是否集合 key 的成员
+     *
+     * @param key    键
+     * @param member 元素
+     * @return 是否为成员
+     */
+    public Mono<Boolean> sIsMember(final String key, final Object member) {
+        return setOps.isMember(key, member);
+    }
+
+    /**
+     * 返回集合 key 中的所有成员
+     *
+     * @param key 键
+     * @return 成员
+     */
+    public <V> Flux<V> sMembers(final String key) {
+        return (Flux<V>) setOps.members(key);
+    }
+
+    /**
+     * 移除集合 key 中的一个或多个 member 元素
+     *
+     * @param key     键
+     * @param members 元素
+     * @return 移除的数量
+     */
+    public Mono<Long> sRem(final String key, final Object... members) {
+        return setOps.remove(key, members);
+    }
+
+    /**
+     * 返回集合 key 的基数(集合中元素的数量)
+     *
+     * @param key 键
+     * @return 元素数量
+     */
+    public Mono<Long> sCard(final String key) {
+        return setOps.size(key);
+    }
+
+    // ---------------------------- list start ----------------------------//
+
+    /**
+     * 将值插入到列表 key 的表头
+     *
+     * @param key   键
+     * @param value 值
+     * @return 列表的长度
+     */
+    public Mono<Long> lPush(final String key, final Object value) {
+        return listOps.leftPush(key, value);
+    }
+
+    /**
+     * 将值插入到列表 key 的表尾
+     *
+     * @param key   键
+     * @param value 值
+     * @return 列表的长度
+     */
+    public Mono<Long> rPush(final String key, final Object value) {
+        return listOps.rightPush(key, value);
+    }
+
+    /**
+     * 移除并返回列表 key 的头元素
+     *
+     * @param key 键
+     * @return 头元素
+     */
+    public <T> Mono<T> lPop(final String key) {
+        return cast(listOps.leftPop(key));
+    }
+
+    /**
+     * 移除并返回列表 key 的尾元素
+     *
+     * @param key 键
+     * @return 尾元素
+     */
+    public <T> Mono<T> rPop(final String key) {
+        return cast(listOps.rightPop(key));
+    }
+
+    /**
+     * 返回列表 key 中指定区间内的元素
+     *
+     * @param key   键
+     * @param start 开始
+     * @param end   结束 0 到 -1 代表所有值
+     * @return 元素
+     */
+    public <V> Flux<V> lRange(final String key, final long start, final long end) {
+        return (Flux<V>) listOps.range(key, start, end);
+    }
+
+    /**
+     * 返回列表 key 的长度
+     *
+     * @param key 键
+     * @return 长度
+     */
+    public Mono<Long> lLen(final String key) {
+        return listOps.size(key);
+    }
+
+    // ---------------------------- zset start ----------------------------//
+
+    /**
+     * 将 member 元素及其 score 值加入到有序集 key 当中
+     *
+     * @param key    键
+     * @param member 元素
+     * @param score  分数
+     * @return 是否新增
+     */
+    public Mono<Boolean> zAdd(final String key, final Object member, final double score) {
+        return zSetOps.add(key, member, score);
+    }
+
+    /**
+     * 为有序集 key 的成员 member 的 score 值加上增量 delta
+     *
+     * @param key    键
+     * @param member 元素
+     * @param delta  增量
+     * @return member 成员的新 score 值
+     */
+    public Mono<Double> zIncrBy(final String key, final Object member, final double delta) {
+        return zSetOps.incrementScore(key, member, delta);
+    }
+
+    /**
+     * 返回有序集 key 中，成员 member 的 score 值
+     *
+     * @param key    键
+     * @param member 元素
+     * @return score 值
+     */
+    public Mono<Double> zScore(final String key, final Object member) {
+        return zSetOps.score(key, member);
+    }
+
+    /**
+     * 返回有序集 key 中，指定区间内的成员，按 score 值递增排序
+     *
+     * @param key   键
+     * @param start 开始
+     * @param end   结束 -1 代表最后一个
+     * @return 成员
+     */
+    public <V> Flux<V> zRange(final String key, final long start, final long end) {
+        return (Flux<V>) zSetOps.range(key, Range.closed(start, end));
+    }
+
+    /**
+     * 返回有序集 key 中，指定区间内的成员，按 score 值递减排序
+     *
+     * @param key   键
+     * @param start 开始
+     * @param end   结束 -1 代表最后一个
+     * @return 成员
+     */
+    public <V> Flux<V> zRevRange(final String key, final long start, final long end) {
+        return (Flux<V>) zSetOps.reverseRange(key, Range.closed(start, end));
+    }
+
+    /**
+     * 返回有序集 key 中成员 member 的排名，按 score 值递增排序
+     *
+     * @param key    键
+     * @param member 元素
+     * @return 排名
+     */
+    public Mono<Long> zRank(final String key, final Object member) {
+        return zSetOps.rank(key, member);
+    }
+
+    /**
+     * 移除有序集 key 中的一个或多个成员
+     *
+     * @param key     键
+     * @param members 元素
+     * @return 移除的数量
+     */
+    public Mono<Long> zRem(final String key, final Object... members) {
+        return zSetOps.remove(key, members);
+    }
+
+    /**
+     * 返回有序集 key 的基数
+     *
+     * @param key 键
+     * @return 元素数量
+     */
+    public Mono<Long> zCard(final String key) {
+        return zSetOps.size(key);
+    }
+
+    private static <T> Mono<T> cast(Mono<?> mono) {
+        return (Mono<T>) mono;
+    }
+
+}
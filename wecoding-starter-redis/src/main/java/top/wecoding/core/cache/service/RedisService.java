@@ -15,21 +15,41 @@
  */
 package top.wecoding.core.cache.service;
 
+import cn.hutool.core.collection.ListUtil;
+import cn.hutool.core.lang.Pair;
+import cn.hutool.core.util.IdUtil;
 import cn.hutool.core.util.ObjectUtil;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.AccessLevel;
 import lombok.Getter;
+import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.data.redis.connection.ClusterSlotHashUtil;
 import org.springframework.data.redis.connection.DataType;
+import org.springframework.data.redis.connection.RedisClusterConnection;
 import org.springframework.data.redis.connection.RedisConnection;
 import org.springframework.data.redis.core.*;
+import org.springframework.data.redis.serializer.RedisSerializer;
 import top.wecoding.core.cache.base.CacheKey;
+import top.wecoding.core.cache.lock.DistributedLock;
+import top.wecoding.core.cache.lock.RedisLockFactory;
+import top.wecoding.core.cache.model.CacheLoadOptions;
+import top.wecoding.core.cache.support.RedisScriptRegistry;
+import top.wecoding.core.cache.support.SingleFlight;
+import top.wecoding.core.constant.StrPool;
 import top.wecoding.core.exception.Assert;
 
+import java.nio.charset.StandardCharsets;
 import java.time.Duration;
 import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.TimeUnit;
-import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.function.Supplier;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * spring redis 工具类
@@ -49,6 +69,72 @@ public class RedisService {
     private final SetOperations<String, Object> setOps;
     private final ZSetOperations<String, Object> zSetOps;
 
+    /**
+     * 加载锁后缀
+     */
+    private static final String LOAD_LOCK_SUFFIX = ":load_lock";
+
+    /**
+     * 空值占位，加载结果为 null 时写入该值，不存在的 key 不会每次都穿透到数据源
+     */
+    public static final String NULL_VALUE = "@wecoding:null";
+
+    /**
+     * 没有加载耗时记录时，提前刷新使用的默认耗时/毫秒
+     */
+    private static final long DEF_LOAD_COST_MILLIS = 100;
+
+    /**
+     * 版本号 key 后缀
+     */
+    public static final String VERSION_SUFFIX = ":version";
+
+    /**
+     * 批量操作时每个 pipeline 的命令数
+     */
+    @Setter
+    private int pipelineBatchSize = 500;
+
+    /**
+     * SCAN 的 COUNT 提示
+     */
+    @Setter
+    private long scanCount = 1000;
+
+    @Getter(AccessLevel.NONE)
+    private final SingleFlight singleFlight = new SingleFlight();
+
+    private final RedisScriptRegistry scriptRegistry = new RedisScriptRegistry();
+
+    /**
+     * 分布式锁，设置后集群内合并加载使用锁释放通知代替轮询
+     */
+    @Setter
+    @Getter(AccessLevel.NONE)
+    private volatile RedisLockFactory lockFactory;
+
+    /**
+     * 容器中的分布式锁，首次合并加载时获取，避免与 {@link RedisLockFactory} 循环依赖
+     */
+    @Setter
+    @Getter(AccessLevel.NONE)
+    private volatile ObjectProvider<RedisLockFactory> lockFactoryProvider;
+
+    /**
+     * 最近的加载耗时/毫秒，用于概率提前刷新
+     */
+    @Getter(AccessLevel.NONE)
+    private final Cache<String, Long> loadCosts = Caffeine.newBuilder()
+            .maximumSize(10_000)
+            .expireAfterWrite(1, TimeUnit.HOURS)
+            .build();
+
+    /**
+     * 是否连接 Redis Cluster，首次使用时判断
+     */
+    @Getter(AccessLevel.NONE)
+    private volatile Boolean clusterMode;
+
     public RedisService(RedisTemplate<String, Object> redisTemplate, StringRedisTemplate stringRedisTemplate) {
         Assert.notNull(redisTemplate, " >>> redisTemplate 不能为空.");
         this.redisTemplate = redisTemplate;
@@ -215,7 +301,25 @@ public class RedisService {
      * @return 操作结果
      */
     public Long del(Collection<String> keys) {
-        return redisTemplate.delete(keys);
+        if (keys == null || keys.isEmpty()) {
+            return 0L;
+        }
+        if (!isCluster()) {
+            return redisTemplate.delete(keys);
+        }
+        List<byte[]> rawKeys = keys.stream().map(this::rawKey).collect(Collectors.toList());
+        Collection<List<Integer>> slots = groupBySlot(rawKeys);
+        if (slots.size() == 1) {
+            return redisTemplate.delete(keys);
+        }
+        // 集群模式下每个 slot 一条 DEL，在同一个 pipeline 中并行发往各节点
+        List<Object> results = redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            for (List<Integer> slot : slots) {
+                connection.del(toRawKeys(rawKeys, slot));
+            }
+            return null;
+        });
+        return results.stream().mapToLong(result -> result == null ? 0L : (Long) result).sum();
     }
 
     /**
@@ -257,35 +361,118 @@ public class RedisService {
      * KEYS h*llo 匹配 hllo 和 heeeeello 等。
      * KEYS h[ae]llo 匹配 hello 和 hallo ，但不匹配 hillo 。
      * <p>
-     * 特殊符号用 \ 隔开
+     * 特殊符号用 \ 隔开。结果全部放入内存，key 较多时使用 {@link #scanStream(String)}
      *
      * @param pattern 表达式
      * @return 符合给定模式的 key 列表
      */
     public List<String> scan(final String pattern) {
-        List<String> keyList = new ArrayList<>();
-        scan(pattern, item -> {
-            Object key = redisTemplate.getKeySerializer().deserialize(item);
-            if (ObjectUtil.isNotEmpty(key)) {
-                keyList.add(String.valueOf(key));
-            }
-        });
-        return keyList;
+        try (Stream<String> keys = scanStream(pattern)) {
+            return keys.collect(Collectors.toList());
+        }
     }
 
     /**
-     * scan
+     * 以 {@code scanCount} 为 COUNT 提示，惰性遍历符合给定模式 pattern 的 key
      *
-     * @param pattern  表达式
-     * @param consumer 对每个 key 进行的操作
+     * @param pattern 表达式
+     * @return key 流，使用完毕后需要关闭以释放连接
+     * @see #scanStream(String, long)
      */
-    private void scan(final String pattern, Consumer<byte[]> consumer) {
-        redisTemplate.execute((RedisConnection connection) -> {
-            try (Cursor<byte[]> cursor = connection.scan(ScanOptions.scanOptions().match(pattern).build())) {
-                cursor.forEachRemaining(consumer);
-                return null;
+    public Stream<String> scanStream(final String pattern) {
+        return scanStream(pattern, scanCount);
+    }
+
+    /**
+     * 惰性遍历符合给定模式 pattern 的 key
+     * <p>
+     * 每次向 Redis 取一批 key，消费完再取下一批，不会一次性加载全部 key。
+     * 遍历期间占用一个连接，需要通过 try-with-resources 关闭
+     * <pre>
+     * try (Stream&lt;String&gt; keys = redisService.scanStream("login_user:*", 1000)) {
+     *     keys.forEach(...);
+     * }
+     * </pre>
+     *
+     * @param pattern 表达式
+     * @param count   每次 SCAN 的 COUNT 提示
+     * @return key 流
+     */
+    public Stream<String> scanStream(final String pattern, final long count) {
+        Assert.isTrue(count > 0, "COUNT 必须大于0");
+        ScanOptions options = ScanOptions.scanOptions().match(pattern).count(count).build();
+        Cursor<byte[]> cursor = redisTemplate.executeWithStickyConnection(connection -> connection.scan(options));
+        RedisSerializer<?> keySerializer = redisTemplate.getKeySerializer();
+        return cursor.stream()
+                .map(keySerializer::deserialize)
+                .filter(ObjectUtil::isNotEmpty)
+                .map(String::valueOf);
+    }
+
+    /**
+     * 删除符合给定模式 pattern 的 key，按 {@code pipelineBatchSize} 分批 UNLINK，不限速
+     *
+     * @param pattern 表达式
+     * @return 删除的 key 数量
+     * @see #deleteByPattern(String, int, int)
+     */
+    public long deleteByPattern(final String pattern) {
+        return deleteByPattern(pattern, pipelineBatchSize, 0);
+    }
+
+    /**
+     * 删除符合给定模式 pattern 的 key
+     * <p>
+     * 通过 SCAN 遍历 key，每 {@code batchSize} 个通过 pipeline 提交 UNLINK，由 Redis 在后台释放内存。
+     * {@code maxOpsPerSecond} 大于 0 时按每秒删除的 key 数限速，避免大批量删除时影响线上请求
+     *
+     * @param pattern         表达式
+     * @param batchSize       每批删除的 key 数
+     * @param maxOpsPerSecond 每秒最多删除的 key 数，小于等于 0 时不限速
+     * @return 删除的 key 数量，线程被中断时返回已删除的数量
+     */
+    public long deleteByPattern(final String pattern, final int batchSize, final int maxOpsPerSecond) {
+        Assert.isTrue(batchSize > 0, "batchSize 必须大于0");
+        long deleted = 0;
+        long nextBatchNanos = System.nanoTime();
+        List<String> batch = new ArrayList<>(batchSize);
+        try (Stream<String> keys = scanStream(pattern, Math.max(scanCount, batchSize))) {
+            Iterator<String> iterator = keys.iterator();
+            while (iterator.hasNext()) {
+                batch.add(iterator.next());
+                if (batch.size() < batchSize && iterator.hasNext()) {
+                    continue;
+                }
+                if (maxOpsPerSecond > 0) {
+                    long waitNanos = nextBatchNanos - System.nanoTime();
+                    if (waitNanos > 0) {
+                        TimeUnit.NANOSECONDS.sleep(waitNanos);
+                    }
+                    nextBatchNanos = Math.max(nextBatchNanos, System.nanoTime())
+                            + TimeUnit.SECONDS.toNanos(batch.size()) / maxOpsPerSecond;
+                }
+                deleted += unlinkPipelined(batch);
+                batch.clear();
             }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.warn(" >>> 按模式 [{}] 删除 key 被中断，已删除 {} 个", pattern, deleted);
+        }
+        return deleted;
+    }
+
+    private long unlinkPipelined(final List<String> keys) {
+        List<Object> results = redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            keys.forEach(key -> connection.unlink(rawKey(key)));
+            return null;
         });
+        long count = 0;
+        for (Object result : results) {
+            if (result instanceof Number) {
+                count += ((Number) result).longValue();
+            }
+        }
+        return count;
     }
 
     /**
@@ -301,7 +488,9 @@ public class RedisService {
      *
      * @param pattern 表达式
      * @return 符合给定模式的 key 列表
+     * @deprecated KEYS 会阻塞 Redis，请使用 {@link #scanStream(String)}
      */
+    @Deprecated
     public Set<String> keys(final String pattern) {
         return redisTemplate.keys(pattern);
     }
@@ -370,27 +559,328 @@ public class RedisService {
      * @return 值
      */
     public <T> T get(String key) {
-        return key == null ? null : (T) valueOps.get(key);
+        return key == null ? null : unwrapNull(valueOps.get(key));
+    }
+
+    /**
+     * 通过管道同时获取缓存值及剩余时间
+     *
+     * @param key 键
+     * @return 缓存值及剩余时间/毫秒，-1 表示永不过期，-2 表示不存在
+     */
+    public <T> Pair<T, Long> getWithPTtl(String key) {
+        Pair<Object, Long> valueWithTtl = getCachedWithPTtl(key);
+        return new Pair<>(unwrapNull(valueWithTtl.getKey()), valueWithTtl.getValue());
+    }
+
+    /**
+     * 获取缓存值及剩余时间，保留空值占位
+     */
+    private Pair<Object, Long> getCachedWithPTtl(String key) {
+        List<Object> results = redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            byte[] rawKey = rawKey(key);
+            connection.get(rawKey);
+            connection.pTtl(rawKey);
+            return null;
+        });
+        return new Pair<>(results.get(0), (Long) results.get(1));
     }
 
     /**
      * 普通缓存获取，cache 为 null 时使用给定的加载器，设置缓存
+     * <p>
+     * 同一个 key 在当前进程内只会有一个加载器在执行，其余调用等待该结果
      *
      * @param key    键
      * @param loader cache supplier
      * @return 缓存结果
      */
     public <T> T get(String key, Supplier<T> loader) {
-        T value = get(key);
+        return get(key, loader, CacheLoadOptions.DEFAULT);
+    }
+
+    /**
+     * 普通缓存获取，cache 为 null 时使用给定的加载器，设置缓存并设置时间
+     *
+     * @param key    键
+     * @param loader cache supplier
+     * @param time   时间(秒) time要大于0 如果time小于等于0 将设置无限期
+     * @return 缓存结果
+     */
+    public <T> T get(String key, Supplier<T> loader, long time) {
+        return get(key, loader, CacheLoadOptions.ofTimeout(time));
+    }
+
+    /**
+     * 普通缓存获取，cache 为 null 时使用给定的加载器，设置缓存
+     * <p>
+     * 同一个 key 在当前进程内只会有一个加载器在执行；开启 {@link CacheLoadOptions#isDistributed()} 时，
+     * 通过短时 Redis 锁在集群内只让一个节点加载，其余节点在 {@link CacheLoadOptions#getWaitTimeout()} 内等待结果。
+     * 开启 {@link CacheLoadOptions#getEarlyRefreshBeta()} 时，临近过期的 key 会按概率提前重新加载
+     * 开启 {@link CacheLoadOptions#getNullTimeout()} 时，加载结果为 null 也会短时缓存空值占位
+     *
+     * @param key     键
+     * @param loader  cache supplier
+     * @param options 加载选项
+     * @return 缓存结果
+     */
+    public <T> T get(String key, Supplier<T> loader, CacheLoadOptions options) {
+        if (options.getEarlyRefreshBeta() > 0) {
+            Pair<Object, Long> valueWithTtl = getCachedWithPTtl(key);
+            Object value = valueWithTtl.getKey();
+            if (value != null) {
+                Long pTtl = valueWithTtl.getValue();
+                // 已有其他线程在刷新时直接返回当前值
+                if (!shouldRefreshEarly(key, pTtl, options.getEarlyRefreshBeta()) || singleFlight.isRunning(key)) {
+                    return unwrapNull(value);
+                }
+                return unwrapNull(singleFlight.execute(key, () -> load(key, loader, options, true)));
+            }
+        } else {
+            Object value = getCached(key);
+            if (value != null) {
+                return unwrapNull(value);
+            }
+        }
+        return unwrapNull(singleFlight.execute(key, () -> load(key, loader, options, false)));
+    }
+
+    /**
+     * 执行加载器并写入缓存
+     *
+     * @param refresh 是否为提前刷新，提前刷新时不再检查缓存是否已存在
+     */
+    private <T> T load(String key, Supplier<T> loader, CacheLoadOptions options, boolean refresh) {
+        if (!options.isDistributed()) {
+            if (!refresh) {
+                // 上一次加载可能刚刚结束
+                T value = (T) getCached(key);
+                if (value != null) {
+                    return value;
+                }
+            }
+            return loadAndSet(key, loader, options);
+        }
+
+        RedisLockFactory lockFactory = resolveLockFactory();
+        if (lockFactory != null) {
+            return loadWithLock(lockFactory, key, loader, options, refresh);
+        }
+
+        String lockKey = key + LOAD_LOCK_SUFFIX;
+        String token = IdUtil.fastSimpleUUID();
+        if (Boolean.TRUE.equals(stringRedisTemplate.opsForValue().setIfAbsent(lockKey, token, options.getLockLease()))) {
+            try {
+                if (!refresh) {
+                    T value = (T) getCached(key);
+                    if (value != null) {
+                        return value;
+                    }
+                }
+                return loadAndSet(key, loader, options);
+            } finally {
+                stringRedisTemplate.execute(scriptRegistry.get(RedisScriptRegistry.COMPARE_AND_DELETE, Long.class),
+                        Collections.singletonList(lockKey), token);
+            }
+        }
+
+        // 其他节点正在加载
+        if (refresh) {
+            return (T) getCached(key);
+        }
+        T value = waitForLoad(key, lockKey, options.getWaitTimeout());
+        return value != null ? value : loadAndSet(key, loader, options);
+    }
+
+    private RedisLockFactory resolveLockFactory() {
+        RedisLockFactory factory = lockFactory;
+        ObjectProvider<RedisLockFactory> provider = lockFactoryProvider;
+        if (factory == null && provider != null) {
+            factory = provider.getIfAvailable();
+            lockFactory = factory;
+            // 容器中没有分布式锁时不再重复查找
+            lockFactoryProvider = null;
+        }
+        return factory;
+    }
+
+    private <T> T loadAndSet(String key, Supplier<T> loader, CacheLoadOptions options) {
+        long start = System.nanoTime();
+        T value = loader.get();
+        loadCosts.put(key, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
         if (value != null) {
-            return value;
+            set(key, value, options.getTimeout());
+        } else if (options.getNullTimeout() > 0) {
+            set(key, NULL_VALUE, options.getNullTimeout());
+        }
+        return value;
+    }
+
+    /**
+     * 通过分布式锁合并加载，等待中的节点在锁释放后被唤醒，重新读取缓存
+     */
+    private <T> T loadWithLock(RedisLockFactory lockFactory, String key, Supplier<T> loader, CacheLoadOptions options, boolean refresh) {
+        DistributedLock lock = lockFactory.getLock(key + LOAD_LOCK_SUFFIX);
+        Duration waitTimeout = refresh ? Duration.ZERO : options.getWaitTimeout();
+        if (!lock.tryLock(waitTimeout, options.getLockLease())) {
+            // 其他节点正在刷新，或等待超时后再读一次缓存，仍未命中时自行加载
+            T value = (T) getCached(key);
+            return value != null || refresh ? value : loadAndSet(key, loader, options);
+        }
+        try {
+            if (!refresh) {
+                T value = (T) getCached(key);
+                if (value != null) {
+                    return value;
+                }
+            }
+            return loadAndSet(key, loader, options);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 等待其他节点加载完成，加载锁释放或超时后返回，返回前再读取一次缓存
+     */
+    private <T> T waitForLoad(String key, String lockKey, Duration waitTimeout) {
+        long deadline = System.nanoTime() + waitTimeout.toNanos();
+        long sleepMillis = 10;
+        while (System.nanoTime() < deadline) {
+            T value = (T) getCached(key);
+            if (value != null) {
+                return value;
+            }
+            if (!Boolean.TRUE.equals(stringRedisTemplate.hasKey(lockKey))) {
+                return (T) getCached(key);
+            }
+            try {
+                Thread.sleep(sleepMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+            sleepMillis = Math.min(sleepMillis * 2, 100);
+        }
+        // 最后一次休眠期间可能已加载完成
+        return (T) getCached(key);
+    }
+
+    /**
+     * 概率提前刷新，剩余时间越短、加载越慢，越可能提前刷新
+     *
+     * @param key  键
+     * @param pTtl 剩余时间/毫秒
+     * @param beta 提前刷新系数
+     * @return 是否需要刷新
+     */
+    private boolean shouldRefreshEarly(String key, Long pTtl, double beta) {
+        if (pTtl == null || pTtl < 0) {
+            return false;
         }
-        value = loader.get();
-        if (value == null) {
+        Long cost = loadCosts.getIfPresent(key);
+        long delta = cost == null ? DEF_LOAD_COST_MILLIS : Math.max(cost, 1L);
+        double random = ThreadLocalRandom.current().nextDouble();
+        return -delta * beta * Math.log(random) >= pTtl;
+    }
+
+    /**
+     * 集群模式下每个 slot 一条 MGET，在同一个 pipeline 中并行发往各节点，按原顺序合并结果
+     */
+    private <T> List<T> mGetBySlot(List<byte[]> rawKeys, Collection<List<Integer>> slots) {
+        List<Object> results = redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            for (List<Integer> slot : slots) {
+                connection.mGet(toRawKeys(rawKeys, slot));
+            }
             return null;
+        });
+        Object[] merged = new Object[rawKeys.size()];
+        Iterator<Object> slotResults = results.iterator();
+        for (List<Integer> slot : slots) {
+            List<Object> values = (List<Object>) slotResults.next();
+            for (int i = 0; i < slot.size() && values != null && i < values.size(); i++) {
+                merged[slot.get(i)] = values.get(i);
+            }
         }
-        this.set(key, value);
-        return value;
+        List<T> values = new ArrayList<>(merged.length);
+        for (Object value : merged) {
+            values.add(unwrapNull(value));
+        }
+        return values;
+    }
+
+    /**
+     * 读取缓存，保留空值占位，用于区分 "缓存了空值" 与 "未缓存"
+     */
+    private Object getCached(String key) {
+        return valueOps.get(key);
+    }
+
+    /**
+     * 空值占位转换为 null，同步、异步读取共用
+     *
+     * @param value 缓存值
+     * @return 缓存值，空值占位时为 null
+     */
+    public static <T> T unwrapNull(Object value) {
+        return NULL_VALUE.equals(value) ? null : (T) value;
+    }
+
+    /**
+     * 是否连接 Redis Cluster
+     *
+     * @return 是否为集群模式
+     */
+    public boolean isCluster() {
+        Boolean cluster = clusterMode;
+        if (cluster == null) {
+            cluster = Boolean.TRUE.equals(redisTemplate.execute(
+                    (RedisCallback<Boolean>) connection -> connection instanceof RedisClusterConnection));
+            clusterMode = cluster;
+        }
+        return cluster;
+    }
+
+    /**
+     * 按 slot 分组
+     *
+     * @param rawKeys 序列化后的 key
+     * @return 每个 slot 中 key 的下标，按首次出现的顺序排列
+     */
+    private static Collection<List<Integer>> groupBySlot(List<byte[]> rawKeys) {
+        Map<Integer, List<Integer>> slots = new LinkedHashMap<>();
+        for (int i = 0; i < rawKeys.size(); i++) {
+            slots.computeIfAbsent(ClusterSlotHashUtil.calculateSlot(rawKeys.get(i)), slot -> new ArrayList<>()).add(i);
+        }
+        return slots.values();
+    }
+
+    private boolean isCrossSlot(Collection<String> keys) {
+        return isCluster() && !ClusterSlotHashUtil.isSameSlotForAllKeys(keys.stream().map(this::rawKey).toArray(byte[][]::new));
+    }
+
+    private static byte[][] toRawKeys(List<byte[]> rawKeys, List<Integer> indexes) {
+        byte[][] keys = new byte[indexes.size()][];
+        for (int i = 0; i < indexes.size(); i++) {
+            keys[i] = rawKeys.get(indexes.get(i));
+        }
+        return keys;
+    }
+
+    private <V> List<Set<V>> sMembersPipelined(Collection<String> keys) {
+        List<Object> results = redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            for (String key : keys) {
+                connection.sMembers(rawKey(key));
+            }
+            return null;
+        });
+        List<Set<V>> members = new ArrayList<>(results.size());
+        results.forEach(result -> members.add(result == null ? Collections.emptySet() : (Set<V>) result));
+        return members;
+    }
+
+    private byte[] rawKey(String key) {
+        return ((RedisSerializer<String>) redisTemplate.getKeySerializer()).serialize(key);
     }
 
     /**
@@ -412,8 +902,20 @@ public class RedisService {
      * @return 按给定key顺序排列的值列表
      */
     public <T> List<T> mGet(final Collection<String> keys) {
-        List<T> list = (List<T>) valueOps.multiGet(keys);
-        return list == null ? Collections.emptyList() : list;
+        if (isCluster() && keys.size() > 1) {
+            List<byte[]> rawKeys = keys.stream().map(this::rawKey).collect(Collectors.toList());
+            Collection<List<Integer>> slots = groupBySlot(rawKeys);
+            if (slots.size() > 1) {
+                return mGetBySlot(rawKeys, slots);
+            }
+        }
+        List<Object> list = valueOps.multiGet(keys);
+        if (list == null) {
+            return Collections.emptyList();
+        }
+        List<T> values = new ArrayList<>(list.size());
+        list.forEach(value -> values.add(unwrapNull(value)));
+        return values;
     }
 
     /**
@@ -540,6 +1042,100 @@ public class RedisService {
         valueOps.multiSetIfAbsent(map);
     }
 
+    /**
+     * 批量放入缓存并设置时间，按 {@code pipelineBatchSize} 分批通过 pipeline 提交
+     *
+     * @param map     k-v，值为 null 的键会被忽略
+     * @param timeout 超时时间，为 null 或小于等于 0 时永不过期
+     */
+    public void setAll(final Map<String, ?> map, final Duration timeout) {
+        setAll(map, key -> timeout);
+    }
+
+    /**
+     * 批量写入缓存，每个 key 单独计算失效时长，通过 pipeline 分批提交
+     *
+     * @param map     键值对
+     * @param timeout 根据 key 计算失效时长，为 null 或小于等于 0 时永不过期
+     */
+    public void setAll(final Map<String, ?> map, final Function<String, Duration> timeout) {
+        if (map == null || map.isEmpty()) {
+            return;
+        }
+        RedisSerializer<Object> valueSerializer = (RedisSerializer<Object>) redisTemplate.getValueSerializer();
+        List<Map.Entry<String, ?>> entries = new ArrayList<>(map.entrySet());
+        for (List<Map.Entry<String, ?>> batch : ListUtil.partition(entries, pipelineBatchSize)) {
+            redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                for (Map.Entry<String, ?> entry : batch) {
+                    if (entry.getValue() == null) {
+                        continue;
+                    }
+                    byte[] rawKey = rawKey(entry.getKey());
+                    byte[] rawValue = valueSerializer.serialize(entry.getValue());
+                    Duration ttl = timeout.apply(entry.getKey());
+                    long millis = ttl == null ? 0 : ttl.toMillis();
+                    if (millis > 0) {
+                        connection.pSetEx(rawKey, millis, rawValue);
+                    } else {
+                        connection.set(rawKey, rawValue);
+                    }
+                }
+                return null;
+            });
+        }
+    }
+
+    /**
+     * 批量设置有效时间，按 {@code pipelineBatchSize} 分批通过 pipeline 提交
+     *
+     * @param keys    缓存 keys
+     * @param timeout 超时时间，小于等于 0 时不做处理
+     */
+    public void expireAll(final Collection<String> keys, final Duration timeout) {
+        if (keys == null || keys.isEmpty() || timeout == null || timeout.toMillis() <= 0) {
+            return;
+        }
+        long millis = timeout.toMillis();
+        for (List<String> batch : ListUtil.partition(new ArrayList<>(keys), pipelineBatchSize)) {
+            redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                batch.forEach(key -> connection.pExpire(rawKey(key), millis));
+                return null;
+            });
+        }
+    }
+
+    /**
+     * 批量获取缓存并刷新有效时间，按 {@code pipelineBatchSize} 分批通过 pipeline 提交
+     *
+     * @param keys    缓存 keys
+     * @param timeout 超时时间，小于等于 0 时只获取不刷新
+     * @return 按给定key顺序排列的值列表，不存在的 key 对应 null
+     */
+    public <T> List<T> getAndTouchAll(final Collection<String> keys, final Duration timeout) {
+        if (keys == null || keys.isEmpty()) {
+            return Collections.emptyList();
+        }
+        long millis = timeout == null ? 0 : timeout.toMillis();
+        List<T> values = new ArrayList<>(keys.size());
+        for (List<String> batch : ListUtil.partition(new ArrayList<>(keys), pipelineBatchSize)) {
+            List<Object> results = redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                for (String key : batch) {
+                    byte[] rawKey = rawKey(key);
+                    connection.get(rawKey);
+                    if (millis > 0) {
+                        connection.pExpire(rawKey, millis);
+                    }
+                }
+                return null;
+            });
+            int step = millis > 0 ? 2 : 1;
+            for (int i = 0; i < results.size(); i += step) {
+                values.add(unwrapNull(results.get(i)));
+            }
+        }
+        return values;
+    }
+
     /**
      * 返回键 key 储存的字符串值的长度
      *
@@ -574,7 +1170,7 @@ public class RedisService {
      * @return long
      */
     public Long incrBy(String key, long delta) {
-        Assert.isTrue(delta < 0, "递增因子必须大于0");
+        Assert.isTrue(delta > 0, "递增因子必须大于0");
         return valueOps.increment(key, delta);
     }
 
@@ -613,11 +1209,11 @@ public class RedisService {
      * 本操作的值限制在 64 位(bit)有符号数字表示之内。
      *
      * @param key   键
-     * @param delta 要减少几(小于0)
+     * @param delta 要减少几(大于0)
      * @return long
      */
     public Long decrBy(String key, long delta) {
-        Assert.isTrue(delta < 0, "递减因子必须大于0");
+        Assert.isTrue(delta > 0, "递减因子必须大于0");
         return valueOps.increment(key, -delta);
     }
 
@@ -709,10 +1305,7 @@ public class RedisService {
      */
     public Boolean hSet(String key, String item, Object value, long time) {
         try {
-            hashOps.put(key, item, value);
-            if (time > 0) {
-                expire(key, time);
-            }
+            hashPutWithTtl(key, Collections.singletonMap(item, value), time);
             return true;
         } catch (Exception e) {
             log.error(" >>> 放入 Redis HashSet 失败，{}", e.getMessage(), e);
@@ -747,10 +1340,7 @@ public class RedisService {
      */
     public Boolean hmSet(String key, Map<String, Object> map, long time) {
         try {
-            hashOps.putAll(key, map);
-            if (time > 0) {
-                expire(key, time);
-            }
+            hashPutWithTtl(key, map, time);
             return true;
         } catch (Exception e) {
             log.error(" >>> 放入 Redis HashSet 失败，{}", e.getMessage(), e);
@@ -885,11 +1475,13 @@ public class RedisService {
      */
     public Long sAdd(final String key, final long time, final Object... values) {
         try {
-            Long count = setOps.add(key, values);
-            if (time > 0) {
-                expire(key, time);
+            RedisSerializer<Object> valueSerializer = (RedisSerializer<Object>) redisTemplate.getValueSerializer();
+            Object[] args = new Object[values.length + 1];
+            args[0] = toRawArg(TimeUnit.SECONDS.toMillis(time));
+            for (int i = 0; i < values.length; i++) {
+                args[i + 1] = valueSerializer.serialize(values[i]);
             }
-            return count;
+            return executeScript(RedisScriptRegistry.SET_ADD_WITH_TTL, Long.class, Collections.singletonList(key), args);
         } catch (Exception e) {
             log.error(" >>> Redis 将set数据放入缓存失败，{}", e.getMessage(), e);
             return 0L;
@@ -1004,7 +1596,7 @@ public class RedisService {
      * @return 交集成员的列表。
      */
     public <V> Set<V> sInter(final String key, final String otherKey) {
-        return (Set<V>) setOps.intersect(key, otherKey);
+        return sInter(Arrays.asList(key, otherKey));
     }
 
     /**
@@ -1017,7 +1609,10 @@ public class RedisService {
      * @return 交集成员的列表。
      */
     public Set<Object> sInter(final String key, final Collection<String> otherKeys) {
-        return setOps.intersect(key, otherKeys);
+        List<String> keys = new ArrayList<>(otherKeys.size() + 1);
+        keys.add(key);
+        keys.addAll(otherKeys);
+        return sInter(keys);
     }
 
     /**
@@ -1031,7 +1626,22 @@ public class RedisService {
      * @return 交集成员的列表。
      */
     public <V> Set<V> sInter(final Collection<String> otherKeys) {
-        return (Set<V>) setOps.intersect(otherKeys);
+        if (!isCrossSlot(otherKeys)) {
+            return (Set<V>) setOps.intersect(otherKeys);
+        }
+        // 集群模式下跨 slot 时一次 pipeline 取回各集合，在本地求交集
+        Set<V> result = null;
+        for (Set<V> members : this.<V>sMembersPipelined(otherKeys)) {
+            if (result == null) {
+                result = new LinkedHashSet<>(members);
+            } else {
+                result.retainAll(members);
+            }
+            if (result.isEmpty()) {
+                break;
+            }
+        }
+        return result == null ? new LinkedHashSet<>() : result;
     }
 
 
@@ -1085,7 +1695,7 @@ public class RedisService {
      * @return when used in pipeline / transaction.
      */
     public <V> Set<V> sUnion(final String key, final String otherKey) {
-        return (Set<V>) setOps.union(key, otherKey);
+        return sUnion(Arrays.asList(key, otherKey));
     }
 
     /**
@@ -1097,7 +1707,10 @@ public class RedisService {
      * @return when used in pipeline / transaction.
      */
     public <V> Set<V> sUnion(final String key, final Collection<String> otherKeys) {
-        return (Set<V>) setOps.union(key, otherKeys);
+        List<String> keys = new ArrayList<>(otherKeys.size() + 1);
+        keys.add(key);
+        keys.addAll(otherKeys);
+        return sUnion(keys);
     }
 
     /**
@@ -1108,7 +1721,13 @@ public class RedisService {
      * @return when used in pipeline / transaction.
      */
     public <V> Set<V> sUnion(final Collection<String> otherKeys) {
-        return (Set<V>) setOps.union(otherKeys);
+        if (!isCrossSlot(otherKeys)) {
+            return (Set<V>) setOps.union(otherKeys);
+        }
+        // 集群模式下跨 slot 时一次 pipeline 取回各集合，在本地求并集
+        Set<V> result = new LinkedHashSet<>();
+        this.<V>sMembersPipelined(otherKeys).forEach(result::addAll);
+        return result;
     }
 
     /**
@@ -1352,7 +1971,15 @@ public class RedisService {
      * @see <a href="https://redis.io/commands/rpoplpush">Redis Documentation: RPOPLPUSH</a>
      */
     public <T> T rPoplPush(String sourceKey, String destinationKey) {
-        return (T) listOps.rightPopAndLeftPush(sourceKey, destinationKey);
+        if (!isCrossSlot(Arrays.asList(sourceKey, destinationKey))) {
+            return (T) listOps.rightPopAndLeftPush(sourceKey, destinationKey);
+        }
+        // 集群模式下跨 slot 时分两步执行，不再是原子操作，需要原子性时应通过 hash tag 让两个 key 位于同一 slot
+        T value = (T) listOps.rightPop(sourceKey);
+        if (value != null) {
+            listOps.leftPush(destinationKey, value);
+        }
+        return value;
     }
 
     /**
@@ -1784,4 +2411,116 @@ public class RedisService {
         return zSetOps.removeRangeByScore(key, min, max);
     }
 
+    //===============================Script Start================================//
+
+    /**
+     * 执行 {@link RedisScriptRegistry} 中的脚本，先 EVALSHA，脚本未加载时改用 EVAL
+     *
+     * @param name       脚本名称
+     * @param resultType 返回值类型
+     * @param keys       KEYS
+     * @param rawArgs    ARGV，需要预先序列化为 byte[]
+     * @return 脚本返回值
+     */
+    public <T> T executeScript(final String name, final Class<T> resultType, final List<String> keys, final Object... rawArgs) {
+        return redisTemplate.execute(scriptRegistry.get(name, resultType), RedisSerializer.byteArray(),
+                (RedisSerializer<T>) redisTemplate.getValueSerializer(), keys, rawArgs);
+    }
+
+    /**
+     * 版本号与期望值一致时放入缓存并递增版本号，一次往返完成
+     * <p>
+     * 版本号与 key 位于同一个 slot：key 已带 hash tag 时保存在 {@code key + ":version"}，
+     * 否则保存在 {@code "{" + key + "}:version"}，集群模式下同样可以一次往返完成
+     *
+     * @param key             键
+     * @param value           值
+     * @param expectedVersion 期望的版本号，key 从未写入过时为 0
+     * @param time            时间(秒) time要大于0 如果time小于等于0 将设置无限期
+     * @return 新的版本号，版本号不一致时返回 -1
+     */
+    public Long setIfVersion(final String key, final Object value, final long expectedVersion, final long time) {
+        byte[] rawValue = ((RedisSerializer<Object>) redisTemplate.getValueSerializer()).serialize(value);
+        return executeScript(RedisScriptRegistry.SET_IF_VERSION, Long.class, Arrays.asList(key, versionKey(key)),
+                rawValue, toRawArg(expectedVersion), toRawArg(TimeUnit.SECONDS.toMillis(time)));
+    }
+
+    /**
+     * 获取 {@link #setIfVersion} 写入的版本号
+     *
+     * @param key 键
+     * @return 版本号，从未写入过时为 0
+     */
+    public long getVersion(final String key) {
+        String version = stringRedisTemplate.opsForValue().get(versionKey(key));
+        return version == null ? 0 : Long.parseLong(version);
+    }
+
+    /**
+     * 版本号 key，与 key 计算出相同的 slot
+     *
+     * @param key 键
+     * @return 版本号 key
+     */
+    static String versionKey(final String key) {
+        int start = key.indexOf('{');
+        int end = start < 0 ? -1 : key.indexOf('}', start + 1);
+        // 已带非空 hash tag，slot 只由 hash tag 决定；key 中含有 } 时无法再用 hash tag 包裹
+        if (end > start + 1 || key.indexOf('}') >= 0) {
+            return key + VERSION_SUFFIX;
+        }
+        return StrPool.LEFT_CURLY_BRACKETS + key + StrPool.RIGHT_CURLY_BRACKETS + VERSION_SUFFIX;
+    }
+
+    /**
+     * 累加计数器，计数器首次创建时设置有效时间，一次往返完成
+     *
+     * @param key   键
+     * @param delta 增量
+     * @param time  时间(秒)，小于等于 0 时不设置
+     * @return 累加结果
+     */
+    public Long incrWithExpire(final String key, final long delta, final long time) {
+        return executeScript(RedisScriptRegistry.INCR_WITH_EXPIRE, Long.class, Collections.singletonList(key),
+                toRawArg(delta), toRawArg(TimeUnit.SECONDS.toMillis(time)));
+    }
+
+    /**
+     * 写入 Hash 并设置有效时间，一次往返完成
+     *
+     * @param key  键
+     * @param map  对应多个键值
+     * @param time 时间(秒)，小于等于 0 时不设置
+     * @return 新增的 field 数量
+     */
+    public Long hashPutWithTtl(final String key, final Map<String, ?> map, final long time) {
+        RedisSerializer<Object> hashKeySerializer = (RedisSerializer<Object>) redisTemplate.getHashKeySerializer();
+        RedisSerializer<Object> hashValueSerializer = (RedisSerializer<Object>) redisTemplate.getHashValueSerializer();
+        Object[] args = new Object[map.size() * 2 + 1];
+        args[0] = toRawArg(TimeUnit.SECONDS.toMillis(time));
+        int i = 1;
+        for (Map.Entry<String, ?> entry : map.entrySet()) {
+            args[i++] = hashKeySerializer.serialize(entry.getKey());
+            args[i++] = hashValueSerializer.serialize(entry.getValue());
+        }
+        return executeScript(RedisScriptRegistry.HASH_PUT_WITH_TTL, Long.class, Collections.singletonList(key), args);
+    }
+
+    /**
+     * 缓存的值与期望值一致时删除，一次往返完成
+     *
+     * @param key      键
+     * @param expected 期望的值
+     * @return 是否删除
+     */
+    public Boolean compareAndDelete(final String key, final Object expected) {
+        byte[] rawExpected = ((RedisSerializer<Object>) redisTemplate.getValueSerializer()).serialize(expected);
+        Long deleted = executeScript(RedisScriptRegistry.COMPARE_AND_DELETE, Long.class, Collections.singletonList(key), rawExpected);
+        return deleted != null && deleted > 0;
+    }
+
+    private static byte[] toRawArg(long number) {
+        return String.valueOf(number).getBytes(StandardCharsets.UTF_8);
+    }
+
 }
@@ -0,0 +1,40 @@
+/*
+ * Copyright (c) 2022. WeCoding (wecoding@yeah.net).
+ *
+ * Licensed under the GNU LESSER GENERAL PUBLIC LICENSE 3.0;
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.gnu.org/licenses/lgpl.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package top.wecoding.core.cache.stream;
+
+import org.springframework.data.redis.connection.stream.RecordId;
+
+/**
+ * Redis Streams 事件监听，正常返回后消息被确认，抛出异常时消息保留在待确认列表中，稍后重试
+ *
+ * @author liuyuhui
+ * @date 2022/6/28
+ * @qq 1515418211
+ */
+@FunctionalInterface
+public interface RedisEventListener<T> {
+
+    /**
+     * 处理事件
+     *
+     * @param stream stream 名称
+     * @param id     消息 ID
+     * @param event  事件
+     * @throws Exception 处理失败
+     */
+    void onEvent(String stream, RecordId id, T event) throws Exception;
+
+}
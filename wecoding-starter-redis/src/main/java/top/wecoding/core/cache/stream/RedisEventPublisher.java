@@ -0,0 +1,210 @@
+/*
+ * Copyright (c) 2022. WeCoding (wecoding@yeah.net).
+ *
+ * Licensed under the GNU LESSER GENERAL PUBLIC LICENSE 3.0;
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.gnu.org/licenses/lgpl.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package top.wecoding.core.cache.stream;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.data.redis.connection.stream.RecordId;
+import org.springframework.data.redis.connection.stream.StreamRecords;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import top.wecoding.core.cache.props.WeCodingCacheProperties;
+import top.wecoding.core.cache.service.RedisService;
+import top.wecoding.core.exception.Assert;
+import top.wecoding.core.exception.BizException;
+import top.wecoding.core.exception.code.SystemErrorCodeEnum;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Redis Streams 事件发送
+ * <p>
+ * 事件先进入有界缓冲区，由后台线程按 {@code batchSize}、{@code linger} 凑批，通过一次 pipeline 提交 XADD，
+ * 并按 {@code maxLen} 近似裁剪 stream。缓冲区已满时发送方最多等待 {@code publishTimeout}，形成背压。
+ * 后台线程在第一次异步发送时才启动
+ *
+ * @author liuyuhui
+ * @date 2022/6/28
+ * @qq 1515418211
+ */
+@Slf4j
+@SuppressWarnings("unchecked")
+public class RedisEventPublisher implements DisposableBean {
+
+    /**
+     * 事件内容字段
+     */
+    public static final String PAYLOAD_FIELD = "payload";
+
+    static final byte[] RAW_PAYLOAD_FIELD = PAYLOAD_FIELD.getBytes(StandardCharsets.UTF_8);
+
+    private final RedisTemplate<String, Object> redisTemplate;
+
+    private final WeCodingCacheProperties.Stream properties;
+
+    private final BlockingQueue<PendingEvent> buffer;
+
+    private final Thread sender;
+
+    private volatile boolean running = true;
+
+    private final AtomicBoolean started = new AtomicBoolean();
+
+    public RedisEventPublisher(RedisService redisService, WeCodingCacheProperties.Stream properties) {
+        Assert.isTrue(properties.getBatchSize() > 0 && properties.getBufferSize() > 0, "批量大小及缓冲区大小必须大于0");
+        this.redisTemplate = redisService.getRedisTemplate();
+        this.properties = properties;
+        this.buffer = new ArrayBlockingQueue<>(properties.getBufferSize());
+        this.sender = new Thread(this::sendLoop, "wecoding-stream-publisher");
+        this.sender.setDaemon(true);
+    }
+
+    /**
+     * 异步发送事件
+     *
+     * @param stream stream 名称
+     * @param event  事件
+     * @return 消息 ID
+     */
+    public CompletableFuture<RecordId> publish(String stream, Object event) {
+        Assert.notNull(event, "事件不能为空");
+        Assert.isTrue(running, "事件发送已关闭");
+        if (!started.get() && started.compareAndSet(false, true)) {
+            sender.start();
+        }
+        PendingEvent pending = new PendingEvent(stream, serialize(event));
+        try {
+            if (!buffer.offer(pending, properties.getPublishTimeout().toNanos(), TimeUnit.NANOSECONDS)) {
+                throw BizException.wrap(SystemErrorCodeEnum.SYSTEM_RESOURCES_EMPTY, "事件缓冲区已满, stream: {}", stream);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw BizException.wrap(SystemErrorCodeEnum.SYSTEM_ERROR, e);
+        }
+        return pending.future;
+    }
+
+    /**
+     * 同步发送事件，不经过缓冲区
+     *
+     * @param stream stream 名称
+     * @param event  事件
+     * @return 消息 ID
+     */
+    public RecordId publishSync(String stream, Object event) {
+        Assert.notNull(event, "事件不能为空");
+        PendingEvent pending = new PendingEvent(stream, serialize(event));
+        send(Collections.singletonList(pending));
+        return pending.future.join();
+    }
+
+    @Override
+    public void destroy() throws InterruptedException {
+        // 停止接收新事件，等待缓冲区中的事件发送完
+        running = false;
+        if (started.get()) {
+            sender.join(TimeUnit.SECONDS.toMillis(5));
+        }
+    }
+
+    private void sendLoop() {
+        List<PendingEvent> batch = new ArrayList<>(properties.getBatchSize());
+        while (running || !buffer.isEmpty()) {
+            try {
+                PendingEvent first = buffer.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                long deadline = System.nanoTime() + properties.getLinger().toNanos();
+                while (batch.size() < properties.getBatchSize()) {
+                    long remaining = deadline - System.nanoTime();
+                    PendingEvent next = remaining > 0 ? buffer.poll(remaining, TimeUnit.NANOSECONDS) : buffer.poll();
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                send(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void send(List<PendingEvent> batch) {
+        try {
+            List<Object> results = redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                Set<String> streams = new LinkedHashSet<>();
+                for (PendingEvent event : batch) {
+                    connection.streamCommands().xAdd(StreamRecords.rawBytes(Collections.singletonMap(RAW_PAYLOAD_FIELD, event.payload))
+                            .withStreamKey(rawKey(event.stream)));
+                    streams.add(event.stream);
+                }
+                if (properties.getMaxLen() > 0) {
+                    for (String stream : streams) {
+                        connection.streamCommands().xTrim(rawKey(stream), properties.getMaxLen(), true);
+                    }
+                }
+                return null;
+            });
+            for (int i = 0; i < batch.size(); i++) {
+                batch.get(i).future.complete((RecordId) results.get(i));
+            }
+        } catch (Exception e) {
+            log.error(" >>> 发送事件失败, 数量: {}, 原因: {}", batch.size(), e.getMessage(), e);
+            batch.forEach(event -> event.future.completeExceptionally(e));
+        }
+    }
+
+    private byte[] serialize(Object event) {
+        return ((RedisSerializer<Object>) redisTemplate.getValueSerializer()).serialize(event);
+    }
+
+    private byte[] rawKey(String key) {
+        return ((RedisSerializer<String>) redisTemplate.getKeySerializer()).serialize(key);
+    }
+
+    private static final class PendingEvent {
+
+        private final String stream;
+
+        private final byte[] payload;
+
+        private final CompletableFuture<RecordId> future = new CompletableFuture<>();
+
+        private PendingEvent(String stream, byte[] payload) {
+            this.stream = stream;
+            this.payload = payload;
+        }
+
+    }
+
+}
@@ -0,0 +1,347 @@
+/*
+ * Copyright (c) 2022. WeCoding (wecoding@yeah.net).
+ *
+ * Licensed under the GNU LESSER GENERAL PUBLIC LICENSE 3.0;
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.gnu.org/licenses/lgpl.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package top.wecoding.core.cache.stream;
+
+import cn.hutool.core.exceptions.ExceptionUtil;
+import cn.hutool.core.net.NetUtil;
+import cn.hutool.core.util.StrUtil;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.data.domain.Range;
+import org.springframework.data.redis.connection.RedisStreamCommands;
+import org.springframework.data.redis.connection.stream.ByteRecord;
+import org.springframework.data.redis.connection.stream.Consumer;
+import org.springframework.data.redis.connection.stream.PendingMessage;
+import org.springframework.data.redis.connection.stream.PendingMessages;
+import org.springframework.data.redis.connection.stream.ReadOffset;
+import org.springframework.data.redis.connection.stream.RecordId;
+import org.springframework.data.redis.connection.stream.StreamOffset;
+import org.springframework.data.redis.connection.stream.StreamReadOptions;
+import org.springframework.data.redis.connection.stream.StreamRecords;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import top.wecoding.core.cache.props.WeCodingCacheProperties;
+import top.wecoding.core.cache.service.RedisService;
+import top.wecoding.core.exception.Assert;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Redis Streams 事件消费，基于消费者组
+ * <p>
+ * 每个订阅启动 {@code concurrency} 个消费者线程，每次最多读取 {@code readCount} 条，处理完后再读取下一批，
+ * 消费速度决定读取速度。处理成功后确认消息；失败的消息保留在待确认列表中，
+ * 空闲超过 {@code claimIdle} 后被重新认领，交给该订阅的消费者线程处理，投递超过 {@code maxDeliveries} 次后转入死信 stream。
+ * 消费者名称为 {@code consumerName-序号}，重启后保持不变；取消订阅时删除没有待确认消息的消费者
+ *
+ * @author liuyuhui
+ * @date 2022/6/28
+ * @qq 1515418211
+ */
+@Slf4j
+@SuppressWarnings("unchecked")
+public class RedisEventSubscriber implements DisposableBean {
+
+    /**
+     * 死信 stream 后缀
+     */
+    public static final String DEAD_LETTER_SUFFIX = ":dlq";
+
+    private final RedisTemplate<String, Object> redisTemplate;
+
+    private final WeCodingCacheProperties.Stream properties;
+
+    private final ScheduledExecutorService claimScheduler;
+
+    /**
+     * 消费者名称前缀
+     */
+    private final String consumerName;
+
+    private final List<Subscription<?>> subscriptions = new CopyOnWriteArrayList<>();
+
+    public RedisEventSubscriber(RedisService redisService, WeCodingCacheProperties.Stream properties) {
+        this.redisTemplate = redisService.getRedisTemplate();
+        this.properties = properties;
+        this.consumerName = StrUtil.isNotBlank(properties.getConsumerName()) ? properties.getConsumerName() : NetUtil.getLocalHostName();
+        this.claimScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "wecoding-stream-claim");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * 订阅 stream，消费者组不存在时自动创建，从最新消息开始消费
+     *
+     * @param stream      stream 名称
+     * @param group       消费者组
+     * @param concurrency 消费者线程数
+     * @param listener    事件监听
+     * @return 订阅，可取消
+     */
+    public <T> Subscription<T> subscribe(String stream, String group, int concurrency, RedisEventListener<T> listener) {
+        Assert.isTrue(concurrency > 0, "消费者线程数必须大于0");
+        Assert.notNull(listener, "事件监听不能为空");
+        createGroup(stream, group);
+        Subscription<T> subscription = new Subscription<>(stream, group, concurrency, listener);
+        subscriptions.add(subscription);
+        subscription.start();
+        log.info(" >>> 订阅 stream: {}, 消费者组: {}, 线程数: {}", stream, group, concurrency);
+        return subscription;
+    }
+
+    @Override
+    public void destroy() {
+        subscriptions.forEach(Subscription::cancel);
+        claimScheduler.shutdownNow();
+    }
+
+    private void createGroup(String stream, String group) {
+        try {
+            redisTemplate.execute((RedisCallback<String>) connection ->
+                    connection.streamCommands().xGroupCreate(rawKey(stream), group, ReadOffset.latest(), true));
+        } catch (Exception e) {
+            // 消费者组已存在
+            if (!ExceptionUtil.getRootCauseMessage(e).contains("BUSYGROUP")) {
+                throw e;
+            }
+        }
+    }
+
+    private byte[] rawKey(String key) {
+        return ((RedisSerializer<String>) redisTemplate.getKeySerializer()).serialize(key);
+    }
+
+    private static byte[] payloadOf(ByteRecord record) {
+        for (Map.Entry<byte[], byte[]> field : record.getValue().entrySet()) {
+            if (Arrays.equals(field.getKey(), RedisEventPublisher.RAW_PAYLOAD_FIELD)) {
+                return field.getValue();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 一个 stream 上某个消费者组的订阅
+     */
+    public final class Subscription<T> {
+
+        @Getter
+        private final String stream;
+
+        @Getter
+        private final String group;
+
+        private final byte[] rawStream;
+
+        private final RedisEventListener<T> listener;
+
+        private final List<Thread> workers = new ArrayList<>();
+
+        private final List<Consumer> consumers = new ArrayList<>();
+
+        /**
+         * 认领到的消息，由消费者线程处理
+         */
+        private final BlockingQueue<ByteRecord> claimed = new LinkedBlockingQueue<>();
+
+        private ScheduledFuture<?> claimTask;
+
+        private volatile boolean active = true;
+
+        private Subscription(String stream, String group, int concurrency, RedisEventListener<T> listener) {
+            this.stream = stream;
+            this.group = group;
+            this.rawStream = rawKey(stream);
+            this.listener = listener;
+            for (int i = 0; i < concurrency; i++) {
+                Consumer consumer = Consumer.from(group, consumerName + "-" + i);
+                consumers.add(consumer);
+                Thread worker = new Thread(() -> consume(consumer), "wecoding-stream-" + group + "-" + i);
+                worker.setDaemon(true);
+                workers.add(worker);
+            }
+        }
+
+        public boolean isActive() {
+            return active;
+        }
+
+        /**
+         * 取消订阅，等待正在处理的消息完成
+         */
+        public void cancel() {
+            if (!active) {
+                return;
+            }
+            active = false;
+            if (claimTask != null) {
+                claimTask.cancel(false);
+            }
+            for (Thread worker : workers) {
+                try {
+                    worker.join(properties.getPollTimeout().toMillis() + TimeUnit.SECONDS.toMillis(1));
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+            removeIdleConsumers();
+            subscriptions.remove(this);
+        }
+
+        /**
+         * 删除没有待确认消息的消费者，有待确认消息的保留，由其他消费者认领
+         */
+        private void removeIdleConsumers() {
+            for (Consumer consumer : consumers) {
+                try {
+                    PendingMessages pending = redisTemplate.execute((RedisCallback<PendingMessages>) connection ->
+                            connection.streamCommands().xPending(rawStream, group,
+                                    RedisStreamCommands.XPendingOptions.range(Range.unbounded(), 1L).consumer(consumer.getName())));
+                    if (pending == null || pending.isEmpty()) {
+                        redisTemplate.execute((RedisCallback<Boolean>) connection ->
+                                connection.streamCommands().xGroupDelConsumer(rawStream, consumer));
+                    }
+                } catch (Exception e) {
+                    log.warn(" >>> 删除 stream [{}] 消费者 {} 失败: {}", stream, consumer.getName(), e.getMessage());
+                }
+            }
+        }
+
+        private void start() {
+            workers.forEach(Thread::start);
+            long interval = properties.getClaimInterval().toMillis();
+            claimTask = claimScheduler.scheduleWithFixedDelay(this::claimPending, interval, interval, TimeUnit.MILLISECONDS);
+        }
+
+        private void consume(Consumer consumer) {
+            StreamReadOptions readOptions = StreamReadOptions.empty()
+                    .count(properties.getReadCount())
+                    .block(properties.getPollTimeout());
+            while (active) {
+                try {
+                    // 优先处理认领到的消息
+                    ByteRecord claimedRecord;
+                    while (active && (claimedRecord = claimed.poll()) != null) {
+                        dispatch(claimedRecord);
+                    }
+                    List<ByteRecord> records = redisTemplate.execute((RedisCallback<List<ByteRecord>>) connection ->
+                            connection.streamCommands().xReadGroup(consumer, readOptions, StreamOffset.create(rawStream, ReadOffset.lastConsumed())));
+                    if (records != null) {
+                        records.forEach(this::dispatch);
+                    }
+                } catch (Exception e) {
+                    if (!active) {
+                        return;
+                    }
+                    log.error(" >>> 读取 stream [{}] 失败: {}", stream, e.getMessage(), e);
+                    sleepQuietly(properties.getPollTimeout().toMillis());
+                }
+            }
+        }
+
+        private void dispatch(ByteRecord record) {
+            try {
+                byte[] payload = payloadOf(record);
+                T event = payload == null ? null : (T) redisTemplate.getValueSerializer().deserialize(payload);
+                listener.onEvent(stream, record.getId(), event);
+                redisTemplate.execute((RedisCallback<Long>) connection ->
+                        connection.streamCommands().xAck(rawStream, group, record.getId()));
+            } catch (Exception e) {
+                // 不确认，稍后被认领重试
+                log.error(" >>> 处理 stream [{}] 消息 {} 失败: {}", stream, record.getId(), e.getMessage(), e);
+            }
+        }
+
+        /**
+         * 认领空闲过久的待确认消息，超过最大投递次数的转入死信 stream
+         */
+        private void claimPending() {
+            try {
+                PendingMessages pendingMessages = redisTemplate.execute((RedisCallback<PendingMessages>) connection ->
+                        connection.streamCommands().xPending(rawStream, group,
+                                RedisStreamCommands.XPendingOptions.range(Range.unbounded(), (long) properties.getReadCount() * 10)));
+                // 上一轮认领的消息还未处理完时不再认领
+                if (pendingMessages == null || !claimed.isEmpty()) {
+                    return;
+                }
+                String claimer = consumers.get(0).getName();
+                for (PendingMessage pending : pendingMessages) {
+                    if (!active) {
+                        return;
+                    }
+                    if (pending.getElapsedTimeSinceLastDelivery().compareTo(properties.getClaimIdle()) < 0) {
+                        continue;
+                    }
+                    if (pending.getTotalDeliveryCount() >= properties.getMaxDeliveries()) {
+                        deadLetter(pending.getId());
+                        continue;
+                    }
+                    List<ByteRecord> records = redisTemplate.execute((RedisCallback<List<ByteRecord>>) connection ->
+                            connection.streamCommands().xClaim(rawStream, group, claimer,
+                                    RedisStreamCommands.XClaimOptions.minIdle(properties.getClaimIdle()).ids(pending.getId())));
+                    if (records != null) {
+                        claimed.addAll(records);
+                    }
+                }
+            } catch (Exception e) {
+                log.error(" >>> 认领 stream [{}] 待确认消息失败: {}", stream, e.getMessage(), e);
+            }
+        }
+
+        private void deadLetter(RecordId id) {
+            String idString = id.getValue();
+            List<ByteRecord> records = redisTemplate.execute((RedisCallback<List<ByteRecord>>) connection ->
+                    connection.streamCommands().xRange(rawStream, Range.closed(idString, idString)));
+            if (records != null && !records.isEmpty()) {
+                byte[] payload = payloadOf(records.get(0));
+                if (payload != null) {
+                    redisTemplate.execute((RedisCallback<RecordId>) connection -> connection.streamCommands().xAdd(
+                            StreamRecords.rawBytes(Collections.singletonMap(RedisEventPublisher.RAW_PAYLOAD_FIELD, payload))
+                                    .withStreamKey(rawKey(stream + DEAD_LETTER_SUFFIX))));
+                }
+            }
+            redisTemplate.execute((RedisCallback<Long>) connection -> connection.streamCommands().xAck(rawStream, group, id));
+            log.warn(" >>> stream [{}] 消息 {} 超过最大投递次数，已转入死信", stream, idString);
+        }
+
+        private void sleepQuietly(long millis) {
+            try {
+                Thread.sleep(millis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                active = false;
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,245 @@
+/*
+ * Copyright (c) 2022. WeCoding (wecoding@yeah.net).
+ *
+ * Licensed under the GNU LESSER GENERAL PUBLIC LICENSE 3.0;
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.gnu.org/licenses/lgpl.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package top.wecoding.core.cache.support;
+
+import cn.hutool.core.lang.Pair;
+import cn.hutool.core.util.IdUtil;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import top.wecoding.core.cache.base.CacheOperator;
+import top.wecoding.core.cache.service.RedisService;
+import top.wecoding.core.exception.Assert;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * 缓存提前刷新
+ * <p>
+ * 按缓存前缀注册加载器，读取时同时取回剩余时间，剩余时间落在缓存时长的最后 {@code refreshRatio} 内时，
+ * 在线程池中异步重新加载并写回，读取方始终拿到当前值，热点 key 不会在过期瞬间集中回源。
+ * 同一个 key 在当前进程内只会有一个刷新任务，集群内通过短时 Redis 锁只让一个节点刷新。
+ * 按缓存注册时刷新结果经由该缓存写回，与正常写入一样适用失效时长策略、布隆过滤器及本地缓存失效通知
+ *
+ * @author liuyuhui
+ * @date 2022/6/26
+ * @qq 1515418211
+ */
+@Slf4j
+@SuppressWarnings("unchecked")
+public class CacheRefresher implements DisposableBean {
+
+    /**
+     * 默认在缓存时长的最后 20% 内刷新
+     */
+    public static final double DEF_REFRESH_RATIO = 0.2;
+
+    private static final String REFRESH_LOCK_SUFFIX = ":refresh_lock";
+
+    /**
+     * 刷新锁的持有时长
+     */
+    private static final Duration REFRESH_LOCK_LEASE = Duration.ofSeconds(5);
+
+    /**
+     * 默认刷新线程池的队列长度
+     */
+    private static final int REFRESH_QUEUE_CAPACITY = 256;
+
+    private final RedisService redisService;
+
+    private final Executor executor;
+
+    /**
+     * 未指定线程池时自行创建的线程池，销毁时关闭
+     */
+    private final ThreadPoolExecutor defaultExecutor;
+
+    private final Map<String, Registration> registrations = new ConcurrentHashMap<>();
+
+    private final Set<String> refreshing = ConcurrentHashMap.newKeySet();
+
+    /**
+     * @param redisService RedisService
+     * @param executor     刷新线程池，为空时使用默认线程池：队列满时拒绝刷新任务，不阻塞读取缓存的线程
+     */
+    public CacheRefresher(RedisService redisService, Executor executor) {
+        this.redisService = redisService;
+        this.defaultExecutor = executor == null ? createDefaultExecutor() : null;
+        this.executor = executor == null ? defaultExecutor : executor;
+    }
+
+    private static ThreadPoolExecutor createDefaultExecutor() {
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("wecoding-cache-refresh-");
+        threadFactory.setDaemon(true);
+        int threads = Runtime.getRuntime().availableProcessors();
+        ThreadPoolExecutor taskExecutor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(REFRESH_QUEUE_CAPACITY), threadFactory, new ThreadPoolExecutor.AbortPolicy());
+        taskExecutor.allowCoreThreadTimeOut(true);
+        return taskExecutor;
+    }
+
+    /**
+     * 为缓存注册加载器，刷新结果通过该缓存写回
+     *
+     * @param operator 缓存
+     * @param loader   加载器，参数为不含前缀的 key
+     * @param timeout  缓存时长/秒
+     */
+    public <T> void register(CacheOperator<T> operator, Function<String, T> loader, long timeout) {
+        register(operator, loader, timeout, DEF_REFRESH_RATIO);
+    }
+
+    /**
+     * 为缓存注册加载器，刷新结果通过该缓存写回
+     *
+     * @param operator     缓存
+     * @param loader       加载器，参数为不含前缀的 key
+     * @param timeout      缓存时长/秒
+     * @param refreshRatio 剩余时间不超过缓存时长的该比例时刷新，取值 (0, 1)
+     */
+    public <T> void register(CacheOperator<T> operator, Function<String, T> loader, long timeout, double refreshRatio) {
+        Assert.notNull(operator, "缓存不能为空");
+        register(operator.getKeyPrefix(), loader, timeout, refreshRatio,
+                (key, value) -> operator.set(key, (T) value, timeout));
+    }
+
+    /**
+     * 为缓存前缀注册加载器
+     *
+     * @param keyPrefix    缓存前缀
+     * @param loader       加载器，参数为不含前缀的 key
+     * @param timeout      缓存时长/秒
+     * @param refreshRatio 剩余时间不超过缓存时长的该比例时刷新，取值 (0, 1)
+     */
+    public <T> void register(String keyPrefix, Function<String, T> loader, long timeout, double refreshRatio) {
+        register(keyPrefix, loader, timeout, refreshRatio,
+                (key, value) -> redisService.set(keyPrefix + key, value, timeout));
+    }
+
+    private <T> void register(String keyPrefix, Function<String, T> loader, long timeout, double refreshRatio,
+                              BiConsumer<String, Object> writer) {
+        Assert.notNull(loader, "加载器不能为空");
+        Assert.isTrue(timeout > 0, "缓存时长必须大于0");
+        Assert.isTrue(refreshRatio > 0 && refreshRatio < 1, "刷新比例必须在 (0, 1) 之间");
+        long refreshMillis = (long) (Duration.ofSeconds(timeout).toMillis() * refreshRatio);
+        registrations.put(keyPrefix, new Registration((Function<String, Object>) loader, writer, refreshMillis));
+    }
+
+    public void unregister(String keyPrefix) {
+        registrations.remove(keyPrefix);
+    }
+
+    public boolean isRegistered(String keyPrefix) {
+        return registrations.containsKey(keyPrefix);
+    }
+
+    /**
+     * 读取缓存，临近过期时提交异步刷新
+     *
+     * @param keyPrefix 缓存前缀
+     * @param key       不含前缀的 key
+     * @return 当前缓存值
+     */
+    public <T> T get(String keyPrefix, String key) {
+        String cacheKey = keyPrefix + key;
+        Registration registration = registrations.get(keyPrefix);
+        if (registration == null) {
+            return redisService.get(cacheKey);
+        }
+        Pair<T, Long> valueWithTtl = redisService.getWithPTtl(cacheKey);
+        T value = valueWithTtl.getKey();
+        Long pTtl = valueWithTtl.getValue();
+        if (value != null && pTtl != null && pTtl >= 0 && pTtl <= registration.refreshMillis) {
+            refreshAsync(cacheKey, key, registration);
+        }
+        return value;
+    }
+
+    @Override
+    public void destroy() {
+        if (defaultExecutor != null) {
+            defaultExecutor.shutdown();
+        }
+    }
+
+    private void refreshAsync(String cacheKey, String key, Registration registration) {
+        if (!refreshing.add(cacheKey)) {
+            return;
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    refresh(cacheKey, key, registration);
+                } finally {
+                    refreshing.remove(cacheKey);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            refreshing.remove(cacheKey);
+            log.warn(" >>> 缓存 [{}] 提前刷新任务被拒绝: {}", cacheKey, e.getMessage());
+        }
+    }
+
+    private void refresh(String cacheKey, String key, Registration registration) {
+        String lockKey = cacheKey + REFRESH_LOCK_SUFFIX;
+        String token = IdUtil.fastSimpleUUID();
+        // 其他节点正在刷新
+        if (!Boolean.TRUE.equals(redisService.getStringRedisTemplate().opsForValue().setIfAbsent(lockKey, token, REFRESH_LOCK_LEASE))) {
+            return;
+        }
+        try {
+            Object value = registration.loader.apply(key);
+            if (value != null) {
+                registration.writer.accept(key, value);
+            }
+        } catch (Exception e) {
+            log.error(" >>> 缓存 [{}] 提前刷新失败: {}", cacheKey, e.getMessage(), e);
+        } finally {
+            redisService.getStringRedisTemplate().execute(
+                    redisService.getScriptRegistry().get(RedisScriptRegistry.COMPARE_AND_DELETE, Long.class),
+                    Collections.singletonList(lockKey), token);
+        }
+    }
+
+    private static final class Registration {
+
+        private final Function<String, Object> loader;
+
+        private final BiConsumer<String, Object> writer;
+
+        private final long refreshMillis;
+
+        private Registration(Function<String, Object> loader, BiConsumer<String, Object> writer, long refreshMillis) {
+            this.loader = loader;
+            this.writer = writer;
+            this.refreshMillis = refreshMillis;
+        }
+
+    }
+
+}
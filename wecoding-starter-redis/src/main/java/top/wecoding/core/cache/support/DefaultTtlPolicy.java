@@ -0,0 +1,73 @@
+/*
+ * Copyright (c) 2022. WeCoding (wecoding@yeah.net).
+ *
+ * Licensed under the GNU LESSER GENERAL PUBLIC LICENSE 3.0;
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.gnu.org/licenses/lgpl.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package top.wecoding.core.cache.support;
+
+import top.wecoding.core.cache.base.TtlPolicy;
+import top.wecoding.core.exception.Assert;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 默认失效时长策略
+ * <p>
+ * 按最长匹配的 key 前缀覆盖失效时长，再在 [ttl, ttl * (1 + jitter)] 内随机取值，
+ * 批量写入的 key 不会在同一时刻集中失效。抖动只会延长失效时长，不会提前失效
+ *
+ * @author liuyuhui
+ * @date 2022/6/26
+ * @qq 1515418211
+ */
+public class DefaultTtlPolicy implements TtlPolicy {
+
+    private final double jitter;
+
+    /**
+     * 按前缀长度降序排列，优先匹配最长的前缀
+     */
+    private final List<Map.Entry<String, Duration>> rules;
+
+    /**
+     * @param jitter 抖动比例，取值 [0, 1]
+     * @param rules  key 前缀与失效时长
+     */
+    public DefaultTtlPolicy(double jitter, Map<String, Duration> rules) {
+        Assert.isTrue(jitter >= 0 && jitter <= 1, "抖动比例必须在 [0, 1] 之间");
+        this.jitter = jitter;
+        this.rules = new ArrayList<>(rules.entrySet());
+        this.rules.sort(Comparator.comparingInt((Map.Entry<String, Duration> rule) -> rule.getKey().length()).reversed());
+    }
+
+    @Override
+    public Duration apply(String key, Duration ttl) {
+        for (Map.Entry<String, Duration> rule : rules) {
+            if (key.startsWith(rule.getKey())) {
+                ttl = rule.getValue();
+                break;
+            }
+        }
+        if (jitter <= 0 || ttl == null || ttl.isZero() || ttl.isNegative()) {
+            return ttl;
+        }
+        long bound = (long) (ttl.toMillis() * jitter);
+        return bound <= 0 ? ttl : ttl.plusMillis(ThreadLocalRandom.current().nextLong(bound + 1));
+    }
+
+}
@@ -0,0 +1,150 @@
+/*
+ * Copyright (c) 2022. WeCoding (wecoding@yeah.net).
+ *
+ * Licensed under the GNU LESSER GENERAL PUBLIC LICENSE 3.0;
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.gnu.org/licenses/lgpl.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package top.wecoding.core.cache.support;
+
+import com.github.benmanes.caffeine.cache.Cache;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Supplier;
+
+/**
+ * 二级缓存使用的本地缓存
+ * <p>
+ * 未命中时在 Caffeine compute 之外加载，同一个 key 同一时刻只加载一次，不会因远程读取阻塞同一分段上的其他 key。
+ * 每次写入、清除都会递增 key 所在分段的版本号，加载完成后版本号变化说明期间有并发写入或失效通知，
+ * 此时丢弃刚回填的值，避免旧值覆盖失效结果
+ *
+ * @author liuyuhui
+ * @date 2022/6/18
+ * @qq 1515418211
+ */
+public class LocalCache<V> {
+
+    /**
+     * 版本号分段数量，必须为 2 的幂
+     */
+    private static final int STRIPES = 64;
+
+    private final Cache<String, V> cache;
+
+    private final AtomicLongArray generations = new AtomicLongArray(STRIPES);
+
+    private final SingleFlight singleFlight = new SingleFlight();
+
+    public LocalCache(Cache<String, V> cache) {
+        this.cache = cache;
+    }
+
+    public V getIfPresent(String key) {
+        return cache.getIfPresent(key);
+    }
+
+    public Map<String, V> getAllPresent(Iterable<String> keys) {
+        return cache.getAllPresent(keys);
+    }
+
+    public boolean containsKey(String key) {
+        return cache.asMap().containsKey(key);
+    }
+
+    /**
+     * 读取本地缓存，未命中时调用加载器并回填
+     *
+     * @param key    键
+     * @param loader 加载器，返回 null 时不回填
+     * @return 缓存值
+     */
+    public V get(String key, Supplier<V> loader) {
+        V value = cache.getIfPresent(key);
+        if (value != null) {
+            return value;
+        }
+        return singleFlight.execute(key, () -> {
+            V cached = cache.getIfPresent(key);
+            if (cached != null) {
+                return cached;
+            }
+            long generation = generation(key);
+            V loaded = loader.get();
+            if (loaded != null) {
+                putIfCurrent(key, loaded, generation);
+            }
+            return loaded;
+        });
+    }
+
+    /**
+     * 读取本地缓存前的版本号，配合 {@link #putIfCurrent} 回填在本地缓存之外批量读取的值
+     *
+     * @param key 键
+     * @return 版本号
+     */
+    public long generation(String key) {
+        return generations.get(stripe(key));
+    }
+
+    /**
+     * 回填读取到的值，读取期间有写入或清除时放弃回填
+     *
+     * @param key        键
+     * @param value      值
+     * @param generation 读取前的版本号
+     */
+    public void putIfCurrent(String key, V value, long generation) {
+        if (generation(key) != generation) {
+            return;
+        }
+        cache.asMap().putIfAbsent(key, value);
+        // 回填与清除之间存在竞争，版本号在回填后发生变化时由本线程补做清除
+        if (generation(key) != generation) {
+            cache.invalidate(key);
+        }
+    }
+
+    public void put(String key, V value) {
+        generations.incrementAndGet(stripe(key));
+        cache.put(key, value);
+    }
+
+    public void invalidate(String key) {
+        generations.incrementAndGet(stripe(key));
+        cache.invalidate(key);
+    }
+
+    public void invalidateAll(Collection<String> keys) {
+        keys.forEach(key -> generations.incrementAndGet(stripe(key)));
+        cache.invalidateAll(keys);
+    }
+
+    public void invalidateAll() {
+        for (int i = 0; i < STRIPES; i++) {
+            generations.incrementAndGet(i);
+        }
+        cache.invalidateAll();
+    }
+
+    public Cache<String, V> getNativeCache() {
+        return cache;
+    }
+
+    private static int stripe(String key) {
+        int h = key.hashCode();
+        return (h ^ (h >>> 16)) & (STRIPES - 1);
+    }
+
+}
@@ -0,0 +1,115 @@
+/*
+ * Copyright (c) 2022. WeCoding (wecoding@yeah.net).
+ *
+ * Licensed under the GNU LESSER GENERAL PUBLIC LICENSE 3.0;
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.gnu.org/licenses/lgpl.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package top.wecoding.core.cache.support;
+
+import cn.hutool.core.io.resource.ResourceUtil;
+import org.springframework.data.redis.core.script.RedisScript;
+import top.wecoding.core.exception.Assert;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Lua 脚本注册表
+ * <p>
+ * 脚本首次使用时从 {@code classpath:scripts/wecoding/{name}.lua} 读取并缓存，SHA1 只计算一次。
+ * 通过 RedisTemplate 执行时先 EVALSHA，Redis 返回 NOSCRIPT 时自动改用 EVAL 并重新加载脚本
+ *
+ * @author liuyuhui
+ * @date 2022/6/21
+ * @qq 1515418211
+ */
+public class RedisScriptRegistry {
+
+    /**
+     * 内置脚本位置
+     */
+    public static final String SCRIPT_LOCATION = "scripts/wecoding/";
+
+    /**
+     * 版本号一致时写入值
+     */
+    public static final String SET_IF_VERSION = "set_if_version";
+
+    /**
+     * 累加计数器并在首次创建时设置有效时间
+     */
+    public static final String INCR_WITH_EXPIRE = "incr_with_expire";
+
+    /**
+     * 写入 Hash 并设置有效时间
+     */
+    public static final String HASH_PUT_WITH_TTL = "hash_put_with_ttl";
+
+    /**
+     * 写入 Set 并设置有效时间
+     */
+    public static final String SET_ADD_WITH_TTL = "set_add_with_ttl";
+
+    /**
+     * 值与期望值一致时删除
+     */
+    public static final String COMPARE_AND_DELETE = "compare_and_delete";
+
+    /**
+     * 令牌桶限流
+     */
+    public static final String RATE_LIMIT = "rate_limit";
+
+    /**
+     * 获取分布式锁
+     */
+    public static final String LOCK_ACQUIRE = "lock_acquire";
+
+    /**
+     * 分布式锁续期
+     */
+    public static final String LOCK_RENEW = "lock_renew";
+
+    /**
+     * 释放分布式锁
+     */
+    public static final String LOCK_RELEASE = "lock_release";
+
+    private final Map<String, RedisScript<?>> scripts = new ConcurrentHashMap<>();
+
+    /**
+     * 获取脚本，未注册时从 {@link #SCRIPT_LOCATION} 加载
+     *
+     * @param name       脚本名称
+     * @param resultType 返回值类型
+     * @return 脚本
+     */
+    @SuppressWarnings("unchecked")
+    public <T> RedisScript<T> get(String name, Class<T> resultType) {
+        RedisScript<?> script = scripts.computeIfAbsent(name, key ->
+                RedisScript.of(ResourceUtil.readUtf8Str(SCRIPT_LOCATION + key + ".lua"), resultType));
+        Assert.isTrue(resultType.equals(script.getResultType()), "脚本 [{}] 的返回值类型为 {}", name, script.getResultType());
+        return (RedisScript<T>) script;
+    }
+
+    /**
+     * 注册脚本，同名脚本会被覆盖
+     *
+     * @param name   脚本名称
+     * @param script 脚本
+     */
+    public void register(String name, RedisScript<?> script) {
+        Assert.notNull(script, "脚本不能为空");
+        scripts.put(name, script);
+    }
+
+}
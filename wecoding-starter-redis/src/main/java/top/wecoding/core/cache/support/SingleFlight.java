@@ -0,0 +1,119 @@
+/*
+ * Copyright (c) 2022. WeCoding (wecoding@yeah.net).
+ *
+ * Licensed under the GNU LESSER GENERAL PUBLIC LICENSE 3.0;
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.gnu.org/licenses/lgpl.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package top.wecoding.core.cache.support;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Supplier;
+
+/**
+ * 同一个 key 同一时刻只执行一次加载，其余调用等待并共享该结果
+ *
+ * @author liuyuhui
+ * @date 2022/6/19
+ * @qq 1515418211
+ */
+@SuppressWarnings("unchecked")
+public class SingleFlight {
+
+    private final ConcurrentMap<String, CompletableFuture<Object>> calls = new ConcurrentHashMap<>();
+
+    /**
+     * 执行加载，已有相同 key 的加载在执行时等待其结果
+     *
+     * @param key      键
+     * @param supplier 加载器
+     * @return 加载结果
+     */
+    public <T> T execute(String key, Supplier<T> supplier) {
+        CompletableFuture<Object> future = new CompletableFuture<>();
+        CompletableFuture<Object> running = calls.putIfAbsent(key, future);
+        if (running != null) {
+            return (T) await(running);
+        }
+        try {
+            T value = supplier.get();
+            future.complete(value);
+            return value;
+        } catch (RuntimeException | Error e) {
+            future.completeExceptionally(e);
+            throw e;
+        } finally {
+            calls.remove(key, future);
+        }
+    }
+
+    /**
+     * 异步执行加载，已有相同 key 的加载在执行时共享其结果，不阻塞调用线程
+     *
+     * @param key      键
+     * @param supplier 异步加载器
+     * @return 加载结果
+     */
+    public <T> CompletableFuture<T> executeAsync(String key, Supplier<CompletableFuture<T>> supplier) {
+        CompletableFuture<Object> future = new CompletableFuture<>();
+        CompletableFuture<Object> running = calls.putIfAbsent(key, future);
+        if (running != null) {
+            return running.thenApply(value -> (T) value);
+        }
+        try {
+            supplier.get().whenComplete((value, e) -> {
+                calls.remove(key, future);
+                if (e != null) {
+                    future.completeExceptionally(e);
+                } else {
+                    future.complete(value);
+                }
+            });
+        } catch (RuntimeException | Error e) {
+            calls.remove(key, future);
+            future.completeExceptionally(e);
+        }
+        return future.thenApply(value -> (T) value);
+    }
+
+    /**
+     * 是否有相同 key 的加载正在执行
+     *
+     * @param key 键
+     * @return 是否正在执行
+     */
+    public boolean isRunning(String key) {
+        return calls.containsKey(key);
+    }
+
+    private static Object await(CompletableFuture<Object> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CompletionException(e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new CompletionException(cause);
+        }
+    }
+
+}
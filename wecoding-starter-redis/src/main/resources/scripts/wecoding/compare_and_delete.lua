@@ -0,0 +1,8 @@
+-- 值与期望值一致时删除
+-- KEYS[1] 缓存 key
+-- ARGV[1] 期望的值
+-- 返回删除的 key 数量
+if redis.call('get', KEYS[1]) == ARGV[1] then
+    return redis.call('del', KEYS[1])
+end
+return 0
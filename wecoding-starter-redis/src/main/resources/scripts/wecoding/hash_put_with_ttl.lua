@@ -0,0 +1,13 @@
+-- 写入 Hash 并设置有效时间
+-- KEYS[1] Hash key
+-- ARGV[1] 有效时间/毫秒，小于等于 0 时不设置，ARGV[2..n] field、value 交替
+-- 返回新增的 field 数量
+local added = 0
+for i = 2, #ARGV, 2 do
+    added = added + redis.call('hset', KEYS[1], ARGV[i], ARGV[i + 1])
+end
+local ttl = tonumber(ARGV[1])
+if ttl > 0 then
+    redis.call('pexpire', KEYS[1], ttl)
+end
+return added
@@ -0,0 +1,10 @@
+-- 累加计数器，计数器没有有效时间时（首次创建）设置有效时间
+-- KEYS[1] 计数器 key
+-- ARGV[1] 增量，ARGV[2] 有效时间/毫秒，小于等于 0 时不设置
+-- 返回累加结果
+local value = redis.call('incrby', KEYS[1], ARGV[1])
+local ttl = tonumber(ARGV[2])
+if ttl > 0 and redis.call('pttl', KEYS[1]) == -1 then
+    redis.call('pexpire', KEYS[1], ttl)
+end
+return value
@@ -0,0 +1,12 @@
+-- 获取锁，成功时递增并返回 fencing token
+-- KEYS[1] 锁 key，KEYS[2] fencing token key
+-- ARGV[1] 持有者，ARGV[2] 租期/毫秒
+-- 成功返回 fencing token(大于 0)，失败返回锁剩余时间的相反数(毫秒，小于 0)
+if redis.call('set', KEYS[1], ARGV[1], 'nx', 'px', ARGV[2]) then
+    return redis.call('incr', KEYS[2])
+end
+local ttl = redis.call('pttl', KEYS[1])
+if ttl > 0 then
+    return -ttl
+end
+return -1
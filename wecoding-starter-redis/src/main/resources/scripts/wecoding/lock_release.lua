@@ -0,0 +1,10 @@
+-- 释放锁并通知等待者，只释放自己持有的锁
+-- KEYS[1] 锁 key
+-- ARGV[1] 持有者，ARGV[2] 通知频道，ARGV[3] 锁名称
+-- 返回 1 释放成功，0 锁已不属于该持有者
+if redis.call('get', KEYS[1]) == ARGV[1] then
+    redis.call('del', KEYS[1])
+    redis.call('publish', ARGV[2], ARGV[3])
+    return 1
+end
+return 0
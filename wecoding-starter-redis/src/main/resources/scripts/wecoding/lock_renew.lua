@@ -0,0 +1,8 @@
+-- 续期，只续期自己持有的锁
+-- KEYS[1] 锁 key
+-- ARGV[1] 持有者，ARGV[2] 租期/毫秒
+-- 返回 1 续期成功，0 锁已不属于该持有者
+if redis.call('get', KEYS[1]) == ARGV[1] then
+    return redis.call('pexpire', KEYS[1], ARGV[2])
+end
+return 0
@@ -0,0 +1,37 @@
+-- 令牌桶限流，时间以 Redis 服务器为准
+-- KEYS[1] 令牌桶 key
+-- ARGV[1] 桶容量，ARGV[2] 每秒生成的令牌数，ARGV[3] 申请的令牌数，ARGV[4] 令牌不足时是否允许部分获取(1/0)
+-- 返回获取到的令牌数
+if redis.replicate_commands then
+    redis.replicate_commands()
+end
+local capacity = tonumber(ARGV[1])
+local rate = tonumber(ARGV[2])
+local requested = tonumber(ARGV[3])
+local partial = ARGV[4] == '1'
+
+local time = redis.call('time')
+local now = tonumber(time[1]) * 1000 + math.floor(tonumber(time[2]) / 1000)
+
+local bucket = redis.call('hmget', KEYS[1], 'tokens', 'ts')
+local tokens = tonumber(bucket[1])
+local ts = tonumber(bucket[2])
+if tokens == nil or ts == nil then
+    tokens = capacity
+    ts = now
+end
+if now > ts then
+    tokens = math.min(capacity, tokens + (now - ts) * rate / 1000)
+end
+
+local granted = 0
+if tokens >= requested then
+    granted = requested
+elseif partial and tokens >= 1 then
+    granted = math.floor(tokens)
+end
+tokens = tokens - granted
+
+redis.call('hset', KEYS[1], 'tokens', tostring(tokens), 'ts', tostring(math.max(now, ts)))
+redis.call('pexpire', KEYS[1], math.ceil(capacity / rate * 1000) + 1000)
+return granted
@@ -0,0 +1,13 @@
+-- 写入 Set 并设置有效时间
+-- KEYS[1] Set key
+-- ARGV[1] 有效时间/毫秒，小于等于 0 时不设置，ARGV[2..n] 成员
+-- 返回新增的成员数量
+local added = 0
+for i = 2, #ARGV do
+    added = added + redis.call('sadd', KEYS[1], ARGV[i])
+end
+local ttl = tonumber(ARGV[1])
+if ttl > 0 then
+    redis.call('pexpire', KEYS[1], ttl)
+end
+return added
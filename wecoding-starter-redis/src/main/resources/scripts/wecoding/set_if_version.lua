@@ -0,0 +1,18 @@
+-- 版本号一致时写入值并递增版本号
+-- KEYS[1] 缓存 key，KEYS[2] 版本号 key
+-- ARGV[1] 值，ARGV[2] 期望的版本号，ARGV[3] 有效时间/毫秒，小于等于 0 时永不过期
+-- 返回新的版本号，版本号不一致时返回 -1
+local current = tonumber(redis.call('get', KEYS[2]) or '0')
+if current ~= tonumber(ARGV[2]) then
+    return -1
+end
+local ttl = tonumber(ARGV[3])
+local version = redis.call('incr', KEYS[2])
+if ttl > 0 then
+    redis.call('set', KEYS[1], ARGV[1], 'px', ttl)
+    redis.call('pexpire', KEYS[2], ttl)
+else
+    redis.call('set', KEYS[1], ARGV[1])
+    redis.call('persist', KEYS[2])
+end
+return version
@@ -0,0 +1,155 @@
+/*
+ * Copyright (c) 2022. WeCoding (wecoding@yeah.net).
+ *
+ * Licensed under the GNU LESSER GENERAL PUBLIC LICENSE 3.0;
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.gnu.org/licenses/lgpl.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY StringIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package top.wecoding.core.cache.base;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.test.util.ReflectionTestUtils;
+import top.wecoding.core.cache.model.CacheInvalidateMessage;
+import top.wecoding.core.cache.service.RedisService;
+
+import java.util.Collections;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * @author liuyuhui
+ * @date 2022/6/30
+ * @qq 1515418211
+ */
+@SuppressWarnings("unchecked")
+class TwoLevelCacheOperatorTest {
+
+    private static final String PREFIX = "test:";
+
+    private RedisService redisService;
+
+    private RedisSerializer<Object> valueSerializer;
+
+    private TestCacheOperator operator;
+
+    @BeforeEach
+    void setUp() {
+        redisService = mock(RedisService.class);
+        RedisTemplate<String, Object> redisTemplate = mock(RedisTemplate.class);
+        valueSerializer = mock(RedisSerializer.class);
+        when(redisService.getRedisTemplate()).thenReturn(redisTemplate);
+        when(redisTemplate.getValueSerializer()).thenReturn((RedisSerializer) valueSerializer);
+
+        operator = new TestCacheOperator();
+        ReflectionTestUtils.setField(operator, "redisService", redisService);
+    }
+
+    @Test
+    void localHit() {
+        when(redisService.get(PREFIX + "a")).thenReturn("1");
+
+        assertThat(operator.get("a")).isEqualTo("1");
+        assertThat(operator.get("a")).isEqualTo("1");
+        verify(redisService, times(1)).get(PREFIX + "a");
+    }
+
+    @Test
+    void localMissDoesNotCacheNull() {
+        assertThat(operator.get("a")).isNull();
+        assertThat(operator.get("a")).isNull();
+        verify(redisService, times(2)).get(PREFIX + "a");
+    }
+
+    @Test
+    void loaderFillsLocalCache() {
+        Supplier<String> loader = () -> "loaded";
+        when(redisService.get(eq(PREFIX + "a"), any(Supplier.class), any())).thenAnswer(invocation ->
+                ((Supplier<String>) invocation.getArgument(1)).get());
+
+        assertThat(operator.get("a", loader)).isEqualTo("loaded");
+        assertThat(operator.get("a", loader)).isEqualTo("loaded");
+        verify(redisService, times(1)).get(eq(PREFIX + "a"), any(Supplier.class), any());
+        verify(redisService, never()).get(PREFIX + "a");
+    }
+
+    @Test
+    void invalidateOnMessage() {
+        when(redisService.get(PREFIX + "a")).thenReturn("1", "2");
+        assertThat(operator.get("a")).isEqualTo("1");
+
+        byte[] body = new byte[0];
+        when(valueSerializer.deserialize(body)).thenReturn(
+                new CacheInvalidateMessage("other-node", PREFIX, Collections.singletonList("a")));
+        operator.onMessage(new DefaultMessage(new byte[0], body), null);
+
+        assertThat(operator.get("a")).isEqualTo("2");
+        verify(redisService, times(2)).get(PREFIX + "a");
+    }
+
+    @Test
+    void ignoreMessageForOtherPrefix() {
+        when(redisService.get(PREFIX + "a")).thenReturn("1", "2");
+        assertThat(operator.get("a")).isEqualTo("1");
+
+        byte[] body = new byte[0];
+        when(valueSerializer.deserialize(body)).thenReturn(
+                new CacheInvalidateMessage("other-node", "other:", Collections.singletonList("a")));
+        operator.onMessage(new DefaultMessage(new byte[0], body), null);
+
+        assertThat(operator.get("a")).isEqualTo("1");
+    }
+
+    @Test
+    void invalidateDuringLoadIsNotBackfilled() {
+        // 读取 Redis 期间收到失效通知，读到的旧值不应回填本地缓存
+        when(redisService.get(PREFIX + "a")).thenAnswer(invocation -> {
+            operator.invalidateLocal(Collections.singletonList("a"));
+            return "stale";
+        }).thenReturn("fresh");
+
+        assertThat(operator.get("a")).isEqualTo("stale");
+        assertThat(operator.get("a")).isEqualTo("fresh");
+        assertThat(operator.get("a")).isEqualTo("fresh");
+        verify(redisService, times(2)).get(PREFIX + "a");
+    }
+
+    @Test
+    void setPublishesInvalidation() {
+        operator.set("a", "1", 60);
+
+        assertThat(operator.get("a")).isEqualTo("1");
+        verify(redisService, never()).get(anyString());
+        verify(redisService.getRedisTemplate()).convertAndSend(eq(TwoLevelCacheOperator.INVALIDATE_CHANNEL), any(CacheInvalidateMessage.class));
+    }
+
+    private static class TestCacheOperator extends TwoLevelCacheOperator<String> {
+
+        @Override
+        public String getKeyPrefix() {
+            return PREFIX;
+        }
+
+    }
+
+}
@@ -0,0 +1,113 @@
+/*
+ * Copyright (c) 2022. WeCoding (wecoding@yeah.net).
+ *
+ * Licensed under the GNU LESSER GENERAL PUBLIC LICENSE 3.0;
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.gnu.org/licenses/lgpl.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package top.wecoding.core.cache.manager;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.Cache;
+import org.springframework.cache.support.SimpleValueWrapper;
+import org.springframework.core.convert.support.DefaultConversionService;
+
+import java.util.Collections;
+import java.util.concurrent.Callable;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * @author liuyuhui
+ * @date 2022/6/30
+ * @qq 1515418211
+ */
+class TwoLevelCacheTest {
+
+    private Cache redisCache;
+
+    private TwoLevelCacheManager cacheManager;
+
+    private TwoLevelCache cache;
+
+    @BeforeEach
+    void setUp() {
+        redisCache = mock(Cache.class);
+        cacheManager = mock(TwoLevelCacheManager.class);
+        cache = new TwoLevelCache("test", redisCache, Caffeine.newBuilder().build(),
+                new DefaultConversionService(), true, cacheManager);
+    }
+
+    @Test
+    void localHit() {
+        when(redisCache.get(1L)).thenReturn(new SimpleValueWrapper("1"));
+
+        assertThat(cache.get(1L).get()).isEqualTo("1");
+        assertThat(cache.get(1L).get()).isEqualTo("1");
+        verify(redisCache, times(1)).get(1L);
+    }
+
+    @Test
+    void localMissIsNotCached() {
+        assertThat(cache.get(1L)).isNull();
+        assertThat(cache.get(1L)).isNull();
+        verify(redisCache, times(2)).get(1L);
+    }
+
+    @Test
+    void invalidateLocal() {
+        when(redisCache.get(1L)).thenReturn(new SimpleValueWrapper("1"), new SimpleValueWrapper("2"));
+        assertThat(cache.get(1L).get()).isEqualTo("1");
+
+        cache.invalidateLocal(Collections.singletonList("1"));
+
+        assertThat(cache.get(1L).get()).isEqualTo("2");
+    }
+
+    @Test
+    void invalidateDuringLoadIsNotBackfilled() {
+        when(redisCache.get(1L)).thenAnswer(invocation -> {
+            cache.invalidateLocal(Collections.singletonList("1"));
+            return new SimpleValueWrapper("stale");
+        }).thenReturn(new SimpleValueWrapper("fresh"));
+
+        assertThat(cache.get(1L).get()).isEqualTo("stale");
+        assertThat(cache.get(1L).get()).isEqualTo("fresh");
+        assertThat(cache.get(1L).get()).isEqualTo("fresh");
+        verify(redisCache, times(2)).get(1L);
+    }
+
+    @Test
+    void valueLoaderFillsLocalCache() {
+        when(redisCache.get(eq(1L), any(Callable.class))).thenReturn("loaded");
+
+        assertThat(cache.get(1L, () -> "loaded")).isEqualTo("loaded");
+        assertThat(cache.get(1L, () -> "loaded")).isEqualTo("loaded");
+        verify(redisCache, times(1)).get(eq(1L), any(Callable.class));
+    }
+
+    @Test
+    void putPublishesInvalidation() {
+        cache.put(1L, "1");
+
+        assertThat(cache.get(1L).get()).isEqualTo("1");
+        verify(cacheManager).publish("test", Collections.singletonList("1"));
+    }
+
+}
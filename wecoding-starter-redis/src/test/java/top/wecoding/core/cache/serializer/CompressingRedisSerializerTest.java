@@ -0,0 +1,105 @@
+/*
+ * Copyright (c) 2022. WeCoding (wecoding@yeah.net).
+ *
+ * Licensed under the GNU LESSER GENERAL PUBLIC LICENSE 3.0;
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.gnu.org/licenses/lgpl.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package top.wecoding.core.cache.serializer;
+
+import cn.hutool.core.util.StrUtil;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * @author liuyuhui
+ * @date 2022/6/30
+ * @qq 1515418211
+ */
+class CompressingRedisSerializerTest {
+
+    private static final int THRESHOLD = 256;
+
+    private final KryoRedisSerializer kryoSerializer = new KryoRedisSerializer();
+
+    private final CompressingRedisSerializer serializer = new CompressingRedisSerializer(kryoSerializer, THRESHOLD);
+
+    @Test
+    void smallValueIsNotCompressed() {
+        byte[] bytes = serializer.serialize("small");
+
+        assertThat(bytes).isEqualTo(kryoSerializer.serialize("small"));
+        assertThat(serializer.deserialize(bytes)).isEqualTo("small");
+        assertThat(serializer.getSkippedCount()).isEqualTo(1);
+        assertThat(serializer.getCompressedCount()).isZero();
+    }
+
+    @Test
+    void largeValueIsCompressed() {
+        String value = StrUtil.repeat("wecoding-", 200);
+
+        byte[] bytes = serializer.serialize(value);
+
+        assertThat(bytes[0]).isEqualTo(CompressingRedisSerializer.MAGIC);
+        assertThat(bytes.length).isLessThan(kryoSerializer.serialize(value).length);
+        assertThat(serializer.deserialize(bytes)).isEqualTo(value);
+        assertThat(serializer.getCompressedCount()).isEqualTo(1);
+        assertThat(serializer.getCompressionRatio()).isLessThan(1D);
+    }
+
+    @Test
+    void incompressibleValueIsStoredRaw() {
+        byte[] random = new byte[THRESHOLD * 4];
+        new Random(1).nextBytes(random);
+
+        byte[] bytes = serializer.serialize(random);
+
+        assertThat(bytes).isEqualTo(kryoSerializer.serialize(random));
+        assertThat(serializer.deserialize(bytes)).isEqualTo(random);
+        assertThat(serializer.getCompressedCount()).isZero();
+    }
+
+    @Test
+    void readsLegacyUncompressedValues() {
+        // 开启压缩前写入的大值，没有压缩头部
+        String value = StrUtil.repeat("legacy-", 200);
+        FastJson2JsonRedisSerializer<Object> jsonSerializer = new FastJson2JsonRedisSerializer<>(Object.class);
+
+        assertThat(serializer.deserialize(kryoSerializer.serialize(value))).isEqualTo(value);
+        assertThat(serializer.deserialize(jsonSerializer.serialize(value))).isEqualTo(value);
+        assertThat(((Number) serializer.deserialize("42".getBytes())).longValue()).isEqualTo(42L);
+    }
+
+    @Test
+    void corruptLengthIsRejected() {
+        byte[] bytes = serializer.serialize(StrUtil.repeat("wecoding-", 200));
+        // 原始长度被篡改，不应按该长度分配内存
+        bytes[2] = 0x7F;
+
+        assertThatThrownBy(() -> serializer.deserialize(bytes)).isInstanceOf(SerializationException.class);
+    }
+
+    @Test
+    void corruptDataIsRejected() {
+        byte[] bytes = serializer.serialize(StrUtil.repeat("wecoding-", 200));
+        for (int i = 6; i < bytes.length; i++) {
+            bytes[i] = (byte) 0xFF;
+        }
+
+        assertThatThrownBy(() -> serializer.deserialize(bytes)).isInstanceOf(SerializationException.class);
+    }
+
+}
@@ -0,0 +1,108 @@
+/*
+ * Copyright (c) 2022. WeCoding (wecoding@yeah.net).
+ *
+ * Licensed under the GNU LESSER GENERAL PUBLIC LICENSE 3.0;
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.gnu.org/licenses/lgpl.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package top.wecoding.core.cache.serializer;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * @author liuyuhui
+ * @date 2022/6/30
+ * @qq 1515418211
+ */
+class KryoRedisSerializerTest {
+
+    private final FastJson2JsonRedisSerializer<Object> jsonSerializer = new FastJson2JsonRedisSerializer<>(Object.class);
+
+    private final KryoRedisSerializer serializer = new KryoRedisSerializer();
+
+    @Test
+    void roundTrip() {
+        Map<String, Object> value = new HashMap<>();
+        value.put("name", "wecoding");
+        value.put("tags", new ArrayList<>(Arrays.asList("a", "b")));
+        value.put("score", 1.5D);
+
+        byte[] bytes = serializer.serialize(value);
+
+        assertThat(bytes[0]).isEqualTo(KryoRedisSerializer.MAGIC);
+        assertThat(bytes[1]).isEqualTo(KryoRedisSerializer.VERSION);
+        assertThat(serializer.deserialize(bytes)).isEqualTo(value);
+    }
+
+    @Test
+    void registeredClassesRoundTrip() {
+        KryoRedisSerializer registered = new KryoRedisSerializer(Arrays.asList(ArrayList.class, HashMap.class), jsonSerializer);
+        List<String> value = new ArrayList<>(Arrays.asList("a", "b"));
+
+        assertThat(registered.deserialize(registered.serialize(value))).isEqualTo(value);
+    }
+
+    @Test
+    void integersAreWrittenAsText() {
+        // 与 INCR 兼容，整数不加头部
+        assertThat(new String(serializer.serialize(42L), StandardCharsets.US_ASCII)).isEqualTo("42");
+        assertThat(new String(serializer.serialize(-7), StandardCharsets.US_ASCII)).isEqualTo("-7");
+        assertThat(((Number) serializer.deserialize("42".getBytes(StandardCharsets.US_ASCII))).longValue()).isEqualTo(42L);
+    }
+
+    @Test
+    void readsLegacyJson() {
+        Map<String, Object> value = new HashMap<>();
+        value.put("name", "wecoding");
+        value.put("count", 3);
+
+        Object legacy = serializer.deserialize(jsonSerializer.serialize(value));
+
+        assertThat(legacy).isInstanceOf(Map.class);
+        assertThat(((Map<?, ?>) legacy).get("name")).isEqualTo("wecoding");
+        assertThat(((Number) ((Map<?, ?>) legacy).get("count")).intValue()).isEqualTo(3);
+        assertThat(serializer.deserialize(jsonSerializer.serialize("text"))).isEqualTo("text");
+    }
+
+    @Test
+    void unknownVersionFallsBackToLegacy() {
+        byte[] bytes = serializer.serialize("text");
+        bytes[1] = (byte) (KryoRedisSerializer.VERSION + 1);
+        List<byte[]> seen = new ArrayList<>();
+        KryoRedisSerializer withLegacy = new KryoRedisSerializer(new ArrayList<>(), new FastJson2JsonRedisSerializer<Object>(Object.class) {
+            @Override
+            public Object deserialize(byte[] raw) {
+                seen.add(raw);
+                return "legacy";
+            }
+        });
+
+        assertThat(withLegacy.deserialize(bytes)).isEqualTo("legacy");
+        assertThat(seen).containsExactly(bytes);
+    }
+
+    @Test
+    void nullAndEmpty() {
+        assertThat(serializer.serialize(null)).isEmpty();
+        assertThat(serializer.deserialize(null)).isNull();
+        assertThat(serializer.deserialize(new byte[0])).isNull();
+    }
+
+}
@@ -0,0 +1,126 @@
+/*
+ * Copyright (c) 2022. WeCoding (wecoding@yeah.net).
+ *
+ * Licensed under the GNU LESSER GENERAL PUBLIC LICENSE 3.0;
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.gnu.org/licenses/lgpl.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY StringIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package top.wecoding.core.cache.service;
+
+import io.lettuce.core.cluster.SlotHash;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import top.wecoding.core.cache.model.CacheLoadOptions;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * @author liuyuhui
+ * @date 2022/6/30
+ * @qq 1515418211
+ */
+@SuppressWarnings("unchecked")
+class RedisServiceTest {
+
+    private static final CacheLoadOptions DISTRIBUTED = CacheLoadOptions.builder()
+            .distributed(true)
+            .waitTimeout(Duration.ofMillis(50))
+            .build();
+
+    private ValueOperations<String, Object> valueOps;
+
+    private RedisService redisService;
+
+    @BeforeEach
+    void setUp() {
+        RedisTemplate<String, Object> redisTemplate = mock(RedisTemplate.class);
+        valueOps = mock(ValueOperations.class);
+        when(redisTemplate.opsForValue()).thenReturn(valueOps);
+
+        // 加载锁一直被其他节点持有
+        StringRedisTemplate stringRedisTemplate = mock(StringRedisTemplate.class);
+        ValueOperations<String, String> stringOps = mock(ValueOperations.class);
+        when(stringRedisTemplate.opsForValue()).thenReturn(stringOps);
+        when(stringOps.setIfAbsent(anyString(), anyString(), any(Duration.class))).thenReturn(false);
+        when(stringRedisTemplate.hasKey(anyString())).thenReturn(true);
+
+        redisService = new RedisService(redisTemplate, stringRedisTemplate);
+    }
+
+    @Test
+    void reReadCacheAfterWaitTimeout() {
+        // 等待超时之后其他节点才写入缓存
+        long deadline = System.nanoTime() + DISTRIBUTED.getWaitTimeout().toNanos();
+        when(valueOps.get("k")).thenAnswer(invocation -> System.nanoTime() > deadline ? "remote" : null);
+        AtomicInteger loads = new AtomicInteger();
+
+        String value = redisService.get("k", () -> {
+            loads.incrementAndGet();
+            return "local";
+        }, DISTRIBUTED);
+
+        assertThat(value).isEqualTo("remote");
+        assertThat(loads).hasValue(0);
+    }
+
+    @Test
+    void loadAfterWaitTimeoutWhenStillMissing() {
+        AtomicInteger loads = new AtomicInteger();
+
+        String value = redisService.get("k", () -> {
+            loads.incrementAndGet();
+            return "local";
+        }, DISTRIBUTED);
+
+        assertThat(value).isEqualTo("local");
+        assertThat(loads).hasValue(1);
+        verify(valueOps).set(eq("k"), eq("local"));
+    }
+
+    @Test
+    void versionKeyWithoutHashTag() {
+        assertThat(RedisService.versionKey("user:1")).isEqualTo("{user:1}:version");
+        assertSameSlot("user:1");
+    }
+
+    @Test
+    void versionKeyWithHashTag() {
+        assertThat(RedisService.versionKey("{user}:1")).isEqualTo("{user}:1:version");
+        assertSameSlot("{user}:1");
+    }
+
+    @Test
+    void versionKeyWithEmptyHashTag() {
+        assertThat(RedisService.versionKey("{}user:1")).isEqualTo("{}user:1:version");
+    }
+
+    private static void assertSameSlot(String key) {
+        assertThat(slot(RedisService.versionKey(key))).isEqualTo(slot(key));
+    }
+
+    private static int slot(String key) {
+        return SlotHash.getSlot(key.getBytes(StandardCharsets.UTF_8));
+    }
+
+}
@@ -0,0 +1,125 @@
+/*
+ * Copyright (c) 2022. WeCoding (wecoding@yeah.net).
+ *
+ * Licensed under the GNU LESSER GENERAL PUBLIC LICENSE 3.0;
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.gnu.org/licenses/lgpl.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package top.wecoding.core.cache.support;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * @author liuyuhui
+ * @date 2022/6/30
+ * @qq 1515418211
+ */
+class SingleFlightTest {
+
+    private final SingleFlight singleFlight = new SingleFlight();
+
+    @Test
+    void concurrentCallsShareOneExecution() throws Exception {
+        int threads = 8;
+        AtomicInteger executions = new AtomicInteger();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            Future<String> leader = executor.submit(() -> singleFlight.execute("k", () -> {
+                executions.incrementAndGet();
+                started.countDown();
+                await(release);
+                return "v";
+            }));
+            assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+            assertThat(singleFlight.isRunning("k")).isTrue();
+
+            List<Future<String>> followers = new ArrayList<>();
+            for (int i = 1; i < threads; i++) {
+                followers.add(executor.submit(() -> singleFlight.execute("k", () -> {
+                    executions.incrementAndGet();
+                    return "other";
+                })));
+            }
+            release.countDown();
+
+            assertThat(leader.get(5, TimeUnit.SECONDS)).isEqualTo("v");
+            for (Future<String> follower : followers) {
+                // 晚于加载结束才调用的线程会重新执行一次
+                assertThat(follower.get(5, TimeUnit.SECONDS)).isIn("v", "other");
+            }
+            assertThat(executions.get()).isLessThan(threads);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void keyReleasedAfterCompletion() {
+        assertThat(singleFlight.<String>execute("k", () -> "v1")).isEqualTo("v1");
+        assertThat(singleFlight.isRunning("k")).isFalse();
+        assertThat(singleFlight.<String>execute("k", () -> "v2")).isEqualTo("v2");
+    }
+
+    @Test
+    void exceptionPropagatesAndReleasesKey() {
+        assertThatThrownBy(() -> singleFlight.execute("k", () -> {
+            throw new IllegalStateException("boom");
+        })).isInstanceOf(IllegalStateException.class).hasMessage("boom");
+        assertThat(singleFlight.isRunning("k")).isFalse();
+    }
+
+    @Test
+    void asyncCallsShareOneExecution() {
+        AtomicInteger executions = new AtomicInteger();
+        CompletableFuture<String> source = new CompletableFuture<>();
+
+        CompletableFuture<String> first = singleFlight.executeAsync("k", () -> {
+            executions.incrementAndGet();
+            return source;
+        });
+        CompletableFuture<String> second = singleFlight.executeAsync("k", () -> {
+            executions.incrementAndGet();
+            return CompletableFuture.completedFuture("other");
+        });
+        assertThat(singleFlight.isRunning("k")).isTrue();
+
+        source.complete("v");
+
+        assertThat(first.join()).isEqualTo("v");
+        assertThat(second.join()).isEqualTo("v");
+        assertThat(executions).hasValue(1);
+        assertThat(singleFlight.isRunning("k")).isFalse();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+}
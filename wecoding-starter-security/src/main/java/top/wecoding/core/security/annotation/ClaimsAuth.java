@@ -0,0 +1,42 @@
+/*
+ * Copyright (c) 2022. WeCoding (wecoding@yeah.net).
+ *
+ * Licensed under the GNU LESSER GENERAL PUBLIC LICENSE 3.0;
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.gnu.org/licenses/lgpl.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package top.wecoding.core.security.annotation;
+
+import java.lang.annotation.*;
+
+/**
+ * 只根据令牌中的数据声明认证
+ * <p>
+ * 用户 ID、账号、客户端等信息直接取自已验签的令牌，不再从 Redis 加载登录用户，
+ * 只有调用 {@code AuthUtil.getLoginUser()} 或权限校验时才加载。
+ * 注销后令牌在过期前仍可访问标注的接口，只适合不需要实时校验会话的接口
+ *
+ * @author liuyuhui
+ * @date 2022/6/29
+ * @qq 1515418211
+ */
+@Target({ElementType.METHOD, ElementType.TYPE})
+@Retention(RetentionPolicy.RUNTIME)
+@Inherited
+@Documented
+public @interface ClaimsAuth {
+
+    /**
+     * 是否只根据数据声明认证，可在方法上关闭类上的设置
+     */
+    boolean value() default true;
+
+}
@@ -0,0 +1,93 @@
+/*
+ * Copyright (c) 2022. WeCoding (wecoding@yeah.net).
+ *
+ * Licensed under the GNU LESSER GENERAL PUBLIC LICENSE 3.0;
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.gnu.org/licenses/lgpl.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package top.wecoding.core.security.annotation;
+
+import java.lang.annotation.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 分布式限流注解，基于 Redis 令牌桶，所有节点共享配额
+ *
+ * @author liuyuhui
+ * @date 2022/6/22
+ * @qq 1515418211
+ */
+@Target({ElementType.METHOD, ElementType.TYPE})
+@Retention(RetentionPolicy.RUNTIME)
+@Inherited
+@Documented
+public @interface RateLimit {
+
+    /**
+     * 限流 key，默认为 类名.方法名
+     */
+    String key() default "";
+
+    /**
+     * 限流维度
+     */
+    LimitType type() default LimitType.DEFAULT;
+
+    /**
+     * 时间窗口内允许的请求数
+     */
+    long permits();
+
+    /**
+     * 时间窗口
+     */
+    long period() default 1;
+
+    /**
+     * 时间窗口单位
+     */
+    TimeUnit timeUnit() default TimeUnit.SECONDS;
+
+    /**
+     * 允许的突发请求数，小于等于 0 时与 permits 相同
+     */
+    long burst() default 0;
+
+    /**
+     * 每次从 Redis 预取的令牌数，大于 1 时本地令牌用完前不访问 Redis，适合高频接口
+     */
+    int batch() default 1;
+
+    enum LimitType {
+
+        /**
+         * 接口全局限流
+         */
+        DEFAULT,
+
+        /**
+         * 按登录用户限流
+         */
+        USER,
+
+        /**
+         * 按客户端限流
+         */
+        CLIENT,
+
+        /**
+         * 按请求 IP 限流
+         */
+        IP
+
+    }
+
+}
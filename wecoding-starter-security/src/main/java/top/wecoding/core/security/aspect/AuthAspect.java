@@ -15,6 +15,7 @@
  */
 package top.wecoding.core.security.aspect;
 
+import cn.hutool.core.util.ObjectUtil;
 import cn.hutool.core.util.StrUtil;
 import lombok.extern.slf4j.Slf4j;
 import org.aspectj.lang.ProceedingJoinPoint;
@@ -25,18 +26,31 @@ import org.springframework.beans.BeansException;
 import org.springframework.context.ApplicationContext;
 import org.springframework.context.ApplicationContextAware;
 import org.springframework.context.expression.BeanFactoryResolver;
-import org.springframework.core.MethodParameter;
+import org.springframework.expression.BeanResolver;
 import org.springframework.expression.Expression;
 import org.springframework.expression.ExpressionParser;
+import org.springframework.expression.MethodResolver;
+import org.springframework.expression.spel.SpelCompilerMode;
+import org.springframework.expression.spel.SpelNode;
+import org.springframework.expression.spel.SpelParserConfiguration;
+import org.springframework.expression.spel.ast.CompoundExpression;
+import org.springframework.expression.spel.ast.MethodReference;
+import org.springframework.expression.spel.standard.SpelExpression;
 import org.springframework.expression.spel.standard.SpelExpressionParser;
+import org.springframework.expression.spel.support.ReflectiveMethodResolver;
 import org.springframework.expression.spel.support.StandardEvaluationContext;
+import top.wecoding.core.auth.util.AuthUtil;
 import top.wecoding.core.exception.code.ClientErrorCodeEnum;
 import top.wecoding.core.exception.user.UnauthorizedException;
 import top.wecoding.core.security.annotation.PreAuth;
-import top.wecoding.core.security.auth.AuthFunction;
+import top.wecoding.core.security.auth.AuthExpressionRoot;
 import top.wecoding.core.util.ClassUtil;
 
 import java.lang.reflect.Method;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * AOP 鉴权
@@ -50,10 +64,30 @@ import java.lang.reflect.Method;
 public class AuthAspect implements ApplicationContextAware {
 
     /**
-     * 表达式处理
+     * 表达式处理，执行多次后编译；无法编译的表达式回退为解释执行。
+     * 根对象 {@link AuthExpressionRoot} 校验不通过时返回 false 而不是抛出异常，编译后的表达式得以保持
      */
-    private static final ExpressionParser SPEL_PARSER = new SpelExpressionParser();
-    private ApplicationContext applicationContext;
+    private static final ExpressionParser SPEL_PARSER = new SpelExpressionParser(
+            new SpelParserConfiguration(SpelCompilerMode.MIXED, AuthAspect.class.getClassLoader()));
+
+    private static final String REQUIRES_LOGIN = "requiresLogin";
+
+    /**
+     * 表达式根对象，无状态可共用
+     */
+    private static final AuthExpressionRoot AUTH_FUNCTION = new AuthExpressionRoot();
+
+    /**
+     * 方法解析器，各次执行共用
+     */
+    private static final List<MethodResolver> METHOD_RESOLVERS = Collections.singletonList(new ReflectiveMethodResolver());
+
+    /**
+     * 方法的鉴权信息
+     */
+    private final Map<Method, AuthMetadata> metadataCache = new ConcurrentHashMap<>();
+
+    private BeanResolver beanResolver;
 
     /**
      * 切 方法 和 类上的 @PreAuth 注解
@@ -66,30 +100,85 @@ public class AuthAspect implements ApplicationContextAware {
             "@within(top.wecoding.core.security.annotation.PreAuth)"
     )
     public Object preAuth(ProceedingJoinPoint point) throws Throwable {
-        if (handleAuth(point)) {
+        MethodSignature ms = (MethodSignature) point.getSignature();
+        AuthMetadata metadata = metadataCache.computeIfAbsent(ms.getMethod(), AuthAspect::buildMetadata);
+        if (handleAuth(metadata, point.getArgs())) {
             return point.proceed();
         }
-        throw new UnauthorizedException(ClientErrorCodeEnum.NO_PERMISSION);
+        throw denied(metadata);
     }
 
     /**
      * 处理权限
      *
-     * @param point 切点
+     * @param metadata 鉴权信息
+     * @param args     方法参数
      */
-    private boolean handleAuth(ProceedingJoinPoint point) {
-        MethodSignature ms = (MethodSignature) point.getSignature();
-        Method method = ms.getMethod();
+    private boolean handleAuth(AuthMetadata metadata, Object[] args) {
+        // 判断表达式
+        if (metadata.expression == null) {
+            return false;
+        }
+        StandardEvaluationContext context = getEvaluationContext(metadata.parameterNames, args);
+        return Boolean.TRUE.equals(metadata.expression.getValue(context, Boolean.class));
+    }
+
+    /**
+     * 鉴权不通过的异常，表达式要求登录时区分未携带令牌与未登录
+     *
+     * @param metadata 鉴权信息
+     * @return 异常
+     */
+    private static UnauthorizedException denied(AuthMetadata metadata) {
+        if (metadata.requiresLogin) {
+            if (StrUtil.isBlank(AuthUtil.getToken())) {
+                return new UnauthorizedException(ClientErrorCodeEnum.JWT_TOKEN_IS_EMPTY);
+            }
+            if (ObjectUtil.isNull(AuthUtil.getLoginUser())) {
+                return new UnauthorizedException(ClientErrorCodeEnum.NO_LOGIN_USER);
+            }
+        }
+        return new UnauthorizedException(ClientErrorCodeEnum.NO_PERMISSION);
+    }
+
+    /**
+     * 解析方法的权限注解、表达式与参数名，每个方法只解析一次
+     *
+     * @param method 方法
+     * @return 鉴权信息
+     */
+    private static AuthMetadata buildMetadata(Method method) {
         // 读取权限注解，优先方法上，没有则读取类
         PreAuth preAuth = ClassUtil.getAnnotation(method, PreAuth.class);
-        // 判断表达式
-        String condition = preAuth.value();
-        if (StrUtil.isNotBlank(condition)) {
-            Expression expression = SPEL_PARSER.parseExpression(condition);
-            // 方法参数值
-            Object[] args = point.getArgs();
-            StandardEvaluationContext context = getEvaluationContext(method, args);
-            return Boolean.TRUE.equals(expression.getValue(context, Boolean.class));
+        String condition = preAuth == null ? null : preAuth.value();
+        Expression expression = StrUtil.isNotBlank(condition) ? SPEL_PARSER.parseExpression(condition) : null;
+        String[] parameterNames = new String[method.getParameterCount()];
+        for (int i = 0; i < parameterNames.length; i++) {
+            parameterNames[i] = ClassUtil.getMethodParameter(method, i).getParameterName();
+        }
+        return new AuthMetadata(expression, parameterNames, requiresLogin(expression));
+    }
+
+    /**
+     * 表达式是否在根对象上调用了 requiresLogin()，依据语法树判断，字符串常量、Bean 方法中的同名调用不算
+     *
+     * @param expression 表达式
+     * @return 是否要求登录
+     */
+    static boolean requiresLogin(Expression expression) {
+        return expression instanceof SpelExpression && callsRequiresLogin(((SpelExpression) expression).getAST(), true);
+    }
+
+    private static boolean callsRequiresLogin(SpelNode node, boolean onRoot) {
+        if (onRoot && node instanceof MethodReference && REQUIRES_LOGIN.equals(((MethodReference) node).getName())) {
+            return true;
+        }
+        for (int i = 0; i < node.getChildCount(); i++) {
+            // a.b() 中只有第一段在根对象上求值，方法参数同样在根对象上求值
+            boolean childOnRoot = !(node instanceof CompoundExpression) || i == 0;
+            if (callsRequiresLogin(node.getChild(i), childOnRoot)) {
+                return true;
+            }
         }
         return false;
     }
@@ -97,27 +186,50 @@ public class AuthAspect implements ApplicationContextAware {
     /**
      * 获取方法上的参数
      *
-     * @param method 方法
-     * @param args   变量
-     * @return {SimpleEvaluationContext}
+     * @param parameterNames 参数名
+     * @param args           变量
+     * @return {StandardEvaluationContext}
      */
-    private StandardEvaluationContext getEvaluationContext(Method method, Object[] args) {
+    private StandardEvaluationContext getEvaluationContext(String[] parameterNames, Object[] args) {
         // 初始化Sp el表达式上下文，并设置 AuthFunction 工具类
-        StandardEvaluationContext context = new StandardEvaluationContext(new AuthFunction());
+        StandardEvaluationContext context = new StandardEvaluationContext(AUTH_FUNCTION);
+        context.setMethodResolvers(METHOD_RESOLVERS);
         // 设置表达式支持spring bean
-        context.setBeanResolver(new BeanFactoryResolver(applicationContext));
-        for (int i = 0; i < args.length; i++) {
-            // 读取方法参数
-            MethodParameter methodParam = ClassUtil.getMethodParameter(method, i);
+        context.setBeanResolver(beanResolver);
+        for (int i = 0; i < args.length && i < parameterNames.length; i++) {
             // 设置方法 参数名和值 为sp el变量
-            context.setVariable(methodParam.getParameterName(), args[i]);
+            if (parameterNames[i] != null) {
+                context.setVariable(parameterNames[i], args[i]);
+            }
         }
         return context;
     }
 
     @Override
     public void setApplicationContext(ApplicationContext applicationContext) throws BeansException {
-        this.applicationContext = applicationContext;
+        this.beanResolver = new BeanFactoryResolver(applicationContext);
+    }
+
+    /**
+     * 方法的鉴权信息：预先解析的表达式与参数名
+     */
+    private static final class AuthMetadata {
+
+        private final Expression expression;
+
+        private final String[] parameterNames;
+
+        /**
+         * 表达式是否要求登录
+         */
+        private final boolean requiresLogin;
+
+        private AuthMetadata(Expression expression, String[] parameterNames, boolean requiresLogin) {
+            this.expression = expression;
+            this.parameterNames = parameterNames;
+            this.requiresLogin = requiresLogin;
+        }
+
     }
 
 }
@@ -0,0 +1,112 @@
+/*
+ * Copyright (c) 2022. WeCoding (wecoding@yeah.net).
+ *
+ * Licensed under the GNU LESSER GENERAL PUBLIC LICENSE 3.0;
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.gnu.org/licenses/lgpl.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package top.wecoding.core.security.aspect;
+
+import cn.hutool.core.util.StrUtil;
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.aspectj.lang.JoinPoint;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.annotation.Before;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.util.ClassUtils;
+import top.wecoding.core.cache.limiter.RedisRateLimiter;
+import top.wecoding.core.constant.StrPool;
+import top.wecoding.core.context.security.SecurityContextHolder;
+import top.wecoding.core.exception.user.RateLimitException;
+import top.wecoding.core.security.annotation.RateLimit;
+import top.wecoding.core.util.HttpServletUtils;
+import top.wecoding.core.util.IpAddressUtil;
+
+import java.lang.reflect.Method;
+
+/**
+ * 限流处理切面，先于权限校验执行
+ *
+ * @author liuyuhui
+ * @date 2022/6/22
+ * @qq 1515418211
+ */
+@Slf4j
+@Aspect
+@AllArgsConstructor
+public class RateLimitAspect implements Ordered {
+
+    private final RedisRateLimiter redisRateLimiter;
+
+    /**
+     * 切 方法 和 类上的 @RateLimit 注解，注解不在切点中绑定，或条件下无法可靠绑定类上的注解
+     *
+     * @param point 切点
+     */
+    @Before("@within(top.wecoding.core.security.annotation.RateLimit) || " +
+            "@annotation(top.wecoding.core.security.annotation.RateLimit)")
+    public void before(JoinPoint point) {
+        RateLimit rateLimit = getRateLimit(point);
+        if (rateLimit == null) {
+            return;
+        }
+        String key = getKey(point, rateLimit);
+        long capacity = rateLimit.burst() > 0 ? rateLimit.burst() : rateLimit.permits();
+        double permitsPerSecond = rateLimit.permits() * 1_000_000_000D / rateLimit.timeUnit().toNanos(rateLimit.period());
+
+        if (!redisRateLimiter.tryAcquire(key, capacity, permitsPerSecond, rateLimit.batch())) {
+            log.warn(" >>> 访问接口 {} 被限流，限流 key: {}", point.getSignature().getName(), key);
+            throw new RateLimitException();
+        }
+    }
+
+    /**
+     * 读取限流注解，优先方法上，没有则读取目标类
+     */
+    private static RateLimit getRateLimit(JoinPoint point) {
+        Method method = ((MethodSignature) point.getSignature()).getMethod();
+        Class<?> targetClass = point.getTarget() != null ? AopUtils.getTargetClass(point.getTarget()) : method.getDeclaringClass();
+        Method specificMethod = ClassUtils.getMostSpecificMethod(method, targetClass);
+        RateLimit rateLimit = AnnotatedElementUtils.findMergedAnnotation(specificMethod, RateLimit.class);
+        if (rateLimit != null) {
+            return rateLimit;
+        }
+        return AnnotatedElementUtils.findMergedAnnotation(targetClass, RateLimit.class);
+    }
+
+    private String getKey(JoinPoint point, RateLimit rateLimit) {
+        String key = StrUtil.isNotBlank(rateLimit.key()) ? rateLimit.key()
+                : point.getSignature().getDeclaringTypeName() + StrPool.PERIOD + point.getSignature().getName();
+        switch (rateLimit.type()) {
+            case USER:
+                return key + StrPool.COLON + SecurityContextHolder.getUserIdStr();
+            case CLIENT:
+                return key + StrPool.COLON + SecurityContextHolder.getClientId();
+            case IP:
+                return key + StrPool.COLON + IpAddressUtil.getIp(HttpServletUtils.getRequest());
+            default:
+                return key;
+        }
+    }
+
+    /**
+     * 排在 ExposeInvocationInterceptor 之后，否则无法获取切点信息
+     */
+    @Override
+    public int getOrder() {
+        return Ordered.HIGHEST_PRECEDENCE + 10;
+    }
+
+}
@@ -0,0 +1,63 @@
+/*
+ * Copyright (c) 2022. WeCoding (wecoding@yeah.net).
+ *
+ * Licensed under the GNU LESSER GENERAL PUBLIC LICENSE 3.0;
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.gnu.org/licenses/lgpl.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package top.wecoding.core.security.auth;
+
+import cn.hutool.core.util.ObjectUtil;
+import cn.hutool.core.util.StrUtil;
+import top.wecoding.core.auth.util.AuthUtil;
+
+import java.util.Set;
+
+/**
+ * {@link top.wecoding.core.security.annotation.PreAuth} 表达式的根对象
+ * <p>
+ * 与 {@link AuthFunction} 相同，但校验不通过时返回 false 而不是抛出异常，由切面抛出对应的错误码，
+ * 编译后的表达式不会因异常回退为解释执行。需要为 public，表达式才能被编译
+ *
+ * @author liuyuhui
+ * @date 2022/6/30
+ * @qq 1515418211
+ */
+public class AuthExpressionRoot extends AuthFunction {
+
+    @Override
+    public boolean requiresLogin() {
+        return StrUtil.isNotBlank(AuthUtil.getToken()) && ObjectUtil.isNotNull(AuthUtil.getLoginUser());
+    }
+
+    @Override
+    public boolean hasAnyPermission(String... permits) {
+        Set<String> permissionList = getAllPermissions();
+        for (String permission : permits) {
+            if (hasPermission(permissionList, permission)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public boolean hasAnyRole(String... roles) {
+        Set<String> roleKeyList = getAllRoleKeys();
+        for (String role : roles) {
+            if (hasRole(roleKeyList, role)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+}
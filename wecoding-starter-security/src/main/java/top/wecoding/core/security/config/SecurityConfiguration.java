@@ -25,8 +25,10 @@ import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.lang.NonNull;
 import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import top.wecoding.core.cache.limiter.RedisRateLimiter;
 import top.wecoding.core.security.aspect.AuthAspect;
 import top.wecoding.core.security.aspect.InnerAuthAspect;
+import top.wecoding.core.security.aspect.RateLimitAspect;
 import top.wecoding.core.security.interceptor.HeaderInterceptor;
 import top.wecoding.core.security.props.SecurityProperties;
 import top.wecoding.core.security.provider.ClientDetailsService;
@@ -78,6 +80,11 @@ public class SecurityConfiguration implements WebMvcConfigurer {
         return new AuthAspect();
     }
 
+    @Bean
+    public RateLimitAspect rateLimitAspect(RedisRateLimiter redisRateLimiter) {
+        return new RateLimitAspect(redisRateLimiter);
+    }
+
     /**
      * 自定义请求头拦截器
      */
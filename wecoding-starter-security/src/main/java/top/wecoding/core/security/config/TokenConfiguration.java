@@ -18,6 +18,7 @@ package top.wecoding.core.security.config;
 import lombok.AllArgsConstructor;
 import org.springframework.boot.autoconfigure.AutoConfigureBefore;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -25,6 +26,7 @@ import org.springframework.core.annotation.Order;
 import top.wecoding.core.jwt.props.JwtProperties;
 import top.wecoding.core.security.cache.DefaultLoginUserCache;
 import top.wecoding.core.security.cache.LoginUserCache;
+import top.wecoding.core.security.cache.TwoLevelLoginUserCache;
 import top.wecoding.core.security.service.TokenService;
 
 /**
@@ -51,8 +53,19 @@ public class TokenConfiguration {
 
     @Bean
     @ConditionalOnMissingBean(LoginUserCache.class)
+    @ConditionalOnProperty(prefix = "wecoding.security", name = "two-level-cache", havingValue = "false", matchIfMissing = true)
     public LoginUserCache loginUserCache() {
         return new DefaultLoginUserCache();
     }
 
+    /**
+     * 开启后登录用户信息优先从本地缓存读取
+     */
+    @Bean
+    @ConditionalOnMissingBean(LoginUserCache.class)
+    @ConditionalOnProperty(prefix = "wecoding.security", name = "two-level-cache", havingValue = "true")
+    public LoginUserCache twoLevelLoginUserCache() {
+        return new TwoLevelLoginUserCache();
+    }
+
 }
@@ -16,19 +16,27 @@
 package top.wecoding.core.security.interceptor;
 
 import cn.hutool.core.util.StrUtil;
+import io.jsonwebtoken.Claims;
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.web.method.HandlerMethod;
 import org.springframework.web.servlet.AsyncHandlerInterceptor;
 import top.wecoding.core.auth.util.AuthUtil;
 import top.wecoding.core.constant.SecurityConstants;
+import top.wecoding.core.constant.TokenConstant;
 import top.wecoding.core.context.security.SecurityContextHolder;
+import top.wecoding.core.jwt.util.JwtUtils;
+import top.wecoding.core.security.annotation.ClaimsAuth;
 import top.wecoding.core.security.service.TokenService;
+import top.wecoding.core.util.ClassUtil;
 import top.wecoding.core.util.HttpServletUtils;
 
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
+import java.lang.reflect.Method;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
 
 import static top.wecoding.core.constant.SecurityConstants.*;
 
@@ -43,6 +51,11 @@ import static top.wecoding.core.constant.SecurityConstants.*;
 @AllArgsConstructor
 public class HeaderInterceptor implements AsyncHandlerInterceptor {
 
+    /**
+     * 接口是否只根据数据声明认证
+     */
+    private static final Map<Method, Boolean> CLAIMS_AUTH_CACHE = new ConcurrentHashMap<>();
+
     private final TokenService tokenService;
 
     @Override
@@ -57,7 +70,9 @@ public class HeaderInterceptor implements AsyncHandlerInterceptor {
         SecurityContextHolder.setClientId(HttpServletUtils.getHeader(request, DETAILS_CLIENT_ID));
 
         String token = AuthUtil.getToken(request);
-        if (StrUtil.isNotBlank(token)) {
+        if (StrUtil.isNotBlank(token) && isClaimsAuth((HandlerMethod) handler)) {
+            setFromClaims(token);
+        } else if (StrUtil.isNotBlank(token)) {
             Optional.ofNullable(tokenService.getLoginUser(token)).ifPresent(loginUser -> {
                 SecurityContextHolder.set(SecurityConstants.LOGIN_USER, loginUser);
                 SecurityContextHolder.setUserId(loginUser.getUserId());
@@ -69,6 +84,43 @@ public class HeaderInterceptor implements AsyncHandlerInterceptor {
         return true;
     }
 
+    /**
+     * 根据已验签的数据声明设置用户信息，登录用户在第一次使用时才从缓存中加载
+     *
+     * @param token 令牌
+     */
+    private void setFromClaims(String token) {
+        Claims claims;
+        try {
+            claims = JwtUtils.parseToken(token);
+        } catch (Exception e) {
+            log.warn(" >>> 解析令牌失败. Thread:{}", Thread.currentThread());
+            return;
+        }
+        // 刷新令牌不能用于访问接口
+        if (!TokenConstant.ACCESS_TOKEN.equals(JwtUtils.getValue(claims, TokenConstant.TOKEN_TYPE))) {
+            return;
+        }
+        SecurityContextHolder.setUserId(JwtUtils.getUserId(claims));
+        SecurityContextHolder.setUserKey(JwtUtils.getUserKey(claims));
+        SecurityContextHolder.setAccount(JwtUtils.getUserAccount(claims));
+        SecurityContextHolder.setClientId(JwtUtils.getClientId(claims));
+        SecurityContextHolder.setSupplier(SecurityConstants.LOGIN_USER, () -> tokenService.getLoginUser(token));
+    }
+
+    /**
+     * 接口是否只根据数据声明认证，只有显式标注 {@link ClaimsAuth} 的接口跳过会话校验
+     *
+     * @param handlerMethod 接口
+     * @return 是否只根据数据声明认证
+     */
+    private boolean isClaimsAuth(HandlerMethod handlerMethod) {
+        return CLAIMS_AUTH_CACHE.computeIfAbsent(handlerMethod.getMethod(), method -> {
+            ClaimsAuth claimsAuth = ClassUtil.getAnnotation(handlerMethod, ClaimsAuth.class);
+            return claimsAuth != null && claimsAuth.value();
+        });
+    }
+
     @Override
     public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) throws Exception {
         SecurityContextHolder.remove();
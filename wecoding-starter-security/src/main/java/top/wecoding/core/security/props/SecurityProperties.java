@@ -33,4 +33,9 @@ public class SecurityProperties {
 
     private List<String> whites = new ArrayList<>();
 
+    /**
+     * 登录用户信息是否使用本地缓存 + Redis 二级缓存
+     */
+    private boolean twoLevelCache = false;
+
 }
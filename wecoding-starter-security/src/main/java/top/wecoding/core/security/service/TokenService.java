@@ -50,6 +50,11 @@ import java.util.Map;
 @AllArgsConstructor
 public class TokenService {
 
+    /**
+     * 登录用户缓存时长/秒，写入时由缓存的 TtlPolicy 增加抖动，避免批量登录的会话同时失效
+     */
+    private static final long LOGIN_USER_EXPIRE = 2 * 60 * 3600;
+
     private final JwtProperties jwtProperties;
 
     private final LoginUserCache loginUserCache;
@@ -136,7 +141,7 @@ public class TokenService {
      * @param loginUser 登录用户信息
      */
     public void cacheLoginUser(LoginUser loginUser) {
-        loginUserCache.set(loginUser.getUuid(), loginUser, 2 * 60 * 3600);
+        loginUserCache.set(loginUser.getUuid(), loginUser, LOGIN_USER_EXPIRE);
     }
 
     /**
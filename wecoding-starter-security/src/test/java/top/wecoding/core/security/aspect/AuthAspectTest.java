@@ -0,0 +1,168 @@
+/*
+ * Copyright (c) 2022. WeCoding (wecoding@yeah.net).
+ *
+ * Licensed under the GNU LESSER GENERAL PUBLIC LICENSE 3.0;
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.gnu.org/licenses/lgpl.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package top.wecoding.core.security.aspect;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import org.springframework.expression.spel.standard.SpelExpressionParser;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import top.wecoding.core.auth.model.LoginUser;
+import top.wecoding.core.constant.SecurityConstants;
+import top.wecoding.core.constant.TokenConstant;
+import top.wecoding.core.context.security.SecurityContextHolder;
+import top.wecoding.core.exception.code.ClientErrorCodeEnum;
+import top.wecoding.core.exception.user.UnauthorizedException;
+import top.wecoding.core.security.annotation.PreAuth;
+import top.wecoding.core.security.auth.AuthFunction;
+
+import java.util.Collections;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * @author liuyuhui
+ * @date 2022/6/30
+ * @qq 1515418211
+ */
+class AuthAspectTest {
+
+    private static final SpelExpressionParser PARSER = new SpelExpressionParser();
+
+    private MockHttpServletRequest request;
+
+    @BeforeEach
+    void setUp() {
+        request = new MockHttpServletRequest();
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+    }
+
+    @AfterEach
+    void tearDown() {
+        RequestContextHolder.resetRequestAttributes();
+        SecurityContextHolder.remove();
+    }
+
+    @Test
+    void requiresLoginFromSyntaxTree() {
+        assertThat(requiresLogin("requiresLogin()")).isTrue();
+        assertThat(requiresLogin("requiresLogin() and hasPermission('user:list')")).isTrue();
+        assertThat(requiresLogin("permitAll() or !requiresLogin()")).isTrue();
+        assertThat(requiresLogin("hasAnyRole(requiresLogin() ? 'a' : 'b')")).isTrue();
+
+        assertThat(requiresLogin("hasPermission('x')")).isFalse();
+        assertThat(requiresLogin("hasPermission('requiresLogin()')")).isFalse();
+        assertThat(requiresLogin("@authService.requiresLogin()")).isFalse();
+        assertThat(requiresLogin("#user.requiresLogin()")).isFalse();
+    }
+
+    @Test
+    void missingToken() {
+        assertDenied(() -> proxy().login(), ClientErrorCodeEnum.JWT_TOKEN_IS_EMPTY);
+    }
+
+    @Test
+    void missingLoginUser() {
+        request.addHeader(TokenConstant.AUTHENTICATION, "token");
+
+        assertDenied(() -> proxy().login(), ClientErrorCodeEnum.NO_LOGIN_USER);
+    }
+
+    @Test
+    void loggedInWithoutPermission() {
+        login("user:add");
+
+        assertThat(proxy().login()).isEqualTo("ok");
+        assertDenied(() -> proxy().permission(), ClientErrorCodeEnum.NO_PERMISSION);
+        assertDenied(() -> proxy().anyPermission(), ClientErrorCodeEnum.NO_PERMISSION);
+    }
+
+    @Test
+    void loggedInWithPermission() {
+        login("user:list");
+
+        assertThat(proxy().permission()).isEqualTo("ok");
+        assertThat(proxy().anyPermission()).isEqualTo("ok");
+    }
+
+    @Test
+    void authFunctionStillThrows() {
+        AuthFunction authFunction = new AuthFunction();
+
+        assertThatThrownBy(authFunction::requiresLogin)
+                .isInstanceOfSatisfying(UnauthorizedException.class, e ->
+                        assertThat(e.getErrorCode()).isEqualTo(ClientErrorCodeEnum.JWT_TOKEN_IS_EMPTY.getErrorCode()));
+        assertThatThrownBy(() -> authFunction.hasAnyPermission("user:list"))
+                .isInstanceOfSatisfying(UnauthorizedException.class, e ->
+                        assertThat(e.getErrorCode()).isEqualTo(ClientErrorCodeEnum.NO_PERMISSION.getErrorCode()));
+    }
+
+    private static boolean requiresLogin(String condition) {
+        return AuthAspect.requiresLogin(PARSER.parseExpression(condition));
+    }
+
+    private void login(String permission) {
+        request.addHeader(TokenConstant.AUTHENTICATION, "token");
+        LoginUser loginUser = new LoginUser();
+        loginUser.setPermissions(Collections.singleton(permission));
+        loginUser.setRoleKeys(Collections.emptySet());
+        SecurityContextHolder.set(SecurityConstants.LOGIN_USER, loginUser);
+    }
+
+    private static void assertDenied(ThrowingCall call, ClientErrorCodeEnum errorCode) {
+        assertThatThrownBy(call::call)
+                .isInstanceOfSatisfying(UnauthorizedException.class, e ->
+                        assertThat(e.getErrorCode()).isEqualTo(errorCode.getErrorCode()));
+    }
+
+    private static Secured proxy() {
+        AspectJProxyFactory factory = new AspectJProxyFactory(new Secured());
+        factory.setProxyTargetClass(true);
+        factory.addAspect(new AuthAspect());
+        return factory.getProxy();
+    }
+
+    @FunctionalInterface
+    private interface ThrowingCall {
+
+        Object call();
+
+    }
+
+    static class Secured {
+
+        @PreAuth("requiresLogin()")
+        public String login() {
+            return "ok";
+        }
+
+        @PreAuth("requiresLogin() and hasPermission('user:list')")
+        public String permission() {
+            return "ok";
+        }
+
+        @PreAuth("hasAnyPermission('user:list', 'user:query')")
+        public String anyPermission() {
+            return "ok";
+        }
+
+    }
+
+}
@@ -0,0 +1,121 @@
+/*
+ * Copyright (c) 2022. WeCoding (wecoding@yeah.net).
+ *
+ * Licensed under the GNU LESSER GENERAL PUBLIC LICENSE 3.0;
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.gnu.org/licenses/lgpl.html
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package top.wecoding.core.security.aspect;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import top.wecoding.core.cache.limiter.RedisRateLimiter;
+import top.wecoding.core.exception.user.RateLimitException;
+import top.wecoding.core.security.annotation.RateLimit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * @author liuyuhui
+ * @date 2022/6/30
+ * @qq 1515418211
+ */
+class RateLimitAspectTest {
+
+    private RedisRateLimiter redisRateLimiter;
+
+    @BeforeEach
+    void setUp() {
+        redisRateLimiter = mock(RedisRateLimiter.class);
+        when(redisRateLimiter.tryAcquire(anyString(), anyLong(), anyDouble(), anyInt())).thenReturn(true);
+    }
+
+    @Test
+    void methodLevelAnnotation() {
+        MethodLimited proxy = proxy(new MethodLimited());
+
+        assertThat(proxy.limited()).isEqualTo("ok");
+        verify(redisRateLimiter).tryAcquire(eq("method"), eq(5L), eq(5D), eq(1));
+
+        assertThat(proxy.unlimited()).isEqualTo("ok");
+        verify(redisRateLimiter, never()).tryAcquire(eq(MethodLimited.class.getName() + ".unlimited"), anyLong(), anyDouble(), anyInt());
+    }
+
+    @Test
+    void classLevelAnnotation() {
+        ClassLimited proxy = proxy(new ClassLimited());
+
+        assertThat(proxy.call()).isEqualTo("ok");
+        verify(redisRateLimiter).tryAcquire(eq("class"), eq(10L), eq(10D), eq(1));
+    }
+
+    @Test
+    void methodAnnotationOverridesClass() {
+        ClassLimited proxy = proxy(new ClassLimited());
+
+        assertThat(proxy.override()).isEqualTo("ok");
+        verify(redisRateLimiter).tryAcquire(eq("override"), eq(1L), eq(1D), eq(1));
+    }
+
+    @Test
+    void rejectWhenLimited() {
+        when(redisRateLimiter.tryAcquire(anyString(), anyLong(), anyDouble(), anyInt())).thenReturn(false);
+        ClassLimited proxy = proxy(new ClassLimited());
+
+        assertThatThrownBy(proxy::call).isInstanceOf(RateLimitException.class);
+    }
+
+    private <T> T proxy(T target) {
+        AspectJProxyFactory factory = new AspectJProxyFactory(target);
+        factory.setProxyTargetClass(true);
+        factory.addAspect(new RateLimitAspect(redisRateLimiter));
+        return factory.getProxy();
+    }
+
+    static class MethodLimited {
+
+        @RateLimit(key = "method", permits = 5)
+        public String limited() {
+            return "ok";
+        }
+
+        public String unlimited() {
+            return "ok";
+        }
+
+    }
+
+    @RateLimit(key = "class", permits = 10)
+    static class ClassLimited {
+
+        public String call() {
+            return "ok";
+        }
+
+        @RateLimit(key = "override", permits = 1)
+        public String override() {
+            return "ok";
+        }
+
+    }
+
+}